@@ -0,0 +1,346 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+*	The Arena is a game mode with many snakes on one board, each steered by a player or a bot; the board is made up of a number of tiles, each tile having the walls of a random map.
+*	All of the snakes, walls and items are registered in one OccupancyGrid, so therefore each tick only looks up the cell of each snake's head; it costs the same for each snake, however many other snakes there are or however long they are.
+*	The snakes all move before any of the collisions are detected, so two heads running into each other both die. A head which shares its cell with another body part has collided; the sums of the snake ids (and of their squares) in the cell tell whether the body parts are all its own, or include another snake's.
+*	The rules are simpler than a SnakeGame; there isn't any energy or power ups, the walls are always active, and the items don't expire. A snake grows by one cell for each item it collects, and a new item is added in place of each item collected.
+*	A snake which dies is removed from the board, and is placed back on the board straight away if the arena respawns the snakes.
+*
+*	Usage: java Arena [-snakes count] [-ticks count] [-tiles columns rows] [-seed seed]
+**/
+
+public class Arena implements Constants {
+		public static final int ITEMS_PER_SNAKE = 2; // The amount of items on the board for each snake.
+
+		// The Steering picks the direction of a snake on each tick.
+		public interface Steering {
+				SnakeGame.Compass steer(Arena arena, Player player); // Returns the direction for the next move, or null to keep the current direction.
+		}
+
+		// The Listener is notified when a snake dies.
+		public interface Listener {
+				void died(Player player, CollisionException ex);
+		}
+
+		private OccupancyGrid grid; // The grid which all of the snakes, walls and items are registered in.
+		private GameRandom random;
+		private GameClock clock; // The clock the items are created with, it isn't advanced as the items don't expire.
+		private List<Player> players = new ArrayList<Player>();
+		private List<Wall> walls = new ArrayList<Wall>();
+		private List<Energy> items = new ArrayList<Energy>();
+		private Map<Energy, Integer> itemIndex = new IdentityHashMap<Energy, Integer>(); // The index of each item in the items, so an item can be removed by swapping the last item into its place.
+		private List<Player> dying = new ArrayList<Player>(); // The snakes which collided on the current tick.
+		private boolean respawn; // Whether the snakes which die are placed back on the board.
+		private Listener listener;
+		private long ticks;
+
+		// The Arena receives the amount of tiles across and down the board, the seed of the random decisions, and whether the snakes which die are placed back on the board.
+		public Arena(int tileColumns, int tileRows, long seed, boolean respawn) {
+				this.grid = new OccupancyGrid(tileColumns * PANEL_WIDTH, tileRows * PANEL_HEIGHT);
+				this.random = new GameRandom(seed);
+				this.clock = new GameClock();
+				this.respawn = respawn;
+				for (int row = 0; row < tileRows; row++) {
+					for (int column = 0; column < tileColumns; column++) {
+						GameMap map = MapRegistry.random(this.random);
+						if (map == null) continue;
+						for (int i = 0; i < map.size(); i++) {
+							Wall wall = new Wall((column * PANEL_WIDTH) + map.getX(i), (row * PANEL_HEIGHT) + map.getY(i));
+							this.walls.add(wall);
+							this.grid.addWall(wall);
+						}
+					}
+				}
+		}
+
+		public void setListener(Listener listener) {
+				this.listener = listener;
+		}
+
+		// Adds a snake to the board with the name received, which is steered by the steering received (or by its player if it is null). Returns null if there isn't room for it.
+		public Player addPlayer(String name, Steering steering) {
+				Player player = new Player(this.players.size() + ONE, name, steering);
+				if (!this.place(player)) return null;
+				this.players.add(player);
+				for (int i = 0; i < ITEMS_PER_SNAKE; i++) this.addItem();
+				return player;
+		}
+
+		// Performs one tick; moves all of the snakes, then detects their collisions and collects the items their heads are on.
+		public void step() {
+				this.ticks++;
+				for (int i = 0; i < this.players.size(); i++) {
+					Player player = this.players.get(i);
+					if (!player.alive) continue;
+					if (player.steering != null) player.setDirection(player.steering.steer(this, player));
+					if (player.growth > ZERO) {
+						player.snake.incrementSize(player.direction); // The tail stays where it is, so the snake grows by a cell.
+						player.growth--;
+					} else {
+						player.snake.move(player.direction);
+					}
+				}
+				for (int i = 0; i < this.players.size(); i++) {
+					Player player = this.players.get(i);
+					if (!player.alive) continue;
+					int x = player.snake.getX(ZERO);
+					int y = player.snake.getY(ZERO);
+					CollisionException.CollideType collision = null;
+					int count = this.grid.snakeAt(x, y);
+					if (this.grid.wallAt(x, y) != null) {
+						collision = CollisionException.CollideType.WALL;
+					} else if (count > ONE) {
+						// It has run into itself only if all of the body parts in the cell are its own.
+						collision = this.grid.isOwnedBy(x, y, player.id) ? CollisionException.CollideType.SNAKE_BODY : CollisionException.CollideType.OTHER_SNAKE;
+					}
+					if (collision != null) {
+						player.collision = new CollisionException(collision);
+						this.dying.add(player); // The snake is removed once all of the collisions are found, so therefore the snake it ran into is still there.
+						continue;
+					}
+					Energy item = this.grid.itemAt(x, y);
+					if (item != null) {
+						player.points += item.getPoints();
+						player.growth++;
+						this.removeItem(item);
+						this.addItem();
+					}
+				}
+				for (int i = 0; i < this.dying.size(); i++) {
+					Player player = this.dying.get(i);
+					player.snake.clear();
+					player.alive = false;
+					player.deaths++;
+					if (this.listener != null) this.listener.died(player, player.collision);
+					if (this.respawn && this.place(player)) player.points = ZERO;
+				}
+				this.dying.clear();
+		}
+
+		// Places the snake of the player at a random free block, heading in a random direction. Returns false if there aren't any free blocks.
+		private boolean place(Player player) {
+				int block = this.grid.randomFreeBlock(this.random);
+				if (block < ZERO) return false;
+				player.snake.reset(this.grid.blockX(block), this.grid.blockY(block));
+				player.direction = SnakeGame.Compass.values()[this.random.nextInt(SnakeGame.Compass.values().length)];
+				player.growth = ZERO;
+				player.collision = null;
+				player.alive = true;
+				return true;
+		}
+
+		// Adds a item at a random free block, unless there aren't any.
+		private void addItem() {
+				int block = this.grid.randomFreeBlock(this.random);
+				if (block < ZERO) return;
+				Energy item = new EnergyDrink(this.grid.blockX(block), this.grid.blockY(block), this.clock, this.random);
+				this.itemIndex.put(item, this.items.size());
+				this.items.add(item);
+				this.grid.addItem(item);
+		}
+
+		// Removes the item, by moving the last item into its place.
+		private void removeItem(Energy item) {
+				int index = this.itemIndex.remove(item);
+				Energy last = this.items.remove(this.items.size() - ONE);
+				if (last != item) {
+					this.items.set(index, last);
+					this.itemIndex.put(last, index);
+				}
+				this.grid.removeItem(item);
+		}
+
+		// Returns a boolean depicting whether the cell at the coordinates received has a wall or a snake body part on it.
+		public boolean isBlocked(int x, int y) {
+				return (this.grid.wallAt(x, y) != null || this.grid.snakeAt(x, y) > ZERO);
+		}
+
+		// Returns a boolean depicting whether the item is still on the board.
+		public boolean hasItem(Energy item) {
+				return this.itemIndex.containsKey(item);
+		}
+
+		// Gets a random item on the board, or null if there aren't any.
+		public Energy randomItem() {
+				return (this.items.size() > ZERO) ? this.items.get(this.random.nextInt(this.items.size())) : null;
+		}
+
+		public int getWidth() {
+				return this.grid.getWidth();
+		}
+
+		public int getHeight() {
+				return this.grid.getHeight();
+		}
+
+		public OccupancyGrid getGrid() {
+				return this.grid;
+		}
+
+		public List<Player> getPlayers() {
+				return Collections.unmodifiableList(this.players);
+		}
+
+		public List<Wall> getWalls() {
+				return Collections.unmodifiableList(this.walls);
+		}
+
+		public List<Energy> getItems() {
+				return Collections.unmodifiableList(this.items);
+		}
+
+		public long getTicks() {
+				return this.ticks;
+		}
+
+		/**
+		*	The Player is one of the snakes in the arena, along with its direction and points.
+		**/
+		public class Player {
+				private int id; // The id of the snake in the grid, which starts at one.
+				private String name;
+				private Snake snake;
+				private SnakeGame.Compass direction;
+				private Steering steering; // Steers the snake, it is null when the player is steering.
+				private int points;
+				private int growth; // The amount of cells the snake still has to grow.
+				private int deaths;
+				private boolean alive;
+				private CollisionException collision; // The collision which killed the snake.
+
+				private Player(int id, String name, Steering steering) {
+						this.id = id;
+						this.name = name;
+						this.steering = steering;
+						this.snake = new Snake(grid, id);
+				}
+
+				// Sets the direction for the next move, following the same rule as the SnakeGame (the snake can't turn back on itself).
+				public void setDirection(SnakeGame.Compass direction) {
+						if (direction == null || this.direction == null) return;
+						if (direction.ordinal() / 2 != this.direction.ordinal() / 2) this.direction = direction; // NORTH and SOUTH, and EAST and WEST, are next to each other in the Compass.
+				}
+
+				public int getId() {
+						return this.id;
+				}
+
+				public String getName() {
+						return this.name;
+				}
+
+				public Snake getSnake() {
+						return this.snake;
+				}
+
+				public SnakeGame.Compass getDirection() {
+						return this.direction;
+				}
+
+				public int getPoints() {
+						return this.points;
+				}
+
+				public int getDeaths() {
+						return this.deaths;
+				}
+
+				public boolean isAlive() {
+						return this.alive;
+				}
+		}
+
+		/**
+		*	The Bot steers a snake towards a random item, choosing the direction which gets closest to it without running into a wall or snake.
+		*	It only looks at the cells next to the head, so therefore it costs the same on each tick however large the arena is.
+		**/
+		public static class Bot implements Steering {
+				private static final int[] BEARING_X = {ZERO, ZERO, ONE, -ONE}; // The same bearings as the snake, for each Compass direction.
+				private static final int[] BEARING_Y = {-ONE, ONE, ZERO, ZERO};
+				private Energy target;
+
+				public SnakeGame.Compass steer(Arena arena, Player player) {
+						if (this.target == null || !arena.hasItem(this.target)) this.target = arena.randomItem();
+						Snake snake = player.getSnake();
+						int width = arena.getWidth(), height = arena.getHeight();
+						SnakeGame.Compass best = null;
+						int bestDistance = Integer.MAX_VALUE;
+						for (SnakeGame.Compass direction : SnakeGame.Compass.values()) {
+							if (direction.ordinal() / 2 == player.getDirection().ordinal() / 2 && direction != player.getDirection()) continue; // Can't turn back.
+							int x = Math.floorMod(snake.getX(ZERO) + (BEARING_X[direction.ordinal()] * SNAKE_SIZE), width);
+							int y = Math.floorMod(snake.getY(ZERO) + (BEARING_Y[direction.ordinal()] * SNAKE_SIZE), height);
+							if (arena.isBlocked(x, y)) continue;
+							int distance = (this.target != null) ? distance(x, this.target.x, width) + distance(y, this.target.y, height) : ZERO;
+							if (distance < bestDistance || (distance == bestDistance && direction == player.getDirection())) {
+								best = direction;
+								bestDistance = distance;
+							}
+						}
+						return best;
+				}
+
+				// Gets the distance between the coordinates received, the shorter way around the wrapping board.
+				private static int distance(int from, int to, int size) {
+						int distance = Math.abs(from - to);
+						return Math.min(distance, size - distance);
+				}
+		}
+
+		// Runs a arena of bots for a number of ticks, and prints how long the ticks took; for checking how many snakes can be played at the game speed.
+		public static void main(String[] args) {
+				int snakes = 500;
+				int ticks = 2000;
+				int tileColumns = 6, tileRows = 6;
+				long seed = GameRandom.newSeed();
+				try {
+					for (int i = 0; i < args.length; i++) {
+						if (args[i].equals("-snakes")) snakes = Integer.parseInt(args[++i]);
+						else if (args[i].equals("-ticks")) ticks = Integer.parseInt(args[++i]);
+						else if (args[i].equals("-tiles")) {
+							tileColumns = Integer.parseInt(args[++i]);
+							tileRows = Integer.parseInt(args[++i]);
+						} else if (args[i].equals("-seed")) seed = Long.parseLong(args[++i]);
+						else throw new IllegalArgumentException(args[i]);
+					}
+				} catch (RuntimeException ex) {
+					System.out.println("Usage: java Arena [-snakes count] [-ticks count] [-tiles columns rows] [-seed seed]");
+					return;
+				}
+				MapRegistry.load();
+				Arena arena = new Arena(tileColumns, tileRows, seed, true);
+				final long[] deaths = new long[CollisionException.CollideType.values().length];
+				arena.setListener(new Listener() {
+						public void died(Player player, CollisionException ex) {
+								deaths[ex.getCollideType().ordinal()]++;
+						}
+				});
+				for (int i = 0; i < snakes; i++) {
+					if (arena.addPlayer("Bot " + i, new Bot()) == null) {
+						System.out.println("Can't Find Room For Snake " + i);
+						break;
+					}
+				}
+				System.out.println("Playing " + arena.getPlayers().size() + " Snakes On A " + (arena.getWidth() / SNAKE_SIZE) + "x" + (arena.getHeight() / SNAKE_SIZE) + " Cell Arena, Seed " + seed);
+				long slowest = 0;
+				long start = System.nanoTime();
+				for (int i = 0; i < ticks; i++) {
+					long tick = System.nanoTime();
+					arena.step();
+					slowest = Math.max(slowest, System.nanoTime() - tick);
+				}
+				double average = (System.nanoTime() - start) / (double)ticks / 1000;
+				int longest = 0, best = 0;
+				for (Player player : arena.getPlayers()) {
+					longest = Math.max(longest, player.getSnake().size());
+					best = Math.max(best, player.getPoints());
+				}
+				System.out.printf("%d Ticks, Average %.1fus, Slowest %.1fus (The Fastest Game Speed Is %dms)%n", ticks, average, slowest / 1000.0, SNAKE_SPEED[SNAKE_SPEED.length - 1]);
+				for (CollisionException.CollideType type : CollisionException.CollideType.values()) System.out.println("  " + type + " " + deaths[type.ordinal()]);
+				System.out.println("Longest Snake " + longest + ", Best Points " + best);
+		}
+}
@@ -0,0 +1,236 @@
+import java.util.Arrays;
+import java.util.List;
+
+/**
+*	The Autopilot is a GameEngine.Pilot which steers the snake by itself, for the attract mode demos and for playing the maps to test them.
+*	It searches the cells of the board (which wrap around the edges like the snake) with a breadth first search from the snake head, and steers along the shortest safe path to the best energy item; the item worth the most points for the distance to it.
+*	The walls are obstacles (unless they aren't active and the snake is overcharged, as it then eats them), and so is the snake body; although a body part is only a obstacle until the tail will have moved off it, so therefore the snake can follow its own tail.
+*	If no item can be reached, it steers towards the most open space to stay alive until one can be.
+*	Only the items which are shown are targeted, the same as a player can see; a target which stops being shown is dropped.
+*	The search reuses the same arrays every tick (sized from the grid of the game), and is stopped if it runs over the time budget; in which case the snake keeps its direction, and the search is tried again on the next tick.
+*	The path is only planned again when the board has changed; such as the walls changing, the target item being collected or expiring, or the path becoming blocked.
+**/
+
+public class Autopilot implements GameEngine.Pilot, Constants {
+		public static final long DEFAULT_BUDGET = 1000000L; // The default time budget for each tick in nanoseconds (1ms).
+		public static final long NO_BUDGET = Long.MAX_VALUE; // The search is never stopped, so therefore the steering only depends on the game (for simulations which need to be repeatable).
+		private static final int CHECK_INTERVAL = 256; // The amount of cells searched between each check of the time.
+		private static final int UNREACHED = -1;
+		private static final SnakeGame.Compass[] DIRECTIONS = SnakeGame.Compass.values();
+		private static final int[] BEARING_X = {ZERO, ZERO, ONE, -ONE}; // The same bearings as the snake, for each Compass direction.
+		private static final int[] BEARING_Y = {-ONE, ONE, ZERO, ZERO};
+
+		private long budget; // The time budget in nanoseconds.
+		private int columns; // The board is searched in snake cells, the size of the grid of the game.
+		private int rows;
+
+		// The search buffers, which are only allocated again if the size of the board changes.
+		private boolean[] blocked; // Whether the cell lies on a wall.
+		private int[] freeAfter; // The amount of moves until the snake body has moved off the cell.
+		private int[] distance; // The amount of moves to reach the cell.
+		private int[] firstMove; // The direction of the first move on the path to the cell.
+		private int[] previous; // The cell before the cell on the path.
+		private int[] queue;
+		private int[] space = new int[DIRECTIONS.length]; // The amount of cells reached after each first move.
+
+		// The planned path, as the directions of each move.
+		private int[] plan;
+		private int planLength;
+		private int planIndex;
+		private Energy target; // The item the plan leads to.
+		private int wallVersion = -ONE; // The wall version of the game when the walls were last read.
+		private boolean wallsBlocked; // Whether the walls were obstacles when they were last read.
+
+		public Autopilot() {
+				this(DEFAULT_BUDGET);
+		}
+
+		public Autopilot(long budget) {
+				this.budget = budget;
+		}
+
+		// Picks the direction for the next move.
+		public SnakeGame.Compass steer(SnakeGame game) {
+				long start = System.nanoTime();
+				Snake snake = game.getSnakeBody();
+				if (snake.size() == ZERO) return null;
+				this.setSize(game.getGrid());
+				this.readWalls(game);
+				this.readBody(snake);
+				int head = this.cell(snake.getX(ZERO), snake.getY(ZERO));
+				if (this.isPlanValid(game, head)) return DIRECTIONS[this.plan[this.planIndex++]];
+				this.planLength = ZERO;
+				this.target = null;
+				if (!this.search(head, start)) return null; // Over the budget without a plan, so therefore the snake keeps its direction.
+				Energy best = null;
+				double bestValue = ZERO;
+				synchronized (game.getVisibleItems()) {
+					for (Energy item : game.getVisibleItems()) {
+						int steps = this.stepsTo(item);
+						double value = (steps != UNREACHED) ? item.getPoints() / (double)(steps + ONE) : ZERO;
+						if (value > bestValue) {
+							best = item;
+							bestValue = value;
+						}
+					}
+				}
+				if (best != null) {
+					this.planTo(this.nearestCell(best), head);
+					this.target = best;
+					return DIRECTIONS[this.plan[this.planIndex++]];
+				}
+				return this.openest(head, game.getDirection());
+		}
+
+		// Allocates the search buffers for the size of the grid received, unless they are already that size.
+		private void setSize(OccupancyGrid grid) {
+				int columns = grid.getWidth() / SNAKE_SIZE;
+				int rows = grid.getHeight() / SNAKE_SIZE;
+				if (columns == this.columns && rows == this.rows) return;
+				this.columns = columns;
+				this.rows = rows;
+				int cells = columns * rows;
+				this.blocked = new boolean[cells];
+				this.freeAfter = new int[cells];
+				this.distance = new int[cells];
+				this.firstMove = new int[cells];
+				this.previous = new int[cells];
+				this.queue = new int[cells];
+				this.plan = new int[cells];
+				this.planLength = ZERO;
+				this.target = null;
+				this.wallVersion = -ONE; // The walls are read again into the new buffers.
+		}
+
+		// Reads which cells lie on the walls, only when the walls have changed or have become active or not active.
+		private void readWalls(SnakeGame game) {
+				boolean wallsBlocked = game.isWallActive() || game.getEnergy() <= MAX_ENERGY;
+				if (game.getWallVersion() == this.wallVersion && wallsBlocked == this.wallsBlocked) return;
+				this.wallVersion = game.getWallVersion();
+				this.wallsBlocked = wallsBlocked;
+				this.planLength = ZERO; // The plan may cross the walls which have changed.
+				Arrays.fill(this.blocked, false);
+				if (!wallsBlocked) return;
+				List<Wall> walls = game.getWall();
+				synchronized (walls) {
+					for (Wall wall : walls) { // Each wall block covers a square of snake cells.
+						for (int y = wall.y; y < wall.y + GRID_SIZE; y += SNAKE_SIZE) {
+							for (int x = wall.x; x < wall.x + GRID_SIZE; x += SNAKE_SIZE) {
+								if (x >= ZERO && y >= ZERO && x < this.columns * SNAKE_SIZE && y < this.rows * SNAKE_SIZE) this.blocked[this.cell(x, y)] = true;
+							}
+						}
+					}
+				}
+		}
+
+		// Reads how many moves until each body part has moved off its cell; the tail moves off first.
+		private void readBody(Snake snake) {
+				Arrays.fill(this.freeAfter, ZERO);
+				int size = snake.size();
+				int growing = Math.max(INITAL_LENGTH - size, ZERO); // The tail doesn't move until the snake reaches its initial length.
+				for (int i = 0; i < size; i++) {
+					int cell = this.cell(snake.getX(i), snake.getY(i));
+					this.freeAfter[cell] = Math.max(this.freeAfter[cell], size - i + growing);
+				}
+		}
+
+		// Returns a boolean depicting whether the snake can keep following the planned path.
+		private boolean isPlanValid(SnakeGame game, int head) {
+				if (this.planIndex >= this.planLength || this.target == null || !this.target.isAvailable()) return false;
+				synchronized (game.getVisibleItems()) {
+					if (!game.getVisibleItems().contains(this.target)) return false; // The target has been collected, or isn't shown any longer.
+				}
+				// Checks the rest of the path is still safe, as the body moves along with the snake.
+				for (int i = this.planIndex, cell = head, moves = ONE; i < this.planLength; i++, moves++) {
+					cell = this.neighbour(cell, this.plan[i]);
+					if (this.blocked[cell] || this.freeAfter[cell] > moves) return false;
+				}
+				return true;
+		}
+
+		// Searches the board from the head, finding the distance to each cell the snake can safely reach. Returns false if it runs over the budget since the start time received.
+		private boolean search(int head, long start) {
+				Arrays.fill(this.distance, UNREACHED);
+				int first = 0, last = 0;
+				this.distance[head] = ZERO;
+				this.queue[last++] = head;
+				while (first < last) {
+					if ((first % CHECK_INTERVAL) == (CHECK_INTERVAL - ONE) && (System.nanoTime() - start) > this.budget) return false;
+					int cell = this.queue[first++];
+					int moves = this.distance[cell] + ONE;
+					for (int direction = 0; direction < DIRECTIONS.length; direction++) {
+						int next = this.neighbour(cell, direction);
+						// The cell can be entered if it isn't a wall, and the body will have moved off it by the time the head gets there.
+						if (this.distance[next] != UNREACHED || this.blocked[next] || this.freeAfter[next] > moves) continue;
+						this.distance[next] = moves;
+						this.previous[next] = cell;
+						this.firstMove[next] = (cell == head) ? direction : this.firstMove[cell];
+						this.queue[last++] = next;
+					}
+				}
+				return true;
+		}
+
+		// Gets the amount of moves to the nearest cell of the item's block, or UNREACHED.
+		private int stepsTo(Energy item) {
+				int cell = this.nearestCell(item);
+				return (cell != UNREACHED) ? this.distance[cell] : UNREACHED;
+		}
+
+		// Gets the nearest reachable cell of the item's block (any body part touching the block collects the item), or UNREACHED.
+		private int nearestCell(Energy item) {
+				int nearest = UNREACHED;
+				for (int y = item.y; y < item.y + GRID_SIZE; y += SNAKE_SIZE) {
+					for (int x = item.x; x < item.x + GRID_SIZE; x += SNAKE_SIZE) {
+						if (x < ZERO || y < ZERO || x >= this.columns * SNAKE_SIZE || y >= this.rows * SNAKE_SIZE) continue;
+						int cell = this.cell(x, y);
+						if (this.distance[cell] > ZERO && (nearest == UNREACHED || this.distance[cell] < this.distance[nearest])) nearest = cell;
+					}
+				}
+				return nearest;
+		}
+
+		// Plans the path from the head to the cell received, by walking back along the previous cells.
+		private void planTo(int cell, int head) {
+				this.planLength = this.distance[cell];
+				for (int i = this.planLength - ONE; i >= 0; i--) {
+					int from = this.previous[cell];
+					this.plan[i] = this.directionBetween(from, cell);
+					cell = from;
+				}
+				this.planIndex = ZERO;
+		}
+
+		// Picks the safe direction from which the most cells can be reached, so therefore the snake doesn't trap itself.
+		private SnakeGame.Compass openest(int head, SnakeGame.Compass current) {
+				Arrays.fill(this.space, ZERO);
+				for (int cell = 0; cell < this.distance.length; cell++) {
+					if (this.distance[cell] > ZERO) this.space[this.firstMove[cell]]++;
+				}
+				int best = (current != null) ? current.ordinal() : ZERO;
+				for (int direction = 0; direction < DIRECTIONS.length; direction++) {
+					if (this.space[direction] > this.space[best]) best = direction;
+				}
+				return DIRECTIONS[best];
+		}
+
+		// Gets the neighbouring cell in the direction received, wrapping around the edges of the board.
+		private int neighbour(int cell, int direction) {
+				int x = (cell % this.columns) + BEARING_X[direction];
+				int y = (cell / this.columns) + BEARING_Y[direction];
+				x = (x < ZERO) ? x + this.columns : (x >= this.columns) ? x - this.columns : x;
+				y = (y < ZERO) ? y + this.rows : (y >= this.rows) ? y - this.rows : y;
+				return (y * this.columns) + x;
+		}
+
+		private int directionBetween(int from, int to) {
+				for (int direction = 0; direction < DIRECTIONS.length; direction++) {
+					if (this.neighbour(from, direction) == to) return direction;
+				}
+				return ZERO;
+		}
+
+		private int cell(int x, int y) {
+				return ((y / SNAKE_SIZE) * this.columns) + (x / SNAKE_SIZE);
+		}
+}
@@ -0,0 +1,282 @@
+import java.nio.file.Paths;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+*	The BatchRunner plays a large number of games without a display, across all of the processors, and prints the distributions of their results; for tuning the game rules and testing the maps.
+*	The games are either steered by a bot (the Autopilot, or random key presses), or are the games of the replay files received.
+*	The games are shared out with a fork/join pool, each task splits its range of games in half until it is small enough to play; and each of the games has its own engine, random and bot, so therefore nothing changes which is shared between the games.
+*	The seed of each game comes from splitting the random of the batch along with the tasks, so therefore the same batch seed plays the same games whatever the number of processors.
+*	The results of each task are kept in its own BatchResults, which are added together as the tasks are joined.
+*
+*	Usage: java BatchRunner [-games count] [-seed seed] [-difficulty SLUG|WORM|SNAKE] [-bot autopilot|random] [-threads count]
+*	   or: java BatchRunner -replays file...
+**/
+
+public class BatchRunner implements Constants {
+		private static final int TASK_SIZE = 64; // The amount of games which a task plays itself, rather than splitting.
+		private static final int MAX_TICKS = 500000; // The most ticks of a game, in case the bot never dies.
+
+		public enum Bot { AUTOPILOT, RANDOM };
+
+		/**
+		*	The BatchResults counts the results of a number of games, the distributions are counted in buckets.
+		**/
+		public static class BatchResults {
+				public enum Ending { SNAKE_BODY, WALL, OTHER_SNAKE, NO_ENERGY, TIMED_OUT }; // How the game ended, the first being the CollisionException.CollideType values.
+				private static final int BUCKETS = 32;
+
+				private long games;
+				private long totalScore;
+				private long totalLevel;
+				private long totalTime;
+				private int bestScore;
+				private long[] scores = new long[BUCKETS]; // The games with a score in each power of two.
+				private long[] levels = new long[BUCKETS]; // The games which ended on each level (the last bucket holding the higher levels).
+				private long[] times = new long[BUCKETS]; // The games which lasted a game time in each power of two seconds.
+				private long[] endings = new long[Ending.values().length];
+				private long mismatches; // The replays which didn't end with the score they recorded.
+
+				private void add(SnakeGame game, Ending ending) {
+						this.games++;
+						this.totalScore += game.getTotalScore();
+						this.totalLevel += game.getGameLevel();
+						this.totalTime += game.getTime();
+						this.bestScore = Math.max(this.bestScore, game.getTotalScore());
+						this.scores[bucket(game.getTotalScore())]++;
+						this.levels[Math.min(game.getGameLevel(), BUCKETS - 1)]++;
+						this.times[bucket(game.getTime())]++;
+						this.endings[ending.ordinal()]++;
+				}
+
+				private void add(BatchResults results) {
+						this.games += results.games;
+						this.totalScore += results.totalScore;
+						this.totalLevel += results.totalLevel;
+						this.totalTime += results.totalTime;
+						this.bestScore = Math.max(this.bestScore, results.bestScore);
+						for (int i = 0; i < BUCKETS; i++) {
+							this.scores[i] += results.scores[i];
+							this.levels[i] += results.levels[i];
+							this.times[i] += results.times[i];
+						}
+						for (int i = 0; i < this.endings.length; i++) this.endings[i] += results.endings[i];
+						this.mismatches += results.mismatches;
+				}
+
+				// Gets the bucket of the value, which is the number of bits it has (zero being in the first bucket).
+				private static int bucket(int value) {
+						return Math.min(32 - Integer.numberOfLeadingZeros(Math.max(value, ZERO)), BUCKETS - 1);
+				}
+
+				public long getGames() {
+						return this.games;
+				}
+
+				public double getAverageScore() {
+						return (this.games > 0) ? (double)this.totalScore / this.games : ZERO;
+				}
+
+				public long getEndings(Ending ending) {
+						return this.endings[ending.ordinal()];
+				}
+
+				public long getMismatches() {
+						return this.mismatches;
+				}
+
+				public void print() {
+						if (this.games == 0) {
+							System.out.println("No Games Played");
+							return;
+						}
+						System.out.println("Games:          " + this.games);
+						System.out.printf("Average Score:  %.1f (Best %d)%n", this.getAverageScore(), this.bestScore);
+						System.out.printf("Average Level:  %.2f%n", (double)this.totalLevel / this.games);
+						System.out.printf("Average Time:   %.1fs%n", (double)this.totalTime / this.games);
+						System.out.println("Endings:");
+						for (Ending ending : Ending.values()) System.out.printf("  %-12s %10d %6.2f%%%n", ending, this.endings[ending.ordinal()], percent(this.endings[ending.ordinal()]));
+						System.out.println("Scores:");
+						printBuckets(this.scores, true);
+						System.out.println("Levels:");
+						printBuckets(this.levels, false);
+						System.out.println("Times (seconds):");
+						printBuckets(this.times, true);
+						if (this.mismatches > 0) System.out.println("Replays Which Didn't Match: " + this.mismatches);
+				}
+
+				private void printBuckets(long[] buckets, boolean powers) {
+						for (int i = 0; i < buckets.length; i++) {
+							if (buckets[i] == 0) continue;
+							String range = (!powers) ? ((i < BUCKETS - 1) ? String.valueOf(i) : i + "+") : (i == 0) ? "0" : (1 << (i - 1)) + "-" + ((1 << i) - 1);
+							System.out.printf("  %-12s %10d %6.2f%%%n", range, buckets[i], percent(buckets[i]));
+						}
+				}
+
+				private double percent(long count) {
+						return (count * 100.0) / this.games;
+				}
+		}
+
+		// Plays a game from the seed received with the bot, and adds its result to the results.
+		private static void play(long seed, SnakeGame.DifficultyLevel difficulty, Bot bot, BatchResults results) {
+				SnakeGame game = new SnakeGame(bot.toString(), difficulty, seed);
+				GameEngine engine = new GameEngine(game);
+				EndingListener ending = new EndingListener();
+				engine.setListener(ending);
+				if (bot == Bot.AUTOPILOT) engine.setPilot(new Autopilot(Autopilot.NO_BUDGET)); // Without a time budget, so therefore the games are the same however busy the processors are.
+				GameRandom keys = new GameRandom(seed).split(); // The random bot's key presses, which are separate from the game's random decisions.
+				engine.start();
+				int speed = ZERO;
+				for (int tick = 0; game.isRunning() && tick < MAX_TICKS; tick++) { // The same steps as the game loop.
+					engine.step(null, speed);
+					speed = game.getSpeed();
+					if (bot == Bot.RANDOM && keys.nextInt(4) == ZERO) engine.step(SnakeGame.Compass.values()[keys.nextInt(4)], ZERO);
+				}
+				results.add(game, ending.get(game));
+		}
+
+		// Plays a game from the replay file received, and adds its result to the results.
+		private static void playReplay(String filename, BatchResults results) {
+				try {
+					Replay replay = Replay.read(Paths.get(filename));
+					EndingListener ending = new EndingListener();
+					SnakeGame game = replay.play(ending, ZERO);
+					if (!game.isGameOver() || game.getTotalScore() != replay.getScore()) {
+						results.mismatches++;
+						System.out.println(filename + " Doesn't Match, Recorded " + replay.getScore() + " Replayed " + game.getTotalScore());
+					}
+					results.add(game, ending.get(game));
+				} catch (Exception ex) {
+					System.out.println("Can't Replay " + filename + " " + ex.getMessage());
+				}
+		}
+
+		// Listens to a game for the collision which ended it.
+		private static class EndingListener implements GameEngine.Listener {
+				private CollisionException.CollideType collision;
+
+				public void itemCollected(Energy item) {}
+
+				public void collided(CollisionException ex) {
+						this.collision = ex.getCollideType();
+				}
+
+				public void gameOver() {}
+
+				private BatchResults.Ending get(SnakeGame game) {
+						if (!game.isGameOver()) return BatchResults.Ending.TIMED_OUT;
+						return (this.collision != null) ? BatchResults.Ending.values()[this.collision.ordinal()] : BatchResults.Ending.NO_ENERGY;
+				}
+		}
+
+		// Plays a range of the games, splitting it in half for other threads to take until it is small enough.
+		private static class GamesTask extends RecursiveTask<BatchResults> {
+				private static final long serialVersionUID = 1L;
+				private long from, to; // The range of games.
+				private GameRandom random; // The random which the seeds of the games in the range come from.
+				private SnakeGame.DifficultyLevel difficulty;
+				private Bot bot;
+
+				private GamesTask(long from, long to, GameRandom random, SnakeGame.DifficultyLevel difficulty, Bot bot) {
+						this.from = from;
+						this.to = to;
+						this.random = random;
+						this.difficulty = difficulty;
+						this.bot = bot;
+				}
+
+				protected BatchResults compute() {
+						if ((this.to - this.from) <= TASK_SIZE) {
+							BatchResults results = new BatchResults();
+							for (long i = this.from; i < this.to; i++) play(this.random.nextLong(), this.difficulty, this.bot, results);
+							return results;
+						}
+						long middle = (this.from + this.to) >>> 1;
+						GamesTask right = new GamesTask(middle, this.to, this.random.split(), this.difficulty, this.bot);
+						right.fork();
+						BatchResults results = new GamesTask(this.from, middle, this.random, this.difficulty, this.bot).compute();
+						results.add(right.join());
+						return results;
+				}
+		}
+
+		// Plays the replay files in a range of the array, splitting it in the same way.
+		private static class ReplaysTask extends RecursiveTask<BatchResults> {
+				private static final long serialVersionUID = 1L;
+				private String[] filenames;
+				private int from, to;
+
+				private ReplaysTask(String[] filenames, int from, int to) {
+						this.filenames = filenames;
+						this.from = from;
+						this.to = to;
+				}
+
+				protected BatchResults compute() {
+						if ((this.to - this.from) <= TASK_SIZE) {
+							BatchResults results = new BatchResults();
+							for (int i = this.from; i < this.to; i++) playReplay(this.filenames[i], results);
+							return results;
+						}
+						int middle = (this.from + this.to) >>> 1;
+						ReplaysTask right = new ReplaysTask(this.filenames, middle, this.to);
+						right.fork();
+						BatchResults results = new ReplaysTask(this.filenames, this.from, middle).compute();
+						results.add(right.join());
+						return results;
+				}
+		}
+
+		// Plays the amount of games received from the batch seed, on the pool received.
+		public static BatchResults run(ForkJoinPool pool, long games, long seed, SnakeGame.DifficultyLevel difficulty, Bot bot) {
+				MapRegistry.load();
+				return pool.invoke(new GamesTask(0, games, new GameRandom(seed), difficulty, bot));
+		}
+
+		// Plays the replay files received, on the pool received.
+		public static BatchResults replay(ForkJoinPool pool, String[] filenames) {
+				MapRegistry.load();
+				return pool.invoke(new ReplaysTask(filenames, 0, filenames.length));
+		}
+
+		public static void main(String[] args) {
+				long games = 10000;
+				long seed = GameRandom.newSeed();
+				SnakeGame.DifficultyLevel difficulty = SnakeGame.DifficultyLevel.SLUG;
+				Bot bot = Bot.AUTOPILOT;
+				int threads = Runtime.getRuntime().availableProcessors();
+				String[] replays = null;
+				try {
+					for (int i = 0; i < args.length; i++) {
+						if (args[i].equals("-games")) games = Long.parseLong(args[++i]);
+						else if (args[i].equals("-seed")) seed = Long.parseLong(args[++i]);
+						else if (args[i].equals("-difficulty")) difficulty = SnakeGame.DifficultyLevel.valueOf(args[++i].toUpperCase());
+						else if (args[i].equals("-bot")) bot = Bot.valueOf(args[++i].toUpperCase());
+						else if (args[i].equals("-threads")) threads = Integer.parseInt(args[++i]);
+						else if (args[i].equals("-replays")) {
+							replays = new String[args.length - i - 1];
+							System.arraycopy(args, i + 1, replays, 0, replays.length);
+							break;
+						} else throw new IllegalArgumentException(args[i]);
+					}
+				} catch (RuntimeException ex) {
+					System.out.println("Usage: java BatchRunner [-games count] [-seed seed] [-difficulty SLUG|WORM|SNAKE] [-bot autopilot|random] [-threads count]");
+					System.out.println("   or: java BatchRunner -replays file...");
+					return;
+				}
+				ForkJoinPool pool = new ForkJoinPool(threads);
+				long start = System.nanoTime();
+				BatchResults results;
+				if (replays != null) {
+					results = replay(pool, replays);
+				} else {
+					System.out.println("Playing " + games + " " + difficulty + " Games With The " + bot + " Bot, Seed " + seed + ", On " + threads + " Threads");
+					results = run(pool, games, seed, difficulty, bot);
+				}
+				pool.shutdown();
+				results.print();
+				double seconds = (System.nanoTime() - start) / 1e9;
+				System.out.printf("Played In %.2fs (%.0f Games Per Second)%n", seconds, results.getGames() / seconds);
+		}
+}
@@ -0,0 +1,443 @@
+import java.io.StreamCorruptedException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+*	The BoardDelta is the protocol which the GameServer uses to send the board to its clients; each tick of a game is sent as a frame of only the changes since the previous frame.
+*	The Encoder is kept by the server for each client, it remembers the board as the client knows it, and compares the game with it after each tick to find the changes.
+*	The Board is kept by the client, it is the board built up from the frames, which the client renders.
+*	Moving the snake is usually a new head and a one cell tail change; the whole body is only sent when the client doesn't know the snake yet (such as when the game starts).
+*	The items are sent when they appear and when they go (whether collected or expired), and the walls only when the map changes, a wall is eaten, or the wall status flips.
+*	The statistics of the HUD are sent with a mask of which of them have changed.
+*
+*	Frame layout: the length of the rest of the frame (varint), the milliseconds of game time of the tick (varint), and the events.
+*	Each event is a op byte followed by its values; the snake cells are a column and row byte, and the walls and items are the varint index of their block.
+**/
+
+public class BoardDelta implements Constants {
+		public static final int COLUMNS = PANEL_WIDTH / SNAKE_SIZE; // The board is sent in snake cells.
+		public static final int ROWS = PANEL_HEIGHT / SNAKE_SIZE;
+		public static final int BLOCK_COLUMNS = PANEL_WIDTH / GRID_SIZE; // The walls and items are sent in blocks.
+		public static final int BLOCK_ROWS = PANEL_HEIGHT / GRID_SIZE;
+		public static final int STATS = 5; // The energy, points, game time, level and total score.
+
+		private static final int BODY = 0; // The whole snake body; the amount of cells, followed by the cells from the head to the tail.
+		private static final int HEAD = 1; // A new head cell.
+		private static final int TAIL = 2; // The amount of cells removed from the tail.
+		private static final int CUT = 3; // The amount of cells kept from the head, the rest being removed apart from the tail (when the snake is shrunk).
+		private static final int WALL_ADDED = 4; // The block of a wall which was added.
+		private static final int WALL_REMOVED = 5; // The block of a wall which was removed.
+		private static final int WALL_STATUS = 6; // The Wall.Status ordinal position.
+		private static final int ITEM_ADDED = 7; // The id of a item which appeared, its block and its Sprite ordinal position.
+		private static final int ITEM_REMOVED = 8; // The id of a item which was collected or expired.
+		private static final int STATISTICS = 9; // The mask of the statistics which changed, followed by each of them.
+		private static final int MODE = 10; // The GameMode ordinal position.
+		private static final int MAX_HEADS = 4; // The most new heads which are looked for in a frame, any more and the whole body is sent.
+
+		/**
+		*	The Cells are the snake body as the client knows it, stored as a circular buffer of packed cells in the same way as the Snake.
+		**/
+		public static class Cells {
+				private int[] cells = new int[64];
+				private int head;
+				private int size;
+
+				public int size() {
+						return this.size;
+				}
+
+				// Gets the packed cell (the column in the upper 16 bits, and the row in the lower 16 bits) at the index from the head.
+				public int get(int index) {
+						return this.cells[(this.head + index) & (this.cells.length - ONE)];
+				}
+
+				public int getColumn(int index) {
+						return this.get(index) >>> 16;
+				}
+
+				public int getRow(int index) {
+						return this.get(index) & 0xFFFF;
+				}
+
+				private void push(int cell) {
+						if (this.size == this.cells.length) {
+							int[] cells = new int[this.cells.length * 2];
+							for (int i = 0; i < this.size; i++) cells[i] = this.get(i);
+							this.cells = cells;
+							this.head = ZERO;
+						}
+						this.head = (this.head - ONE) & (this.cells.length - ONE);
+						this.cells[this.head] = cell;
+						this.size++;
+				}
+
+				private void removeTail(int count) {
+						this.size = Math.max(this.size - count, ZERO);
+				}
+
+				// Keeps the amount of cells received from the head, followed by the tail.
+				private void cut(int keep) {
+						if (keep >= this.size - ONE) return;
+						this.cells[(this.head + keep) & (this.cells.length - ONE)] = this.get(this.size - ONE);
+						this.size = keep + ONE;
+				}
+
+				private void clear() {
+						this.size = ZERO;
+				}
+		}
+
+		/**
+		*	The Encoder finds the changes to a game since the previous frame, and encodes them into the next frame.
+		**/
+		public static class Encoder {
+				private SnakeGame game;
+				private ByteBuffer events = ByteBuffer.allocate(256);
+				private ByteBuffer frame = ByteBuffer.allocate(256);
+
+				// The board as the client knows it.
+				private SnakeGame.GameMode mode;
+				private Cells snake = new Cells();
+				private boolean[] walls = new boolean[BLOCK_COLUMNS * BLOCK_ROWS];
+				private boolean[] currentWalls = new boolean[BLOCK_COLUMNS * BLOCK_ROWS];
+				private int wallVersion = -ONE;
+				private Wall.Status wallStatus;
+				private Map<Energy, Integer> items = new IdentityHashMap<Energy, Integer>(); // The id of each item.
+				private Set<Energy> currentItems = Collections.newSetFromMap(new IdentityHashMap<Energy, Boolean>());
+				private int nextId;
+				private int[] stats = new int[STATS];
+				private int[] currentStats = new int[STATS];
+
+				public Encoder(SnakeGame game) {
+						this.game = game;
+						for (int i = 0; i < STATS; i++) this.stats[i] = -ONE; // None of the statistics are known yet.
+				}
+
+				// Encodes the changes since the previous frame, into a frame for a tick of the milliseconds received. The frame is reused for the next call.
+				public ByteBuffer encode(int millis) {
+						this.events.clear();
+						this.encodeMode();
+						this.encodeWalls();
+						this.encodeItems();
+						this.encodeSnake();
+						this.encodeStats();
+						this.events.flip();
+						this.frame.clear();
+						this.frame = ensure(this.frame, this.events.remaining() + 15);
+						writeVarint(this.frame, varintLength(millis) + this.events.remaining());
+						writeVarint(this.frame, millis);
+						this.frame.put(this.events);
+						this.frame.flip();
+						return this.frame;
+				}
+
+				private void encodeMode() {
+						if (this.game.getGameMode() == this.mode) return;
+						this.mode = this.game.getGameMode();
+						this.event(MODE).put((byte)this.mode.ordinal());
+				}
+
+				private void encodeWalls() {
+						if (this.game.getWallVersion() != this.wallVersion) {
+							this.wallVersion = this.game.getWallVersion();
+							Arrays.fill(this.currentWalls, false);
+							synchronized (this.game.getWall()) {
+								for (Wall wall : this.game.getWall()) {
+									int block = block(wall.x, wall.y);
+									if (block >= ZERO) this.currentWalls[block] = true; // The walls outside of the board aren't sent.
+								}
+							}
+							for (int block = 0; block < this.walls.length; block++) {
+								if (this.walls[block] != this.currentWalls[block]) {
+									writeVarint(this.event((this.currentWalls[block]) ? WALL_ADDED : WALL_REMOVED), block);
+									this.walls[block] = this.currentWalls[block];
+								}
+							}
+						}
+						if (this.game.getWallStatus() != this.wallStatus) {
+							this.wallStatus = this.game.getWallStatus();
+							this.event(WALL_STATUS).put((byte)this.wallStatus.ordinal());
+						}
+				}
+
+				// The items are only compared whilst the game is being played, as they don't change otherwise.
+				private void encodeItems() {
+						if (this.game.getGameMode() != SnakeGame.GameMode.PLAYING) return;
+						this.currentItems.clear();
+						synchronized (this.game.getVisibleItems()) {
+							this.currentItems.addAll(this.game.getVisibleItems());
+						}
+						for (Iterator<Map.Entry<Energy, Integer>> it = this.items.entrySet().iterator(); it.hasNext();) {
+							Map.Entry<Energy, Integer> entry = it.next();
+							if (!this.currentItems.contains(entry.getKey())) {
+								writeVarint(this.event(ITEM_REMOVED), entry.getValue());
+								it.remove();
+							}
+						}
+						for (Energy item : this.currentItems) {
+							if (!this.items.containsKey(item)) {
+								int id = this.nextId++;
+								this.items.put(item, id);
+								writeVarint(this.event(ITEM_ADDED), id);
+								writeVarint(this.events, block(item.x, item.y));
+								this.events.put((byte)item.getSprite().ordinal());
+							}
+						}
+				}
+
+				// Finds how the snake has changed from the body the client knows; usually new heads and a shorter tail.
+				private void encodeSnake() {
+						Snake snake = this.game.getSnakeBody();
+						int size = snake.size();
+						if (size == ZERO) return;
+						int heads = -ONE; // The amount of new heads, which is where the known head is now.
+						if (this.snake.size() > ZERO) {
+							for (int i = 0; i <= MAX_HEADS && i < size; i++) {
+								if (cell(snake, i) == this.snake.get(ZERO)) {
+									heads = i;
+									break;
+								}
+							}
+						}
+						if (heads >= ZERO) {
+							int rest = size - heads; // The amount of the known body which remains.
+							if (rest <= this.snake.size() && this.matches(snake, heads, ZERO, rest)) {
+								this.addHeads(snake, heads);
+								if (this.snake.size() > size) {
+									writeVarint(this.event(TAIL), this.snake.size() - size);
+									this.snake.removeTail(this.snake.size() - size);
+								}
+								return;
+							}
+							// The snake was shrunk, which keeps the front of the body and the tail.
+							if (rest >= 2 && rest <= this.snake.size() && this.matches(snake, heads, ZERO, rest - ONE) && cell(snake, size - ONE) == this.snake.get(this.snake.size() - ONE)) {
+								this.addHeads(snake, heads);
+								writeVarint(this.event(CUT), size - ONE);
+								this.snake.cut(size - ONE);
+								return;
+							}
+						}
+						// The snake doesn't follow on from the known body (such as when the game starts), so therefore the whole body is sent.
+						this.events = ensure(this.events, (size * 2) + 10);
+						writeVarint(this.event(BODY), size);
+						this.snake.clear();
+						for (int i = size - ONE; i >= 0; i--) this.snake.push(cell(snake, i));
+						for (int i = 0; i < size; i++) this.events.putShort((short)(((snake.getX(i) / SNAKE_SIZE) << 8) | (snake.getY(i) / SNAKE_SIZE)));
+				}
+
+				// Returns a boolean depicting whether the snake cells from the index received match the known cells from the index received, for the amount received.
+				private boolean matches(Snake snake, int from, int knownFrom, int count) {
+						for (int i = 0; i < count; i++) {
+							if (cell(snake, from + i) != this.snake.get(knownFrom + i)) return false;
+						}
+						return true;
+				}
+
+				// Sends the amount of new heads received, from the last to the first.
+				private void addHeads(Snake snake, int heads) {
+						for (int i = heads - ONE; i >= 0; i--) {
+							this.event(HEAD).put((byte)(snake.getX(i) / SNAKE_SIZE)).put((byte)(snake.getY(i) / SNAKE_SIZE));
+							this.snake.push(cell(snake, i));
+						}
+				}
+
+				private void encodeStats() {
+						this.currentStats[0] = this.game.getEnergy();
+						this.currentStats[1] = this.game.getTotalPoints();
+						this.currentStats[2] = this.game.getTime();
+						this.currentStats[3] = this.game.getGameLevel();
+						this.currentStats[4] = this.game.getTotalScore();
+						int mask = 0;
+						for (int i = 0; i < STATS; i++) {
+							if (this.currentStats[i] != this.stats[i]) mask |= (ONE << i);
+						}
+						if (mask == 0) return;
+						this.event(STATISTICS).put((byte)mask);
+						for (int i = 0; i < STATS; i++) {
+							if ((mask & (ONE << i)) != 0) writeVarint(this.events, Math.max(this.currentStats[i], ZERO));
+							this.stats[i] = this.currentStats[i];
+						}
+				}
+
+				// Starts a event with the op received, making sure there is room for its values (the statistics being the longest).
+				private ByteBuffer event(int op) {
+						this.events = ensure(this.events, 32);
+						return this.events.put((byte)op);
+				}
+		}
+
+		/**
+		*	The Board is the board built up by a client from the frames it receives. It isn't synchronized, the client locks it whilst applying a frame or rendering it.
+		**/
+		public static class Board {
+				private Cells snake = new Cells();
+				private boolean[] walls = new boolean[BLOCK_COLUMNS * BLOCK_ROWS];
+				private Wall.Status wallStatus = Wall.Status.WALL_ACTIVE;
+				private Map<Integer, int[]> items = new LinkedHashMap<Integer, int[]>(); // The block and Sprite ordinal position of each item, by id.
+				private int[] stats = new int[STATS];
+				private SnakeGame.GameMode mode;
+
+				// Applies the events of the frame received (without its length), and returns the milliseconds of the tick.
+				public int apply(ByteBuffer frame) throws StreamCorruptedException {
+						try {
+							int millis = (int)readVarint(frame);
+							while (frame.hasRemaining()) {
+								int op = frame.get();
+								switch (op) {
+									case BODY:
+										int size = (int)readVarint(frame);
+										this.snake.clear();
+										int[] cells = new int[size];
+										for (int i = 0; i < size; i++) cells[i] = ((frame.get() & 0xFF) << 16) | (frame.get() & 0xFF);
+										for (int i = size - ONE; i >= 0; i--) this.snake.push(cells[i]);
+										break;
+									case HEAD:
+										this.snake.push(((frame.get() & 0xFF) << 16) | (frame.get() & 0xFF));
+										break;
+									case TAIL:
+										this.snake.removeTail((int)readVarint(frame));
+										break;
+									case CUT:
+										this.snake.cut((int)readVarint(frame));
+										break;
+									case WALL_ADDED:
+									case WALL_REMOVED:
+										this.walls[(int)readVarint(frame)] = (op == WALL_ADDED);
+										break;
+									case WALL_STATUS:
+										this.wallStatus = Wall.Status.values()[frame.get()];
+										break;
+									case ITEM_ADDED:
+										int id = (int)readVarint(frame);
+										int block = (int)readVarint(frame);
+										this.items.put(id, new int[] { block, frame.get() });
+										break;
+									case ITEM_REMOVED:
+										this.items.remove((int)readVarint(frame));
+										break;
+									case STATISTICS:
+										int mask = frame.get();
+										for (int i = 0; i < STATS; i++) {
+											if ((mask & (ONE << i)) != 0) this.stats[i] = (int)readVarint(frame);
+										}
+										break;
+									case MODE:
+										this.mode = SnakeGame.GameMode.values()[frame.get()];
+										break;
+									default:
+										throw new StreamCorruptedException("Unknown Event " + op);
+								}
+							}
+							return millis;
+						} catch (BufferUnderflowException ex) {
+							throw new StreamCorruptedException("Frame Is Incomplete");
+						} catch (ArrayIndexOutOfBoundsException ex) {
+							throw new StreamCorruptedException("Frame Is Damaged");
+						}
+				}
+
+				public Cells getSnake() {
+						return this.snake;
+				}
+
+				public boolean isWall(int block) {
+						return this.walls[block];
+				}
+
+				public Wall.Status getWallStatus() {
+						return this.wallStatus;
+				}
+
+				// Gets the items, each being its block and its Sprite ordinal position.
+				public Iterable<int[]> getItems() {
+						return this.items.values();
+				}
+
+				public int getEnergy() {
+						return this.stats[0];
+				}
+
+				public int getPoints() {
+						return this.stats[1];
+				}
+
+				public int getTime() {
+						return this.stats[2];
+				}
+
+				public int getGameLevel() {
+						return this.stats[3];
+				}
+
+				public int getTotalScore() {
+						return this.stats[4];
+				}
+
+				// Gets the game mode, or null if it isn't known yet.
+				public SnakeGame.GameMode getGameMode() {
+						return this.mode;
+				}
+		}
+
+		// Gets the packed cell of the snake body part at the index received.
+		private static int cell(Snake snake, int index) {
+				return ((snake.getX(index) / SNAKE_SIZE) << 16) | (snake.getY(index) / SNAKE_SIZE);
+		}
+
+		// Gets the block of the coordinates received, or -1 if they are off the board.
+		private static int block(int x, int y) {
+				if (x < ZERO || y < ZERO || x >= (BLOCK_COLUMNS * GRID_SIZE) || y >= (BLOCK_ROWS * GRID_SIZE)) return -ONE;
+				return ((y / GRID_SIZE) * BLOCK_COLUMNS) + (x / GRID_SIZE);
+		}
+
+		// Gets the x coordinate of the block received.
+		public static int blockX(int block) {
+				return (block % BLOCK_COLUMNS) * GRID_SIZE;
+		}
+
+		public static int blockY(int block) {
+				return (block / BLOCK_COLUMNS) * GRID_SIZE;
+		}
+
+		// Returns the buffer received if it has room for the amount of bytes received, otherwise a larger copy of it.
+		static ByteBuffer ensure(ByteBuffer buffer, int bytes) {
+				if (buffer.remaining() >= bytes) return buffer;
+				ByteBuffer larger = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + bytes));
+				buffer.flip();
+				return larger.put(buffer);
+		}
+
+		static void writeVarint(ByteBuffer buffer, long value) {
+				while ((value & ~0x7FL) != 0) {
+					buffer.put((byte)((value & 0x7F) | 0x80)); // The low 7 bits, with the high bit showing that more bytes follow.
+					value >>>= 7;
+				}
+				buffer.put((byte)value);
+		}
+
+		static long readVarint(ByteBuffer buffer) throws StreamCorruptedException {
+				long value = 0;
+				for (int shift = 0; shift < 64; shift += 7) {
+					byte b = buffer.get();
+					value |= (long)(b & 0x7F) << shift;
+					if (b >= 0) return value;
+				}
+				throw new StreamCorruptedException("Frame Is Damaged");
+		}
+
+		static int varintLength(long value) {
+				int length = ONE;
+				while ((value & ~0x7FL) != 0) {
+					value >>>= 7;
+					length++;
+				}
+				return length;
+		}
+}
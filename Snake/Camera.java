@@ -0,0 +1,78 @@
+/**
+*	The Camera is the viewport onto a world which is larger than the panel; it follows the head of the snake, keeping it in the middle of the viewport.
+*	It converts the world coordinates into the coordinates of the panel, and gives the range of cells and blocks within the viewport, so therefore only what is inside the viewport gets iterated and drawn.
+*	The world wraps around its edges, so the viewport can span the edge of the world; a coordinate is within the viewport if its distance past the left (or top) of the viewport, around the world, is less than the width (or height).
+**/
+
+public class Camera implements Constants {
+		private int width; // The width of the viewport.
+		private int height; // The height of the viewport.
+		private int worldWidth;
+		private int worldHeight;
+		private int x; // The world coordinates of the top left of the viewport.
+		private int y;
+
+		public Camera(int width, int height, int worldWidth, int worldHeight) {
+				this.width = width;
+				this.height = height;
+				this.worldWidth = worldWidth;
+				this.worldHeight = worldHeight;
+		}
+
+		// Moves the viewport so that the coordinates received are in the middle of it.
+		public void follow(int x, int y) {
+				this.x = Math.floorMod(x - (this.width / 2), this.worldWidth);
+				this.y = Math.floorMod(y - (this.height / 2), this.worldHeight);
+		}
+
+		// Gets the panel x coordinate of the world x coordinate received, which is the width or more if it is right of the viewport.
+		public int toScreenX(int x) {
+				return Math.floorMod(x - this.x, this.worldWidth);
+		}
+
+		// Gets the panel y coordinate of the world y coordinate received, which is the height or more if it is below the viewport.
+		public int toScreenY(int y) {
+				return Math.floorMod(y - this.y, this.worldHeight);
+		}
+
+		// Gets the world x coordinate of the first square of the size received which is within the viewport (it may be partly left of the viewport).
+		public int firstX(int size) {
+				return this.x - Math.floorMod(this.x, size);
+		}
+
+		// Gets the world y coordinate of the first square of the size received which is within the viewport (it may be partly above the viewport).
+		public int firstY(int size) {
+				return this.y - Math.floorMod(this.y, size);
+		}
+
+		// Gets the amount of squares of the size received across the viewport, including the squares which are only partly within it.
+		public int spanX(int size) {
+				return ((this.width + Math.floorMod(this.x, size) + size - ONE) / size);
+		}
+
+		// Gets the amount of squares of the size received down the viewport, including the squares which are only partly within it.
+		public int spanY(int size) {
+				return ((this.height + Math.floorMod(this.y, size) + size - ONE) / size);
+		}
+
+		// Gets the most chunks of the size received (in pixels) which the viewport can span at once.
+		public int maxChunks(int size) {
+				return (((this.width + size - 2) / size) + ONE) * (((this.height + size - 2) / size) + ONE);
+		}
+
+		public int getX() {
+				return this.x;
+		}
+
+		public int getY() {
+				return this.y;
+		}
+
+		public int getWidth() {
+				return this.width;
+		}
+
+		public int getHeight() {
+				return this.height;
+		}
+}
@@ -1,12 +1,12 @@
 /**
-*	The CollisionException class is a custom exception which gets thrown when the snake either collides with its own body, or with a wall block.
+*	The CollisionException class is a custom exception which gets thrown when the snake either collides with its own body, with a wall block, or with another snake in a Arena.
 * 	@author: Lance Baker.
 **/
 
 public class CollisionException extends Exception {
 		public static final long serialVersionUID = 1L;
-		public enum CollideType { SNAKE_BODY, WALL }; // The different collide types.
-		private static final String[] MESSAGE = {"Collided with Snake Body", "Collided with Wall"}; // The exception message
+		public enum CollideType { SNAKE_BODY, WALL, OTHER_SNAKE }; // The different collide types.
+		private static final String[] MESSAGE = {"Collided with Snake Body", "Collided with Wall", "Collided with Another Snake"}; // The exception message
 		private CollideType type; // The CollideType of the collision.
 		
 		public CollisionException(CollideType type) { // Recieves the CollideType
@@ -2,6 +2,7 @@ public interface Constants {
 		static final String MAIN_HEADING = "Super Snake Game";
 		static final String EMPTY_STRING = "";
 		static final String SAVE_FILE_NAME = "GameSave.sav";
+		static final String LEADERBOARD_FILE_NAME = "GameSave.idx"; // The index of the results, ordered by score.
 		
 		static final String MAP_PATH = "maps/";
 		static final String IMAGES_PATH = "images/";
@@ -28,6 +29,9 @@ public interface Constants {
 		static final String PERCENT_BAR = "|";
 		static final String MAXED_ENERGY = "OVERCHARGED";
 		static final String HUD_FONT = "Tahoma";
+		static final String INCREMENTAL_RENDERING = "snake.incremental"; // The system property which makes the game only redraw the regions which change.
+		static final String REPLAY_DIRECTORY = "snake.replays"; // The system property of the directory which a replay of each completed game is saved to.
+		static final String AUTOPILOT = "snake.autopilot"; // The system property which makes the Autopilot steer the snake, for the attract mode demos.
 		
 		static final String BODY_CELL = "body";
 		static final String SNAKE_HEAD = "head";
@@ -55,7 +59,7 @@ public interface Constants {
 		
 		
 		static final String[] OPTIONS_MENU = { "File", "Game", "Help" };
-		static final String[] OPTIONS_FILE = { "New Game", "Restart Game", "Save Results", "Restore Game", "Exit" };
+		static final String[] OPTIONS_FILE = { "New Game", "Restart Game", "Save Results", "Reload Results", "Exit" };
 		static final String[] OPTIONS_GAME = { "Set Level", "Set Player", "View Results" };
 		static final String[] OPTIONS_HELP = { "About" };
 }
\ No newline at end of file
@@ -0,0 +1,54 @@
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+*	The DirtyRegions collects the regions of the screen which have changed since the last frame, when the game is being rendered incrementally.
+*	It is registered as the listener of the game's OccupancyGrid, so therefore the head and tail cells of the moving snake, and the blocks of the items and walls which are added or removed, are marked as they change.
+*	If too many regions are marked in the one frame (such as when a new map is loaded), it is quicker to redraw everything; so therefore the regions are dropped and the whole screen is marked instead.
+**/
+
+public class DirtyRegions implements OccupancyGrid.Listener, Constants {
+		public static final int BLOCK_EXTENT = GRID_SIZE + (GRID_SIZE / 8); // The item and wall sprites are slightly larger than a block.
+		private static final int MAX_REGIONS = 32; // The amount of regions before the whole screen is redrawn instead.
+
+		private List<Rectangle> regions = new ArrayList<Rectangle>(); // The regions marked since the last frame.
+		private boolean everything = true; // Whether the whole screen needs to be redrawn.
+
+		public synchronized void snakeChanged(int x, int y) {
+				this.add(x, y, SNAKE_SIZE, SNAKE_SIZE);
+		}
+
+		public synchronized void blockChanged(int x, int y) {
+				this.add(x, y, BLOCK_EXTENT, BLOCK_EXTENT);
+		}
+
+		// Marks the region received as changed.
+		public synchronized void add(int x, int y, int width, int height) {
+				if (this.everything) return; // The whole screen is already being redrawn.
+				if (this.regions.size() >= MAX_REGIONS) {
+					this.invalidate();
+				} else {
+					this.regions.add(new Rectangle(x, y, width, height));
+				}
+		}
+
+		// Marks the whole screen as changed.
+		public synchronized void invalidate() {
+				this.everything = true;
+				this.regions.clear();
+		}
+
+		// Returns a boolean depicting whether the whole screen needs to be redrawn.
+		public synchronized boolean isEverything() {
+				return this.everything;
+		}
+
+		// Takes the regions marked since the last frame, and starts collecting the regions for the next frame.
+		public synchronized List<Rectangle> take() {
+				List<Rectangle> taken = this.regions;
+				this.regions = new ArrayList<Rectangle>();
+				this.everything = false;
+				return taken;
+		}
+}
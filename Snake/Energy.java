@@ -1,10 +1,10 @@
-import javax.swing.ImageIcon;
-import java.util.Random;
-
 /**
 *	The Energy Class extends the Obstacle Supertype.
 *	The Energy class offers additional functionality for items which need to have a delay peroid, and a maximum duration before the item becomes expired.
-*	It also offers a way to set the imageicon for the energy item.
+*	It also offers a way to set the sprite for the energy item, the image itself is kept in the SpriteCache.
+*	The delay and duration are chosen with the game's GameRandom, which is only used whilst the item is created.
+*	Once the item is scheduled, it moves from PENDING to VISIBLE to EXPIRED by the expiries of its timers, which the GameClock notifies as it is advanced past them; so therefore the items don't need to be checked on each tick.
+*	The Energy.Listener is notified as the item is shown and as it expires. The item's timers are only read by the clock, so checking the state of the item doesn't change it.
 *	Also the class enforces that any proceeding energy item has Points for when it is collected.
 *	@author: Lance Baker
 **/
@@ -12,48 +12,92 @@ public abstract class Energy extends Obstacle {
 		private static final long serialVersionUID = 1L;
 		private GameTimer duration; // GameTimer for the amount of time to display the item for.
 		private GameTimer delay; // The delay before the item becomes active.
-		private ImageIcon image; // The image icon for the item.
+		private SpriteCache.Sprite sprite; // The sprite for the item.
+		private State state = State.PENDING; // Where the item is in its lifecycle.
+		private transient Listener listener; // The listener notified of the changes to the state, which isn't saved with the item.
+
+		public enum State { PENDING, VISIBLE, EXPIRED }; // The item is pending until its delay is up, then visible until its duration is up (or it is collected).
+
+		// The Listener gets notified as the item moves through its lifecycle.
+		public interface Listener {
+				void shown(Energy item); // The delay of the item is up, so therefore it can be seen and collected.
+				void expired(Energy item); // The duration of the item is up.
+		}
 
-		public Energy(int x, int y) {
+		public Energy(int x, int y, GameClock clock) {
 				super(x, y); // Instantiates the Super Class, and passes the coordinates for the Point.
-				this.duration = new GameTimer(GameTimer.Type.COUNTDOWN); // Timer used to count down the remaining time until the item disappears.
-				this.delay = new GameTimer(GameTimer.Type.COUNTDOWN); // Timer used to delay the appearance of the item.
+				this.duration = new GameTimer(clock, GameTimer.Type.COUNTDOWN); // Timer used to count down the remaining time until the item disappears.
+				this.delay = new GameTimer(clock, GameTimer.Type.COUNTDOWN); // Timer used to delay the appearance of the item.
 		}
 
-		public void setTime(int min, int max) {
-				int duration = min + (int)(Math.random() * ((max - min) + 1)); // Calculates a random number between the range received.
+		public void setTime(int min, int max, GameRandom random) {
+				int duration = random.nextInt(min, max); // Calculates a random number between the range received.
 				this.duration.set(duration); // Sets the duration for the amount of time to display the item for. 
-				this.setDelay(min); // Sets the delay for the appearance based off a random number in the range of the minimum amount of time.
+				this.setDelay(min, random); // Sets the delay for the appearance based off a random number in the range of the minimum amount of time.
 		}
 		
-		protected void setImage(String imagename) {
-				// Sets the image icon for the energy item based on the received image name.
-				this.image = new ImageIcon(this.getClass().getClassLoader().getResource(IMAGES_PATH + imagename + PNG));
+		protected void setSprite(SpriteCache.Sprite sprite) {
+				// Sets the sprite for the energy item. The image itself is only loaded by the SpriteCache, therefore the item can be created without a display.
+				this.sprite = sprite;
 		}
 		
-		private void setDelay(int min) {
-				Random random = new Random();
+		private void setDelay(int min, GameRandom random) {
 				this.delay.set(random.nextInt(min)); // Sets a random delay based on the value received.
 				this.delay.start(); // Starts the delay count down timer.
 		}
 		
-		private boolean isReady() {
-				boolean ready = (this.delay.getTime() <= 0); // If the item's delay is less than or equal to zero, it can now be visible.
-				if (ready) this.duration.start(); // Starts the duration for the amount of time to display the item for.
-				return ready; // Returns a boolean depicting if the item delay period is up.
+		// Schedules the lifecycle of the item with its clock; the item is shown when its delay is up (straight away if it doesn't have a delay), and expires when its duration is up after that.
+		public void schedule(Listener listener) {
+				this.listener = listener;
+				this.delay.setListener(new GameTimer.Listener() {
+						public void expired(GameTimer timer) {
+								show();
+						}
+				});
+				if (this.delay.getTime() <= 0) this.show(); // The delay is already up.
 		}
-		
+
+		// Shows the item, and starts the duration for the amount of time to display the item for.
+		private void show() {
+				if (this.state != State.PENDING) return;
+				this.state = State.VISIBLE;
+				this.delay.setListener(null);
+				this.duration.setListener(new GameTimer.Listener() {
+						public void expired(GameTimer timer) {
+								expire();
+						}
+				});
+				this.duration.start();
+				if (this.listener != null) this.listener.shown(this);
+		}
+
+		private void expire() {
+				this.cancel();
+				if (this.listener != null) this.listener.expired(this);
+		}
+
+		// Ends the lifecycle of the item, such as once it has been collected or removed from the game; any of its expiries still in the clock are ignored.
+		public void cancel() {
+				this.state = State.EXPIRED;
+				this.delay.setListener(null);
+				this.duration.setListener(null);
+		}
+
+		public State getState() {
+				return this.state;
+		}
+
 		public boolean isAvailable() { // Returns a boolean if the item is available. Whether the delay period is up, and the item hasn't expired in time.
-				return ((!this.hasExpired()) && (this.isReady()));
+				return (this.state == State.VISIBLE);
 		}
 		
 		public boolean hasExpired() {
-				return (this.duration.getTime() <= 0); // If the item duration is less than or equal to zero, it is now expired.
+				return (this.state == State.EXPIRED); // If the item duration is up, or the item has been removed, it is now expired.
 		}
 		
 		public abstract int getPoints(); // Every item must give a certain amount of points.
 		
-		public ImageIcon getIcon() {
-				return this.image; // Gets the ImageIcon for the Energy Item.
+		public SpriteCache.Sprite getSprite() {
+				return this.sprite; // Gets the Sprite for the Energy Item.
 		}
 }
\ No newline at end of file
@@ -1,8 +1,6 @@
-import java.util.Random;
-
 /**
 *	EnergyDrinks are used throughout the game to add additional energy amounts to the energy level, the type of energy drink is randomly selected when its created.
-*	The imageicon used for the energy item is set based on the DrinkType.toString() value.
+*	The sprite used for the energy item is set based on the DrinkType ordinal position.
 *	Energy Drinks contain caffeine, which should be directly added to the Snake energy level without modification.
 *	@author: Lance Baker
 **/
@@ -11,21 +9,21 @@ public class EnergyDrink extends Energy {
 			public static final long serialVersionUID = 1L;
 			private static final int CAFFEINE[] = { 109, 120, 160 }; // Given directly to the caffeination level percentage.
 			private static final int POINTS[] = { 50, 75, 100 }; // Amount of points to be added when collected.
+			private static final SpriteCache.Sprite SPRITES[] = { SpriteCache.Sprite.V_DRINK, SpriteCache.Sprite.RED_BULL, SpriteCache.Sprite.MOTHER }; // The sprite of each drink.
 			
 			public enum DrinkType { V_DRINK, RED_BULL, MOTHER };
 			
 			private DrinkType type; // Type of the energy drink. Randomly selected when created.
 			
-			public EnergyDrink(int x, int y) {
-					super(x, y); // Instantiates the Super Class, and passes the coordinates for the Point.
-					this.setType(); // Sets the type.
-					super.setTime(5, 15); // Sets the Minimum Delay and Maximum amount of time to appear for.
-					super.setImage(type.toString()); // Sets the current ImageIcon based on the DrinkType.toString() value.
+			public EnergyDrink(int x, int y, GameClock clock, GameRandom random) {
+					super(x, y, clock); // Instantiates the Super Class, and passes the coordinates for the Point and the game clock.
+					this.setType(random); // Sets the type.
+					super.setTime(5, 15, random); // Sets the Minimum Delay and Maximum amount of time to appear for.
+					super.setSprite(SPRITES[type.ordinal()]); // Sets the current Sprite based on the DrinkType ordinal position.
 			}
 			
 			// Sets a random type of Drink based on the Enumerated DrinkType
-			private void setType() {
-					Random random = new Random();
+			private void setType(GameRandom random) {
 					Object[] objs = DrinkType.values(); // Gets the values of the DrinkType to a Object Array.
 					// A random number is generated based on the length of the Object Array, which therefore gets the value based on that random number.
 					// It converts the Object to a DrinkType, and sets the variable.
@@ -0,0 +1,147 @@
+import java.awt.Canvas;
+import java.awt.Dimension;
+import java.awt.DisplayMode;
+import java.awt.Graphics;
+import java.awt.GraphicsConfiguration;
+import java.awt.Rectangle;
+import java.awt.Toolkit;
+import java.awt.image.BufferStrategy;
+import java.awt.image.BufferedImage;
+import java.util.List;
+
+/**
+*	The GameCanvas actively renders the game onto a page flipped BufferStrategy, using a render thread of its own.
+*	The render thread is separate to the thread which ticks the game, and it paces the frames to the refresh rate of the display; therefore the frames are drawn at the display rate, no matter how fast the game is ticking.
+*	The canvas doesn't know anything about the game itself, it requests each frame from the GameCanvas.Renderer.
+*	When the canvas is incremental, it keeps the last frame in a image of its own; each frame only the regions which have changed are drawn onto the image, and only those regions are copied to the screen.
+**/
+
+public class GameCanvas extends Canvas implements Runnable, Constants {
+		private static final long serialVersionUID = 1L;
+		private static final int DEFAULT_REFRESH_RATE = 60; // The frame rate used when the refresh rate of the display is unknown.
+		private static final int IDLE_FRAME_RATE = 10; // The frame rate used whilst the game isn't animating, such as when it is paused or over.
+		private static final long NANOS_PER_SECOND = 1000000000L;
+		private static final long NANOS_PER_MILLI = 1000000L;
+
+		// The Renderer draws each frame of the game.
+		public interface Renderer {
+				void render(Graphics g); // Draws the frame onto the graphics received.
+				boolean isAnimating(); // Returns a boolean depicting whether the frames are changing, if not the canvas renders at a slower rate.
+				List<Rectangle> renderChanges(Graphics g); // Draws the regions which changed onto the graphics holding the last frame, returning the regions (or null if the whole frame was drawn).
+		}
+
+		private Renderer renderer; // The renderer which draws the frames.
+		private Thread thread; // The render thread.
+		private volatile boolean running; // Whether the render thread should keep running.
+		private boolean incremental; // Whether only the changed regions are drawn each frame.
+		private BufferedImage frame; // The last frame, which is kept when rendering incrementally.
+		private volatile boolean exposed; // Whether the screen needs the whole frame copied onto it, such as when the window has been uncovered.
+
+		public GameCanvas(Renderer renderer, boolean incremental) {
+				this.renderer = renderer;
+				this.incremental = incremental;
+				this.setPreferredSize(new Dimension(PANEL_WIDTH, PANEL_HEIGHT + HUD_HEIGHT)); // The canvas is the size of the game plus the HUD.
+				this.setIgnoreRepaint(!incremental); // The canvas is only painted by the render thread, except for the incremental canvas which needs to know when it has been uncovered.
+				this.setFocusable(false); // The keyboard focus stays with the panel, which has the keyboard actions registered.
+		}
+
+		// Called when the canvas has been uncovered, the incremental canvas copies the whole of the last frame on its next frame.
+		public void paint(Graphics g) {
+				this.exposed = true;
+		}
+
+		public void update(Graphics g) {
+				this.paint(g); // Stops the canvas from being cleared before it is painted.
+		}
+
+		// Starts the render thread, if it isn't already running.
+		public synchronized void start() {
+				if (this.thread == null) {
+					this.running = true;
+					this.thread = new Thread(this, "GameCanvas");
+					this.thread.setDaemon(true);
+					this.thread.start();
+				}
+		}
+
+		// Stops the render thread.
+		public synchronized void stop() {
+				this.running = false;
+				this.thread = null;
+		}
+
+		// Gets the time between each frame, which is based on the refresh rate of the display.
+		private long getFrameTime() {
+				int refreshRate = DisplayMode.REFRESH_RATE_UNKNOWN;
+				GraphicsConfiguration config = this.getGraphicsConfiguration();
+				if (config != null && config.getDevice().getDisplayMode() != null) {
+					refreshRate = config.getDevice().getDisplayMode().getRefreshRate();
+				}
+				return NANOS_PER_SECOND / ((refreshRate != DisplayMode.REFRESH_RATE_UNKNOWN) ? refreshRate : DEFAULT_REFRESH_RATE);
+		}
+
+		public void run() {
+				long frameTime = this.getFrameTime();
+				long nextFrame = System.nanoTime();
+				BufferStrategy strategy = null;
+				while (this.running) {
+					if (this.incremental) {
+						if (this.isDisplayable()) this.renderChanges();
+					} else if (strategy == null && this.isDisplayable()) {
+						this.createBufferStrategy(2); // Creates a page flipped strategy if the display supports it, otherwise a blitted one.
+						strategy = this.getBufferStrategy();
+					}
+					if (strategy != null && !this.incremental) {
+						try {
+							do {
+								do {
+									Graphics g = strategy.getDrawGraphics();
+									this.renderer.render(g); // Draws the frame onto the back buffer.
+									g.dispose();
+								} while (strategy.contentsRestored()); // Redraws the frame if the back buffer was restored whilst drawing.
+								strategy.show(); // Flips the back buffer onto the display.
+							} while (strategy.contentsLost()); // Redraws the frame if the back buffer was lost.
+							Toolkit.getDefaultToolkit().sync();
+						} catch (IllegalStateException ex) {
+							strategy = null; // The canvas has been removed from the display, so the strategy is recreated when it is displayable again.
+						}
+					}
+					// Waits for the next frame, which is sooner when the game is animating.
+					nextFrame += (this.renderer.isAnimating()) ? frameTime : (NANOS_PER_SECOND / IDLE_FRAME_RATE);
+					long remaining = nextFrame - System.nanoTime();
+					if (remaining < -frameTime) nextFrame = System.nanoTime(); // If the rendering has fallen behind, it skips the missed frames.
+					try {
+						Thread.sleep(Math.max(remaining / NANOS_PER_MILLI, 0), (int)Math.max(remaining % NANOS_PER_MILLI, 0));
+					} catch (InterruptedException ex) { }
+				}
+		}
+
+		// Draws the changed regions onto the last frame, then copies only those regions onto the screen.
+		private void renderChanges() {
+				List<Rectangle> regions = null;
+				Graphics g = null;
+				if (this.frame == null) { // The first frame is drawn in full.
+					this.frame = SpriteCache.createImage(PANEL_WIDTH, (PANEL_HEIGHT + HUD_HEIGHT));
+					g = this.frame.getGraphics();
+					this.renderer.render(g);
+				} else {
+					g = this.frame.getGraphics();
+					regions = this.renderer.renderChanges(g);
+				}
+				g.dispose();
+				if (regions != null && regions.isEmpty() && !this.exposed) return; // Nothing has changed.
+				g = this.getGraphics();
+				if (g == null) return;
+				if (regions == null || this.exposed) {
+					this.exposed = false;
+					g.drawImage(this.frame, ZERO, ZERO, null); // Copies the whole frame.
+				} else {
+					for (Rectangle region : regions) {
+						g.drawImage(this.frame, region.x, region.y, region.x + region.width, region.y + region.height,
+										region.x, region.y, region.x + region.width, region.y + region.height, null); // Copies only the region.
+					}
+				}
+				g.dispose();
+				Toolkit.getDefaultToolkit().sync();
+		}
+}
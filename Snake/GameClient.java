@@ -0,0 +1,175 @@
+import javax.swing.*;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Font;
+import java.awt.Graphics;
+import java.awt.Image;
+import java.awt.event.*;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+
+/**
+*	The GameClient is the thin client of the GameServer; it sends the keys pressed to the server, and renders the board built up from the frames it receives.
+*	It doesn't run any of the game rules itself, the frames are read by the client's own thread and applied to the BoardDelta.Board, which is then repainted.
+*	The controls are the same as the SnakePanel; the arrow keys, P to pause, R to resume, and N to start the game again.
+*
+*	Usage: java GameClient [-host host] [-port port] [-player name] [-difficulty SLUG|WORM|SNAKE]
+**/
+
+public class GameClient extends JPanel implements Runnable, Constants {
+		private static final long serialVersionUID = 1L;
+
+		private Socket socket;
+		private OutputStream output;
+		private BoardDelta.Board board = new BoardDelta.Board();
+
+		public GameClient(Socket socket) throws IOException {
+				this.socket = socket;
+				this.socket.setTcpNoDelay(true);
+				this.output = socket.getOutputStream();
+				this.setPreferredSize(new Dimension(PANEL_WIDTH, PANEL_HEIGHT + HUD_HEIGHT));
+				this.setFocusable(true);
+				this.setControls();
+				SpriteCache.load();
+		}
+
+		// Joins the server with the player name and difficulty level received, and starts reading the frames.
+		public void join(String player, SnakeGame.DifficultyLevel difficulty) throws IOException {
+				ByteBuffer message = GameServer.join(player, difficulty);
+				this.send(message.array(), message.remaining());
+				Thread reader = new Thread(this, "Game Client");
+				reader.setDaemon(true);
+				reader.start();
+		}
+
+		private synchronized void send(byte[] message, int length) {
+				try {
+					this.output.write(message, ZERO, length);
+					this.output.flush();
+				} catch (IOException ex) {
+					System.out.println("Can't Send To Server " + ex.getMessage());
+				}
+		}
+
+		private void send(int op) {
+				this.send(new byte[] { (byte)op }, ONE);
+		}
+
+		private void setControls() {
+				final Action action = new AbstractAction() {
+						public static final long serialVersionUID = 1L;
+						public void actionPerformed(ActionEvent e) {
+								send(Integer.parseInt(e.getActionCommand())); // The action command is the op sent to the server.
+						}
+				};
+				int[] keys = { KeyEvent.VK_UP, KeyEvent.VK_DOWN, KeyEvent.VK_RIGHT, KeyEvent.VK_LEFT, KeyEvent.VK_P, KeyEvent.VK_R, KeyEvent.VK_N };
+				int[] ops = { SnakeGame.Compass.NORTH.ordinal(), SnakeGame.Compass.SOUTH.ordinal(), SnakeGame.Compass.EAST.ordinal(), SnakeGame.Compass.WEST.ordinal(), GameServer.PAUSE, GameServer.RESUME, GameServer.RESTART };
+				for (int i = 0; i < keys.length; i++) {
+					this.registerKeyboardAction(action, String.valueOf(ops[i]), KeyStroke.getKeyStroke(keys[i], 0), JComponent.WHEN_IN_FOCUSED_WINDOW);
+				}
+		}
+
+		// Reads each frame from the server, and applies it to the board.
+		public void run() {
+				try {
+					DataInputStream input = new DataInputStream(this.socket.getInputStream());
+					byte[] frame = new byte[256];
+					while (true) {
+						int length = readVarint(input);
+						if (frame.length < length) frame = new byte[length * 2];
+						input.readFully(frame, ZERO, length);
+						synchronized (this.board) {
+							this.board.apply(ByteBuffer.wrap(frame, ZERO, length));
+						}
+						this.repaint();
+					}
+				} catch (EOFException ex) {
+					System.out.println("The Server Has Closed The Connection");
+				} catch (IOException ex) {
+					System.out.println("Can't Read From Server " + ex.getMessage());
+				}
+		}
+
+		private static int readVarint(InputStream input) throws IOException {
+				int value = 0;
+				for (int shift = 0; shift < 32; shift += 7) {
+					int b = input.read();
+					if (b < 0) throw new EOFException();
+					value |= (b & 0x7F) << shift;
+					if (b < 0x80) return value;
+				}
+				throw new IOException("Frame Length Is Damaged");
+		}
+
+		public void paintComponent(Graphics g) {
+				synchronized (this.board) {
+					g.drawImage(SpriteCache.get(SpriteCache.Sprite.BACKGROUND), ZERO, ZERO, null);
+					Image wall = SpriteCache.get(Wall.getSprite(this.board.getWallStatus()));
+					for (int block = 0; block < BoardDelta.BLOCK_COLUMNS * BoardDelta.BLOCK_ROWS; block++) {
+						if (this.board.isWall(block)) g.drawImage(wall, BoardDelta.blockX(block), BoardDelta.blockY(block), null);
+					}
+					SpriteCache.Sprite[] sprites = SpriteCache.Sprite.values();
+					for (int[] item : this.board.getItems()) {
+						g.drawImage(SpriteCache.get(sprites[item[1]]), BoardDelta.blockX(item[0]), BoardDelta.blockY(item[0]), null);
+					}
+					BoardDelta.Cells snake = this.board.getSnake();
+					Image body = SpriteCache.get(SpriteCache.Sprite.BODY);
+					for (int i = snake.size() - ONE; i >= 0; i--) {
+						g.drawImage((i == ZERO) ? SpriteCache.get(SpriteCache.Sprite.HEAD) : body, snake.getColumn(i) * SNAKE_SIZE, snake.getRow(i) * SNAKE_SIZE, null);
+					}
+					// The HUD statistics, drawn in the same places as the SnakePanel.
+					g.setFont(new Font(HUD_FONT, Font.PLAIN, 10));
+					g.setColor(new Color(150, 150, 150));
+					String energyPercent = LEFT_BRACE + ((this.board.getEnergy() > MAX_ENERGY) ? MAXED_ENERGY : String.valueOf((this.board.getEnergy() / 10)) + PERCENT) + RIGHT_BRACE;
+					g.drawString(ENERGY + energyPercent, HUD_GAP, PANEL_HEIGHT + HUD_GAP);
+					g.drawString(POINTS, (HUD_SPACE * 2), (PANEL_HEIGHT + HUD_GAP));
+					g.drawString(GAME_TIME, (HUD_SPACE * 3), (PANEL_HEIGHT + HUD_GAP));
+					g.drawString(LEVEL, (HUD_SPACE * 4), (PANEL_HEIGHT + HUD_GAP));
+					g.setFont(new Font(HUD_FONT, Font.BOLD, 18));
+					g.setColor(new Color(255, 255, 255));
+					g.drawString(String.valueOf(this.board.getPoints()), (HUD_SPACE * 2), (PANEL_HEIGHT + (HUD_GAP * 3)));
+					g.drawString(String.valueOf(this.board.getTime()), (HUD_SPACE * 3), (PANEL_HEIGHT + (HUD_GAP * 3)));
+					g.drawString(String.valueOf(this.board.getGameLevel()), (HUD_SPACE * 4), (PANEL_HEIGHT + (HUD_GAP * 3)));
+					if (this.board.getGameMode() == SnakeGame.GameMode.GAMEOVER) {
+						g.setFont(new Font(HUD_FONT, Font.BOLD, 20));
+						g.drawString(SCORE + this.board.getTotalScore(), (PANEL_WIDTH / 4), (PANEL_HEIGHT / 4));
+					}
+				}
+		}
+
+		public static void main(String[] args) {
+				String host = "localhost";
+				int port = GameServer.DEFAULT_PORT;
+				String player = DEFAULT_PLAYER;
+				SnakeGame.DifficultyLevel difficulty = SnakeGame.DifficultyLevel.SLUG;
+				try {
+					for (int i = 0; i < args.length; i++) {
+						if (args[i].equals("-host")) host = args[++i];
+						else if (args[i].equals("-port")) port = Integer.parseInt(args[++i]);
+						else if (args[i].equals("-player")) player = args[++i];
+						else if (args[i].equals("-difficulty")) difficulty = SnakeGame.DifficultyLevel.valueOf(args[++i].toUpperCase());
+						else throw new IllegalArgumentException(args[i]);
+					}
+				} catch (RuntimeException ex) {
+					System.out.println("Usage: java GameClient [-host host] [-port port] [-player name] [-difficulty SLUG|WORM|SNAKE]");
+					return;
+				}
+				try {
+					GameClient client = new GameClient(new Socket(host, port));
+					JFrame frame = new JFrame(MAIN_HEADING);
+					frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+					frame.add(client);
+					frame.pack();
+					frame.setResizable(false);
+					frame.setVisible(true);
+					client.join(player, difficulty);
+				} catch (IOException ex) {
+					System.out.println("Can't Connect To Server " + ex.getMessage());
+				}
+		}
+}
@@ -0,0 +1,78 @@
+import java.io.Serializable;
+import java.util.PriorityQueue;
+
+/**
+*	The GameClock is the single source of time for a SnakeGame. Every GameTimer belonging to the game reads its time from the clock, so therefore there isn't a thread (or a javax.swing.Timer) for each timer.
+*	The clock only moves forward when it is advanced, which is done by the GameEngine on each tick of the game; therefore the game time stays consistent with the ticks, whether the game is being played or simulated.
+*	The timers which have a listener are kept in a priority queue ordered by their expiry time, and they are notified as the clock is advanced past that time.
+*	The clock can be paused, in which case advancing the clock has no effect.
+**/
+
+public class GameClock implements Serializable {
+		private static final long serialVersionUID = 1L;
+
+		private long now; // The current game time in milliseconds.
+		private boolean paused; // Whether the clock is paused.
+		private long sequence; // Increments for each scheduled expiry, so that expiries due at the same time are notified in the order they were scheduled.
+		private transient PriorityQueue<Expiry> expiries; // The scheduled expiries, ordered by the time they are due.
+
+		public GameClock() {
+				this.expiries = new PriorityQueue<Expiry>();
+		}
+
+		public long now() {
+				return this.now; // Gets the current game time in milliseconds.
+		}
+
+		public void pause() {
+				this.paused = true; // Stops the clock from being advanced.
+		}
+
+		public void resume() {
+				this.paused = false; // Allows the clock to be advanced again.
+		}
+
+		public boolean isPaused() {
+				return this.paused;
+		}
+
+		// Advances the clock by the milliseconds received, notifying any of the timers which expire along the way at the time they expired.
+		public void advance(long millis) {
+				if (this.paused || millis <= 0) return;
+				long target = this.now + millis;
+				if (this.expiries != null) {
+					while (!this.expiries.isEmpty() && this.expiries.peek().due <= target) {
+						Expiry expiry = this.expiries.poll();
+						this.now = Math.max(this.now, expiry.due); // Moves the clock to the time of the expiry before notifying the timer.
+						expiry.timer.expire(expiry.version);
+					}
+				}
+				this.now = target;
+		}
+
+		// Schedules the timer received to be notified at the due time. The version is used to ignore the expiry if the timer has been changed since.
+		void schedule(GameTimer timer, long due, int version) {
+				if (this.expiries == null) this.expiries = new PriorityQueue<Expiry>(); // The queue isn't serialized, so it is recreated when needed.
+				this.expiries.add(new Expiry(timer, due, version, this.sequence++));
+		}
+
+		// The Expiry is a entry in the queue for a timer which is due to expire.
+		private static class Expiry implements Comparable<Expiry> {
+				private GameTimer timer;
+				private long due;
+				private int version;
+				private long sequence;
+
+				private Expiry(GameTimer timer, long due, int version, long sequence) {
+						this.timer = timer;
+						this.due = due;
+						this.version = version;
+						this.sequence = sequence;
+				}
+
+				public int compareTo(Expiry other) {
+						if (this.due != other.due) return (this.due < other.due) ? -1 : 1;
+						return (this.sequence < other.sequence) ? -1 : ((this.sequence == other.sequence) ? 0 : 1);
+				}
+		}
+}
@@ -0,0 +1,213 @@
+import java.util.List;
+
+/**
+*	The GameEngine class runs the rules of the Snake Game, and is the headless core which the Snake Panel drives.
+*	Each call to the step method performs one fixed tick of the SnakeGame; it performs the time based actions, moves the snake, processes the energy items and wall blocks, and detects the collisions.
+*	The engine doesn't do any rendering, so therefore it can be run without a display; allowing games to be simulated as fast as the processor permits (for evaluating bots or balance changes).
+*	Anything which needs to be presented to the player (such as the sounds, or the game text) gets passed to the GameEngine.Listener.
+*	Every change to the game from outside (the steps, the game mode, and the difficulty level) is made through the engine; so therefore a Replay.Recorder given to the engine records everything needed to replay the game.
+**/
+
+public class GameEngine implements Constants {
+
+		// The Listener receives the events which occur during a tick, so the presentation can respond to them.
+		public interface Listener {
+				void itemCollected(Energy item); // Called when the snake collects a energy item.
+				void collided(CollisionException ex); // Called when the snake dies by colliding with itself or a wall.
+				void gameOver(); // Called once when the game is over, whether the snake collided or ran out of energy.
+		}
+
+		// The Pilot steers the snake instead of the player, it is asked for the direction on each tick which doesn't receive a direction.
+		public interface Pilot {
+				SnakeGame.Compass steer(SnakeGame game); // Returns the direction for the next move, or null to keep the current direction.
+		}
+
+		private SnakeGame game; // The game in which the rules are performed on.
+		private Listener listener; // The listener receiving the game events, it can be null when running headless.
+		private Replay.Recorder recorder; // Records the game, it is null if the game isn't being recorded.
+		private Pilot pilot; // Steers the snake, it is null when the player is steering.
+
+		// The lastSecond variable is used to work out when a new second has occurred.
+		// This is due because the game is ticking faster than once a second; therefore it allows time based actions to occur only once per second.
+		private int lastSecond;
+
+		public GameEngine(SnakeGame game) {
+				this.game = game; // Sets the game to perform the ticks on.
+		}
+
+		public void setListener(Listener listener) {
+				this.listener = listener; // Sets the listener for the game events.
+		}
+
+		public void setPilot(Pilot pilot) {
+				this.pilot = pilot; // Sets the pilot, which steers the snake from the next tick.
+		}
+
+		public void setRecorder(Replay.Recorder recorder) {
+				this.recorder = recorder; // Sets the recorder, which records the game from when it is next started.
+		}
+
+		public SnakeGame getGame() {
+				return this.game; // Gets the game.
+		}
+
+		// Starts (or restarts) the game, and adds the initial amount of energy to the game.
+		public synchronized void start() {
+				this.game.setGameMode(SnakeGame.GameMode.STARTED); // Changes the game mode to started.
+				this.lastSecond = 0; // Sets the lastSecond variable back to its initial value.
+				this.addEnergy(); // Adds the initial amount of energy to the game.
+				if (this.recorder != null) this.recorder.start(this.game);
+		}
+
+		// Changes the game mode, such as pausing or resuming the game.
+		public synchronized void setGameMode(SnakeGame.GameMode mode) {
+				this.game.setGameMode(mode);
+				if (this.recorder != null) this.recorder.setGameMode(mode);
+		}
+
+		// Changes the difficulty level of the game whilst it is being played.
+		public synchronized void setDifficultyLevel(SnakeGame.DifficultyLevel difficulty) {
+				this.game.setDifficultyLevel(difficulty);
+				if (this.recorder != null) this.recorder.setDifficultyLevel(difficulty);
+		}
+
+		// Performs one tick of the game, in which the game clock is advanced by the games current speed (the time between each tick).
+		// The input is the direction received for this tick, it can be null if the direction hasn't changed.
+		public void step(SnakeGame.Compass input) {
+				this.step(input, this.game.getSpeed());
+		}
+		
+		// Performs one tick of the game, after advancing the game clock by the milliseconds received. A tick of zero milliseconds moves the snake without any time passing.
+		// This method gets called from the game loop and from the keyboard; therefore it is synchronized to only allow one tick to occur at the same time.
+		public synchronized void step(SnakeGame.Compass input, int millis) {
+				if (this.game.getGameMode() == SnakeGame.GameMode.GAMEOVER) return; // Nothing happens once the game is over.
+				if (input == null && this.pilot != null && this.game.getGameMode() == SnakeGame.GameMode.PLAYING) {
+					SnakeGame.Compass steer = this.pilot.steer(this.game);
+					if (steer != this.game.getDirection()) input = steer; // Only a change of direction is passed on, so therefore it is recorded like a key press.
+				}
+				try {
+					this.game.getClock().advance(millis); // Advances the game time, the clock is paused if the game isn't being played.
+					if (input != null) this.game.setDirection(input); // Sets the new direction received.
+					this.performTimeBasedActions(); // This method does actions which are based on the game time. Such as, adding the energy or incrementing to a new level.
+					this.game.moveSnake(); // Moves the snake by one point which is based on the current direction.
+					this.processItems(); // Processes the Energy items. It detects whether there was a collision with the item, and does corresponding actions.
+					this.processWalls(); // Processes the Walls. It detects whether there was a collision, and throws a Collision Exception if the snake dies.
+					this.game.detectSnakeCollision(); // Detects whether there was a snake collision with itself, if there is - it throws a CollisionException.
+				} catch (CollisionException ex) {
+					this.game.setGameMode(SnakeGame.GameMode.GAMEOVER); // Changes the game state to GAME OVER.
+					if (this.listener != null) this.listener.collided(ex); // Passes the collision to the listener.
+				}
+				if (this.recorder != null) this.recorder.step(input, millis);
+				if (this.game.isGameOver() && this.listener != null) this.listener.gameOver(); // The game ended on this tick.
+		}
+
+		private boolean isNewSecond() {
+				// This method is used to determine whether the GameTimer object (which the SnakeGame uses for the incrementing of the game time) has gone to a new second.
+				// This is because the tick could only be 200ms, therefore inorder to do time based actions - the game must check whether a new second has ticked over to avoid doing the same action numerous times.
+				if (this.game.getTime() > this.lastSecond) { // Checks whether the game time is greater than the last second recorded.
+						this.lastSecond = this.game.getTime(); // If it is a new second it sets the last known time to the current time.
+						return true; // returns true if its a new second.
+				}
+				return false;
+		}
+
+		private void performTimeBasedActions() {
+				if (this.isNewSecond()) { // The isNewSecond() method ensures the following is only executed when a new second occurs.
+					if (this.gameReady(this.game.getLevelTime())) {
+						this.game.nextLevel(); // Increments the game level, and displays a random map.
+						this.addEnergy(); // Adds energy to the game.
+					} else if (this.gameReady(5)) { // Every 5 seconds it adds more energy to the game.
+						this.addEnergy();
+					}
+				}
+		}
+
+		private boolean gameReady(int seconds) { // Returns true if the current game time MOD the seconds received is equal to zero.
+				return ((this.game.getTime() % seconds) == 0);
+		}
+
+		private void addEnergy() {
+				GameRandom random = this.game.getRandom();
+				OccupancyGrid grid = this.game.getGrid();
+				// It iterates multiple times depending on the gameLevel.
+				for (int i = ZERO; i < (ONE + this.game.getGameLevel()); i++) {
+					int block = grid.randomFreeBlock(random); // Picks a block without a wall, item or snake body part on it.
+					if (block < ZERO) return; // The board is full.
+					int x = grid.blockX(block), y = grid.blockY(block);
+					// There is a 1 in 5 chance the item is a power up, otherwise it adds a energy drink.
+					Energy item = (random.nextInt(5) == random.nextInt(5)) ? new PowerUP(x, y, this.game.getClock(), random) : new EnergyDrink(x, y, this.game.getClock(), random);
+					this.game.addItem(item); // Adds the item to the SnakeGame, which registers it in the grid and schedules its lifecycle.
+				}
+		}
+
+		// Processes the Items in the game. It checks whether the snake has collected a item, and does the corresponding actions associated with that item.
+		// The items are shown and expired by the game clock, so therefore only the item at the head, and any item shown under the snake since the last tick, can have been collected.
+		private void processItems() {
+				List<Energy> shown = this.game.getShownItems();
+				if (this.game.getGameMode() == SnakeGame.GameMode.PLAYING) { // Only completes the following if the current game mode is playing.
+					for (int i = shown.size() - ONE; i >= 0; i--) { // Backwards, as a collected item is removed from the list.
+						Energy item = shown.get(i);
+						if (this.game.collision(item)) this.collect(item); // The item was shown where the snake is lying.
+					}
+					Snake snake = this.game.getSnakeBody();
+					Energy item = this.game.getGrid().itemAt(snake.getX(ZERO), snake.getY(ZERO));
+					if (item != null && item.isAvailable()) this.collect(item); // Only the items which have been shown can be collected.
+				}
+				shown.clear();
+		}
+
+		// Collects the item, and does the corresponding actions associated with that item.
+		private void collect(Energy item) {
+				this.game.setPoints(item.getPoints()); // Sets the items Points.
+				if (item instanceof EnergyDrink) { // If its a energy drink, it adds the caffeine amount to the snakes energy level.
+					this.game.addEnergy(((EnergyDrink)item).getCaffeine());
+					this.game.growSnake(); // Grows the snake by one increment.
+				}
+				if (item instanceof PowerUP) { // Power ups don't increase the size of the snake.
+					this.grabPowerUp((PowerUP)item); // Grabs the PowerUP.
+				}
+				this.game.removeItem(item); // Removes the item.
+				if (this.listener != null) this.listener.itemCollected(item); // Passes the collected item to the listener.
+		}
+
+		// This method is used to perform a action based upon the power up received.
+		private void grabPowerUp(PowerUP item) {
+				GameRandom random = this.game.getRandom();
+				switch(item.getPowerType()) {
+						case ENERGY_BOOST:
+							this.game.setEnergy(FULLY_MAXED_ENERGY); // Sets the Energy Level to the Highest Amount.
+							break;
+						case WALLS_DEACTIVATED:
+							this.game.delayWalls(10, 30); // Delays the Walls for a random amount of time - between 10 to 30 seconds.
+							break;
+						case LEVELED_UP:
+							this.game.incrementLevel(); // Increments the Game Level without changing the map.
+							break;
+						case CHANGED_MAP:
+							this.game.setRandomMap(); // Changes the game map.
+							break;
+						case BONUS_POINTS_GIVEN:
+							this.game.setPoints(POWER_UP_POINTS * (1 + random.nextInt(5))); // Gives Bonus points, which are up to 5 times the standard power up amount.
+							break;
+						case SHRINKED_SNAKE_SIZE:
+							this.game.shrinkSnakeSize(); // Shrinks the snakes size to a random size.
+							break;
+				}
+				this.game.addEnergy(random.nextInt((FULLY_MAXED_ENERGY / 2))); // Adds a random amount of Energy - up to half of the Fully Maxed Amount.
+		}
+
+		// This method processes the Wall Blocks in the game. It throws a CollisionException if the snake dies by running into a wall.
+		private void processWalls() throws CollisionException {
+				if (this.game.getWall().size() > 0) { // Only does it if there are walls.
+					synchronized (this.game.getWall()) { // Synchronizes the Wall List.
+						if (this.game.isWallActive()) {
+							// If the Wall isActive and the snake collides with a wall block, it then throws a CollisionException.
+							if (this.game.wallCollision()) throw new CollisionException(CollisionException.CollideType.WALL);
+						} else if (this.game.getEnergy() > MAX_ENERGY) {
+							// If the energy level is fully max'd out, and the walls are not active - it removes any walls the snake collides with and adds bonus points for each.
+							this.game.setPoints(POWER_UP_POINTS * this.game.eatWalls());
+						}
+					}
+				}
+		}
+}
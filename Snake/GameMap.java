@@ -0,0 +1,63 @@
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+*	The GameMap is a game map which has already been read, stored in a compact form which can't be changed once it has been created.
+*	The wall blocks are stored both as a bit for each block of the map (which allows a block to be checked directly), and as a list of the blocks packed into a int each (the column in the high half, and the row in the low half).
+*	The maps are only read once by the MapRegistry, and each level creates its Wall objects from the map without reading the map file again.
+**/
+
+public class GameMap implements Constants {
+		private String name; // The name of the map file.
+		private int columns; // The number of blocks across the map.
+		private int rows; // The number of blocks down the map.
+		private BitSet blocks; // A bit for each block of the map, which is set if there is a wall on the block.
+		private int[] walls; // The packed column and row of each wall block.
+
+		public GameMap(String name, int columns, int rows, BitSet blocks) {
+				this.name = name;
+				this.columns = columns;
+				this.rows = rows;
+				this.blocks = (BitSet)blocks.clone(); // Copies the blocks, so the map can't be changed by the caller.
+				this.walls = new int[this.blocks.cardinality()];
+				int i = 0;
+				for (int block = this.blocks.nextSetBit(ZERO); block >= ZERO; block = this.blocks.nextSetBit(block + 1)) {
+					this.walls[i++] = ((block % columns) << 16) | (block / columns);
+				}
+		}
+
+		public String getName() {
+				return this.name;
+		}
+
+		// Gets the amount of wall blocks in the map.
+		public int size() {
+				return this.walls.length;
+		}
+
+		// Gets the x coordinate of the wall block at the index received.
+		public int getX(int index) {
+				return (this.walls[index] >>> 16) * GRID_SIZE;
+		}
+
+		// Gets the y coordinate of the wall block at the index received.
+		public int getY(int index) {
+				return (this.walls[index] & 0xFFFF) * GRID_SIZE;
+		}
+
+		// Returns a boolean depicting whether there is a wall block at the coordinates received.
+		public boolean isWall(int x, int y) {
+				if (x < ZERO || y < ZERO || (x / GRID_SIZE) >= this.columns || (y / GRID_SIZE) >= this.rows) return false;
+				return this.blocks.get(((y / GRID_SIZE) * this.columns) + (x / GRID_SIZE));
+		}
+
+		// Creates the Wall objects for a game to use.
+		public List<Wall> createWalls() {
+				List<Wall> created = new ArrayList<Wall>(this.walls.length);
+				for (int i = 0; i < this.walls.length; i++) {
+					created.add(new Wall(this.getX(i), this.getY(i)));
+				}
+				return created;
+		}
+}
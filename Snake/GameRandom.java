@@ -0,0 +1,65 @@
+import java.io.Serializable;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+*	The GameRandom is the source of the random numbers for a game, each SnakeGame owns one and passes it to every decision which is randomly made (the maps, the energy items, the power ups and the wall delays).
+*	It is a SplitMix64 generator, therefore the numbers only depend on the seed; so the same seed and the same input gives the same game, which allows the games to be replayed and simulated.
+*	It isn't synchronized, as each game's random is only used by that game's engine.
+*	A generator can be split into a new generator which is independent of it, which gives each of a number of games its own random from a single seed.
+**/
+
+public class GameRandom implements Serializable {
+		private static final long serialVersionUID = 1L;
+		private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L; // The default gamma (the amount the state advances each number).
+		private static final AtomicLong SEEDS = new AtomicLong(System.nanoTime()); // Used to make the seeds of games which aren't given one.
+
+		private long seed; // The current state.
+		private long gamma; // The amount the state advances for each number, which must be odd.
+
+		public GameRandom(long seed) {
+				this(seed, GOLDEN_GAMMA);
+		}
+
+		private GameRandom(long seed, long gamma) {
+				this.seed = seed;
+				this.gamma = gamma;
+		}
+
+		// Makes a new seed, different for each call.
+		public static long newSeed() {
+				return mix64(SEEDS.addAndGet(GOLDEN_GAMMA));
+		}
+
+		public long nextLong() {
+				return mix64(this.seed += this.gamma);
+		}
+
+		// Gets a random number from zero up to (but not including) the bound received.
+		public int nextInt(int bound) {
+				if (bound <= 0) throw new IllegalArgumentException("Bound Must Be Positive");
+				return (int)(((this.nextLong() >>> 32) * bound) >>> 32); // Scales the upper 32 bits of the number to the bound.
+		}
+
+		// Gets a random number between the minimum and the maximum received, including both.
+		public int nextInt(int min, int max) {
+				return min + this.nextInt((max - min) + 1);
+		}
+
+		// Creates a new generator, whose numbers are independent from this generator's numbers.
+		public GameRandom split() {
+				return new GameRandom(this.nextLong(), mixGamma(this.nextLong()));
+		}
+
+		private static long mix64(long z) {
+				z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+				z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+				return z ^ (z >>> 31);
+		}
+
+		// Makes a odd gamma, with enough changing bits to give well mixed numbers.
+		private static long mixGamma(long z) {
+				z = (z ^ (z >>> 33)) * 0xFF51AFD7ED558CCDL;
+				z = ((z ^ (z >>> 33)) * 0xC4CEB9FE1A85EC53L) | 1L;
+				return (Long.bitCount(z ^ (z >>> 1)) < 24) ? z ^ 0xAAAAAAAAAAAAAAAAL : z;
+		}
+}
@@ -0,0 +1,64 @@
+/**
+*	The GameResult is the result of a game, which is all that is kept of the game once it has been saved.
+*	It holds the player and difficulty level (which are enough to continue playing as the same player), along with the statistics of the game, and whether the game was completed.
+*	The results are immutable, and are stored in the results file by the ResultsFile class.
+**/
+
+public class GameResult {
+		private String player; // The player name.
+		private SnakeGame.DifficultyLevel difficulty; // The difficulty level.
+		private boolean completed; // Whether the game was over.
+		private int points; // The total points collected from the Energy items.
+		private int level; // The game level reached.
+		private int time; // The game time in seconds.
+		private int score; // The total score.
+
+		public GameResult(String player, SnakeGame.DifficultyLevel difficulty, boolean completed, int points, int level, int time, int score) {
+				this.player = player;
+				this.difficulty = difficulty;
+				this.completed = completed;
+				this.points = points;
+				this.level = level;
+				this.time = time;
+				this.score = score;
+		}
+
+		// Creates the result of the game received, as it currently stands.
+		public GameResult(SnakeGame game) {
+				this(game.getPlayer(), game.getDifficultyLevel(), game.isGameOver(), game.getTotalPoints(), game.getGameLevel(), game.getTime(), game.getTotalScore());
+		}
+
+		public String getPlayer() {
+				return this.player;
+		}
+
+		public SnakeGame.DifficultyLevel getDifficulty() {
+				return this.difficulty;
+		}
+
+		public boolean isCompleted() {
+				return this.completed;
+		}
+
+		public int getPoints() {
+				return this.points;
+		}
+
+		public int getLevel() {
+				return this.level;
+		}
+
+		public int getTime() {
+				return this.time;
+		}
+
+		public int getScore() {
+				return this.score;
+		}
+
+		// Gets the statistics in the same order as the SnakeGame statistics, which are displayed in the results table.
+		public Object[] getStatistics() {
+				Object[] object = { this.player, this.points, this.level, this.time, this.score };
+				return object;
+		}
+}
@@ -0,0 +1,283 @@
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.Charset;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+*	The GameServer hosts a SnakeGame for each client which connects, and is the authority on the game; the clients only send their input, and render the board they are sent.
+*	All of the connections are handled by a single thread with a NIO selector, whereas the games are ticked by the sessions of a SessionHost.
+*	After each tick (and each direction received) the changes to the board are encoded by the connection's BoardDelta.Encoder, and added to the connection's output.
+*	The connections with output are queued for the selector thread to write, which is only woken once for any number of connections queued whilst it is busy.
+*	A client which doesn't read its output fast enough to keep it under MAX_BACKLOG is disconnected.
+*
+*	The client sends single byte ops: a direction (the Compass ordinal position), PAUSE, RESUME and RESTART; and first of all JOIN,
+*	which is followed by the difficulty level ordinal position (byte), the length of the player name (byte) and the name (UTF-8).
+*
+*	Usage: java GameServer [-port port] [-threads count]
+**/
+
+public class GameServer implements Runnable, Constants {
+		public static final int DEFAULT_PORT = 7777;
+		public static final int PAUSE = 4; // The ops below this are the Compass directions.
+		public static final int RESUME = 5;
+		public static final int RESTART = 6;
+		public static final int JOIN = 7;
+		private static final int MAX_BACKLOG = 64 * 1024; // The most output a connection can have waiting to be written.
+		private static final Charset UTF8 = Charset.forName("UTF-8");
+
+		private Selector selector;
+		private ServerSocketChannel server;
+		private SessionHost host; // The host which ticks the games.
+		private Queue<Connection> queued = new ConcurrentLinkedQueue<Connection>(); // The connections with output to be written.
+		private AtomicBoolean woken = new AtomicBoolean(); // Whether the selector has been woken since it last selected.
+		private int connections;
+
+		public GameServer(int port, SessionHost host) throws IOException {
+				this.host = host;
+				this.selector = Selector.open();
+				this.server = ServerSocketChannel.open();
+				this.server.bind(new InetSocketAddress(port), 1024);
+				this.server.configureBlocking(false);
+				this.server.register(this.selector, SelectionKey.OP_ACCEPT);
+		}
+
+		public int getPort() {
+				return this.server.socket().getLocalPort();
+		}
+
+		// Gets the amount of clients connected, which is only counted by the selector thread.
+		public int getConnectionCount() {
+				return this.connections;
+		}
+
+		// Runs the selector loop until the server is closed.
+		public void run() {
+				try {
+					while (this.selector.isOpen()) {
+						this.selector.select();
+						this.woken.set(false);
+						for (Connection connection; (connection = this.queued.poll()) != null;) connection.write();
+						for (Iterator<SelectionKey> it = this.selector.selectedKeys().iterator(); it.hasNext();) {
+							SelectionKey key = it.next();
+							it.remove();
+							if (!key.isValid()) continue;
+							if (key.isAcceptable()) {
+								this.accept();
+							} else {
+								Connection connection = (Connection)key.attachment();
+								if (key.isReadable()) connection.read();
+								if (key.isValid() && key.isWritable()) connection.write();
+							}
+						}
+					}
+				} catch (ClosedSelectorException ex) {
+					// The server has been closed.
+				} catch (IOException ex) {
+					System.out.println("Can't Run Server " + ex.getMessage());
+				}
+		}
+
+		// Closes the server and all of its connections, stopping their games.
+		public void close() {
+				try {
+					for (SelectionKey key : this.selector.keys()) {
+						if (key.attachment() != null) ((Connection)key.attachment()).close();
+					}
+					this.server.close();
+					this.selector.close();
+				} catch (IOException ex) {
+					System.out.println("Can't Close Server " + ex.getMessage());
+				}
+		}
+
+		private void accept() throws IOException {
+				for (SocketChannel channel; (channel = this.server.accept()) != null;) {
+					channel.configureBlocking(false);
+					channel.socket().setTcpNoDelay(true); // The frames are small, and are sent straight away.
+					Connection connection = new Connection(channel);
+					connection.key = channel.register(this.selector, SelectionKey.OP_READ, connection);
+					this.connections++;
+				}
+		}
+
+		// Makes the JOIN message, for the player name and difficulty level received.
+		public static ByteBuffer join(String player, SnakeGame.DifficultyLevel difficulty) {
+				byte[] name = player.getBytes(UTF8);
+				int length = Math.min(name.length, 255);
+				ByteBuffer message = ByteBuffer.allocate(3 + length);
+				message.put((byte)JOIN).put((byte)difficulty.ordinal()).put((byte)length).put(name, 0, length);
+				message.flip();
+				return message;
+		}
+
+		/**
+		*	The Connection is a client's connection, along with its game. It is the Ticker for the game's session, so that each tick is followed by the frame of its changes.
+		*	The connection is locked whilst its game is stepped and encoded, or its output is written; its session is never changed whilst it is locked, as the session locks itself before ticking.
+		**/
+		private class Connection implements SessionHost.Ticker {
+				private SocketChannel channel;
+				private SelectionKey key;
+				private ByteBuffer input = ByteBuffer.allocate(512);
+				private ByteBuffer output = ByteBuffer.allocate(1024);
+				private boolean isQueued; // Whether the connection is queued to be written.
+				private boolean overflowed; // Whether the output has gone over the MAX_BACKLOG.
+				private GameEngine engine; // The engine of the game, which is null until the client has joined.
+				private SessionHost.Session session;
+				private BoardDelta.Encoder encoder;
+
+				private Connection(SocketChannel channel) {
+						this.channel = channel;
+				}
+
+				// Performs a tick of the game, and sends the changes.
+				public synchronized void tick(int millis) {
+						this.engine.step(null, millis);
+						this.send(millis);
+				}
+
+				// Reads the ops received from the client.
+				private void read() {
+						try {
+							if (this.channel.read(this.input) < 0) {
+								this.close(); // The client has disconnected.
+								return;
+							}
+						} catch (IOException ex) {
+							this.close();
+							return;
+						}
+						this.input.flip();
+						while (this.input.hasRemaining()) {
+							int op = this.input.get(this.input.position());
+							if (op == JOIN) {
+								if (this.input.remaining() < 3 || this.input.remaining() < 3 + (this.input.get(this.input.position() + 2) & 0xFF)) break; // The rest of the message hasn't arrived.
+								this.input.get();
+								SnakeGame.DifficultyLevel[] levels = SnakeGame.DifficultyLevel.values();
+								SnakeGame.DifficultyLevel difficulty = levels[Math.min(this.input.get() & 0xFF, levels.length - 1)];
+								byte[] name = new byte[this.input.get() & 0xFF];
+								this.input.get(name);
+								this.join(new String(name, UTF8), difficulty);
+							} else {
+								this.input.get();
+								this.perform(op);
+							}
+						}
+						this.input.compact();
+				}
+
+				// Starts the game of the client.
+				private void join(String player, SnakeGame.DifficultyLevel difficulty) {
+						if (this.engine != null) return; // The client has already joined.
+						SnakeGame game = new SnakeGame(player, difficulty);
+						synchronized (this) {
+							this.engine = new GameEngine(game);
+							this.encoder = new BoardDelta.Encoder(game);
+							this.engine.start();
+						}
+						this.session = host.start(this.engine, this);
+				}
+
+				private void perform(int op) {
+						if (this.engine == null) return; // The client hasn't joined.
+						if (op >= ZERO && op < PAUSE) {
+							synchronized (this) {
+								this.engine.step(SnakeGame.Compass.values()[op], ZERO); // The direction is changed straight away, without any game time passing.
+								this.send(ZERO);
+							}
+							return;
+						}
+						if (op == PAUSE) {
+							this.session.pause();
+						} else if (op == RESUME) {
+							this.session.resume();
+						} else if (op == RESTART) {
+							if (this.session.isActive()) {
+								this.session.restart();
+							} else {
+								this.engine.start(); // The session finished when the game was over, so a new session is started.
+								this.session = host.start(this.engine, this);
+							}
+						}
+						synchronized (this) {
+							this.send(ZERO); // Sends the change of mode.
+						}
+				}
+
+				// Encodes the changes since the last frame, and adds them to the output. It must be called whilst the connection is locked.
+				private void send(int millis) {
+						if (this.overflowed || !this.channel.isOpen()) return;
+						ByteBuffer frame = this.encoder.encode(millis);
+						if (this.output.position() + frame.remaining() > MAX_BACKLOG) {
+							this.overflowed = true; // The client isn't keeping up, so therefore it is disconnected.
+						} else {
+							this.output = BoardDelta.ensure(this.output, frame.remaining());
+							this.output.put(frame);
+						}
+						if (!this.isQueued) {
+							this.isQueued = true;
+							queued.add(this);
+							if (woken.compareAndSet(false, true)) selector.wakeup();
+						}
+				}
+
+				// Writes as much of the output as the channel accepts, and waits to be writable if any is left. It is only called by the selector thread.
+				private void write() {
+						synchronized (this) {
+							this.isQueued = false;
+							if (!this.overflowed) {
+								try {
+									this.output.flip();
+									this.channel.write(this.output);
+									this.output.compact();
+									if (this.key.isValid()) this.key.interestOps((this.output.position() > ZERO) ? (SelectionKey.OP_READ | SelectionKey.OP_WRITE) : SelectionKey.OP_READ);
+									return;
+								} catch (IOException ex) {
+									// The client has gone, so the connection is closed below.
+								}
+							}
+						}
+						this.close();
+				}
+
+				// Closes the connection and stops its game. The session is stopped without the connection locked.
+				private void close() {
+						if (!this.channel.isOpen()) return;
+						this.key.cancel();
+						try {
+							this.channel.close();
+						} catch (IOException ex) {
+							// The channel is closed anyway.
+						}
+						connections--;
+						if (this.session != null) this.session.stop();
+				}
+		}
+
+		public static void main(String[] args) throws IOException {
+				int port = DEFAULT_PORT;
+				int threads = Runtime.getRuntime().availableProcessors();
+				try {
+					for (int i = 0; i < args.length; i++) {
+						if (args[i].equals("-port")) port = Integer.parseInt(args[++i]);
+						else if (args[i].equals("-threads")) threads = Integer.parseInt(args[++i]);
+						else throw new IllegalArgumentException(args[i]);
+					}
+				} catch (RuntimeException ex) {
+					System.out.println("Usage: java GameServer [-port port] [-threads count]");
+					return;
+				}
+				MapRegistry.load();
+				GameServer server = new GameServer(port, new SessionHost(threads));
+				System.out.println("Serving Games On Port " + server.getPort() + " With " + threads + " Threads");
+				server.run();
+		}
+}
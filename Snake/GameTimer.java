@@ -1,54 +1,102 @@
-import java.awt.event.*;
-import javax.swing.Timer;
 import java.io.Serializable;
 
 /**
-*	The GameTimer class is a wrapper around the functionality of the javax.swing.Timer class.
+*	The GameTimer class counts the seconds of a game, reading the time from the GameClock which it belongs to.
 *	It provides methods for the retrieval of the current game seconds, changing of time states, and performs the correct operations based on the type of clock.
+*	The timer doesn't have a thread of its own; its time is calculated from the clock when it is requested. A countdown can have a listener, which the clock notifies when the countdown expires.
 *	@author: Lance Baker.
 **/
 
-public class GameTimer implements ActionListener, Serializable {
+public class GameTimer implements Serializable {
 		public static final long serialVersionUID = 1L;
 		public enum Status { TICKING, PAUSED, STOPPED }; // The GameTimer has three states, whether the clock is ticking, paused, or stopped.
 		public enum Type { STOPWATCH, COUNTDOWN }; // There are two types of GameTimers - the Stopwatch increments time, whereas the Countdown decrements.
-		
+
+		// The Listener gets notified when a countdown expires.
+		public interface Listener {
+			void expired(GameTimer timer);
+		}
+
 		private static final int ONE_SECOND = 1000; // Default value for one second.
 		private static final int ZERO = 0;
-		
+
+		private GameClock clock; // The clock which the time is read from.
 		private Type type; // The type of the GameTimer, whether its a Stopwatch or CountDown clock.
-		private int seconds; // Total count of seconds.
-		private Timer timer; // The Timer object, which uses the javax.swing.Timer.
+		private int seconds; // The seconds which the timer was set to.
 		private Status status; // The status of the timer, whether its ticking, paused, or stopped.
-		
-		public GameTimer (Type type) {
-			// Uses the java api javax.swing.Timer class, which executes the actionPerformed every second.
-			this.timer = new Timer(ONE_SECOND, this);
-			this.timer.setInitialDelay(0);
+		private boolean running; // Whether the timer has been started since it was set.
+		private long elapsed; // The milliseconds the timer has been ticking for, up until it was last resumed.
+		private long resumed; // The clock time when the timer was last started or resumed.
+		private int version; // Incremented whenever the timer changes, so that any expiry scheduled beforehand gets ignored.
+		private transient Listener listener; // The listener notified when the countdown expires.
+
+		public GameTimer(GameClock clock, Type type) {
+			this.clock = clock; // The clock which the time is read from.
 			this.type = type; // The type of GameTimer.
 		}
-		
+
+		public void setListener(Listener listener) {
+			this.listener = listener; // Sets the listener for when the countdown expires.
+			this.schedule();
+		}
+
 		public void set(int seconds) {
 			this.seconds = seconds; // Sets the seconds.
-			this.timer.stop(); // Stops the timer.
+			this.running = false; // Stops the timer.
+			this.elapsed = ZERO;
+			this.schedule();
 		}
-		
+
 		public void start() {
-			this.timer.start(); // Starts the timer.
+			if (!this.running) { // Starting a timer which is already running has no effect on its time.
+				this.running = true;
+				this.elapsed = ZERO;
+				this.resumed = this.clock.now();
+				this.status = null;
+			}
 			this.setStatus(Status.TICKING); // Sets the status to ticking.
 		}
-		
+
 		public void setStatus(Status status) {
+			if (this.running && this.status != status) {
+				if (this.status == Status.TICKING) {
+					this.elapsed += (this.clock.now() - this.resumed); // Keeps the time which has passed up until the timer was paused or stopped.
+				} else if (status == Status.TICKING) {
+					this.resumed = this.clock.now(); // The timer continues from the current clock time.
+				}
+			}
 			this.status = status; // Sets the status
+			this.schedule();
 		}
-				
-		public void actionPerformed(ActionEvent e) {
-			// Only proceeds if the status of the timer is in a ticking state. The seconds are either incremented or decremented depending on the type of clock.
-			if (this.status == Status.TICKING) this.seconds = (type == Type.STOPWATCH ) ? ++this.seconds: --this.seconds;
-			if (this.seconds <= ZERO) this.timer.stop(); // If the seconds are less than or equal to zero, it will stop the timer.
+
+		public Status getStatus() {
+			return this.status;
 		}
-		
+
+		// Gets the amount of whole seconds that have ticked by. The first second ticks as soon as the timer is started.
+		private int getTicks() {
+			if (!this.running) return ZERO;
+			long elapsed = this.elapsed + ((this.status == Status.TICKING) ? (this.clock.now() - this.resumed) : ZERO);
+			return (int)(elapsed / ONE_SECOND) + 1;
+		}
+
 		public int getTime() {
-			return this.seconds; // gets the time.
+			// The seconds are either incremented or decremented depending on the type of clock. A countdown stops once it reaches zero.
+			return (this.type == Type.STOPWATCH) ? (this.seconds + this.getTicks()) : Math.max(this.seconds - this.getTicks(), ZERO);
+		}
+
+		// Schedules the expiry of a ticking countdown with the clock, if there is a listener to be notified.
+		private void schedule() {
+			this.version++; // Any expiry scheduled beforehand is no longer valid.
+			if (this.listener != null && this.type == Type.COUNTDOWN && this.running && this.status == Status.TICKING) {
+				// The countdown expires once the ticks reach the seconds, the first tick being straight away.
+				long remaining = Math.max(((long)(this.seconds - 1) * ONE_SECOND) - this.elapsed, ZERO);
+				this.clock.schedule(this, this.resumed + remaining, this.version);
+			}
+		}
+
+		// Called by the clock when a scheduled expiry is due.
+		void expire(int version) {
+			if (version == this.version && this.listener != null) this.listener.expired(this);
 		}
-}
\ No newline at end of file
+}
@@ -0,0 +1,321 @@
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+/**
+*	The Leaderboard is a index of the results journal, which orders the completed games by their total score for each of the difficulty levels; along with the best game of each player.
+*	The results themselves stay in the journal, the index only holds the score and the record index of each game; therefore a game is read from the journal (through the MappedResults) when it is displayed.
+*	The games of each difficulty level are kept in a ScoreTree, which finds the top games, the rank of a score, and the game at a rank in logarithmic time. The players are kept in a sorted map by their name.
+*	The index is added to as each game is written to the journal. It is saved to the index file when the results are saved, and when it is next opened only the games written to the journal since are added to it.
+*	If the index file is missing or doesn't match the journal, the index is built from the whole journal instead.
+*
+*	Index file layout: the MAGIC (int), the VERSION (short), the amount of difficulty levels (short), the amount of journal records in the index (long);
+*	then for each difficulty level the amount of games (int) followed by the score (int) and record index (int) of each game in rank order;
+*	then the amount of players (int) followed by each player name (a short length and UTF-8) with the best score (int) and record index (int) for each difficulty level.
+**/
+
+public class Leaderboard implements ResultsJournal.Listener {
+		public static final int MAGIC = 0x534E4B49; // "SNKI"
+		public static final short VERSION = 1;
+		private static final int HEADER_SIZE = 16;
+		private static final int NONE = -1; // The record index when there isn't a game.
+		private static final Charset UTF8 = Charset.forName("UTF-8");
+		private static final String TEMP_SUFFIX = ".tmp";
+
+		private String filename; // The name of the index file.
+		private ScoreTree[] scores; // The games of each difficulty level, indexed by the DifficultyLevel ordinal position.
+		private TreeMap<String, int[]> players = new TreeMap<String, int[]>(); // The best score and record index for each difficulty level, of each player.
+		private long records; // The amount of journal records in the index.
+
+		private Leaderboard(String filename) {
+				this.filename = filename;
+				this.clear();
+		}
+
+		// Opens the index file received for the journal file received, adding any games written to the journal since the index was saved.
+		public static Leaderboard open(String journalFile, String indexFile) throws IOException {
+				Leaderboard leaderboard = new Leaderboard(indexFile);
+				MappedResults results = MappedResults.open(journalFile);
+				if (!leaderboard.load() || leaderboard.records > results.size()) {
+					leaderboard.clear(); // The index doesn't match the journal, so therefore it is built from the start of the journal.
+				}
+				for (int record = (int)leaderboard.records; record < results.size(); record++) {
+					if (results.isValid(record)) leaderboard.add(record, results.get(record));
+				}
+				leaderboard.records = results.size();
+				return leaderboard;
+		}
+
+		private void clear() {
+				this.scores = new ScoreTree[SnakeGame.DifficultyLevel.values().length];
+				for (int i = 0; i < this.scores.length; i++) this.scores[i] = new ScoreTree();
+				this.players.clear();
+				this.records = 0;
+		}
+
+		// Called by the journal as each result is written, with the index of its record.
+		public synchronized void written(long record, GameResult result) {
+				if (record >= this.records) {
+					this.add((int)record, result);
+					this.records = record + 1;
+				}
+		}
+
+		// Adds the result of a completed game to the index.
+		private void add(int record, GameResult result) {
+				if (!result.isCompleted()) return;
+				int level = result.getDifficulty().ordinal();
+				this.scores[level].insert(result.getScore(), record);
+				int[] best = this.players.get(result.getPlayer());
+				if (best == null) {
+					best = new int[this.scores.length * 2];
+					for (int i = 0; i < this.scores.length; i++) best[(i * 2) + 1] = NONE;
+					this.players.put(result.getPlayer(), best);
+				}
+				if (best[(level * 2) + 1] == NONE || result.getScore() > best[level * 2]) {
+					best[level * 2] = result.getScore();
+					best[(level * 2) + 1] = record;
+				}
+		}
+
+		// Gets the amount of games of the difficulty level received.
+		public synchronized int size(SnakeGame.DifficultyLevel difficulty) {
+				return this.scores[difficulty.ordinal()].size();
+		}
+
+		// Gets the record index of the game at the rank received (the best game being at rank one).
+		public synchronized int getRecord(SnakeGame.DifficultyLevel difficulty, int rank) {
+				return this.scores[difficulty.ordinal()].select(rank - 1);
+		}
+
+		// Gets the record indexes of the top games of the difficulty level received, best first.
+		public synchronized int[] getTop(SnakeGame.DifficultyLevel difficulty, int count) {
+				int[] top = new int[Math.min(count, this.size(difficulty))];
+				for (int i = 0; i < top.length; i++) top[i] = this.getRecord(difficulty, i + 1);
+				return top;
+		}
+
+		// Gets the rank which the score received would have for the difficulty level received.
+		public synchronized int getRank(SnakeGame.DifficultyLevel difficulty, int score) {
+				return this.scores[difficulty.ordinal()].countAbove(score) + 1;
+		}
+
+		// Gets the record index of the best game of the player for the difficulty level received, or -1 if the player hasn't completed a game at that level.
+		public synchronized int getBest(String player, SnakeGame.DifficultyLevel difficulty) {
+				int[] best = this.players.get(player);
+				return (best != null) ? best[(difficulty.ordinal() * 2) + 1] : NONE;
+		}
+
+		// Saves the index to the index file. It is written to a temporary file first, which then replaces the index file.
+		public synchronized void save() throws IOException {
+				int length = HEADER_SIZE + 4;
+				for (ScoreTree tree : this.scores) length += 4 + (tree.size() * 8);
+				for (String player : this.players.keySet()) length += 2 + player.getBytes(UTF8).length + (this.scores.length * 8);
+				ByteBuffer buffer = ByteBuffer.allocate(length);
+				buffer.putInt(MAGIC).putShort(VERSION).putShort((short)this.scores.length).putLong(this.records);
+				for (ScoreTree tree : this.scores) {
+					buffer.putInt(tree.size());
+					tree.write(buffer);
+				}
+				buffer.putInt(this.players.size());
+				for (Map.Entry<String, int[]> player : this.players.entrySet()) {
+					byte[] name = player.getKey().getBytes(UTF8);
+					buffer.putShort((short)name.length).put(name);
+					for (int value : player.getValue()) buffer.putInt(value);
+				}
+				buffer.flip();
+
+				Path target = Paths.get(this.filename);
+				Path temp = Paths.get(this.filename + TEMP_SUFFIX);
+				FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+				try {
+					while (buffer.hasRemaining()) channel.write(buffer);
+					channel.force(true);
+				} finally {
+					channel.close();
+				}
+				try {
+					Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+				} catch (AtomicMoveNotSupportedException ex) {
+					Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+				}
+		}
+
+		// Loads the index from the index file, returning false if there isn't a index file or it can't be read.
+		private boolean load() {
+				Path path = Paths.get(this.filename);
+				if (!Files.exists(path)) return false;
+				try {
+					ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path));
+					if (buffer.getInt() != MAGIC || buffer.getShort() != VERSION || buffer.getShort() != this.scores.length) return false;
+					this.records = buffer.getLong();
+					for (ScoreTree tree : this.scores) {
+						for (int i = buffer.getInt(); i > 0; i--) tree.insert(buffer.getInt(), buffer.getInt());
+					}
+					for (int i = buffer.getInt(); i > 0; i--) {
+						byte[] name = new byte[buffer.getShort() & 0xFFFF];
+						buffer.get(name);
+						int[] best = new int[this.scores.length * 2];
+						for (int j = 0; j < best.length; j++) best[j] = buffer.getInt();
+						this.players.put(new String(name, UTF8), best);
+					}
+					return true;
+				} catch (IOException ex) {
+					System.out.println("Can't Read Leaderboard " + ex.getMessage());
+				} catch (BufferUnderflowException ex) {
+					System.out.println("Leaderboard Is Incomplete, It Will Be Rebuilt");
+				}
+				return false;
+		}
+
+		/**
+		*	The ScoreTree holds the games of one difficulty level ordered by score, the highest first (and the earliest first for the same score).
+		*	It is a treap (a binary search tree which is kept balanced by giving each node a random priority), which also keeps the size of each subtree.
+		*	The sizes allow the rank of a score, and the game at a rank, to be found by walking down the tree. The nodes are stored in arrays, as the games are never removed.
+		**/
+		private static class ScoreTree {
+				private long[] keys = new long[16]; // The score and record index of each node (see the key method).
+				private int[] left = new int[16];
+				private int[] right = new int[16];
+				private int[] sizes = new int[16];
+				private int[] priorities = new int[16];
+				private int count; // The amount of nodes.
+				private int root = NONE;
+				private Random random = new Random();
+				private int splitLeft, splitRight; // The two trees which the last split produced.
+
+				// The key orders the games by the highest score, then by the lowest record index; the score (negated) is the high half, and the record index the low half.
+				private static long key(int score, int record) {
+						return (-(long)score << 32) | (record & 0xFFFFFFFFL);
+				}
+
+				private int size() {
+						return this.count;
+				}
+
+				private void insert(int score, int record) {
+						if (this.count == this.keys.length) { // Doubles the arrays when they are full.
+							int capacity = this.count * 2;
+							this.keys = Arrays.copyOf(this.keys, capacity);
+							this.left = Arrays.copyOf(this.left, capacity);
+							this.right = Arrays.copyOf(this.right, capacity);
+							this.sizes = Arrays.copyOf(this.sizes, capacity);
+							this.priorities = Arrays.copyOf(this.priorities, capacity);
+						}
+						int node = this.count++;
+						this.keys[node] = key(score, record);
+						this.left[node] = NONE;
+						this.right[node] = NONE;
+						this.sizes[node] = 1;
+						this.priorities[node] = this.random.nextInt();
+						this.root = this.attach(this.root, node);
+				}
+
+				// Attaches the node to the tree received, returning the root of the tree.
+				private int attach(int tree, int node) {
+						if (tree == NONE) return node;
+						if (this.priorities[node] > this.priorities[tree]) { // The node becomes the root of this tree, with the tree split either side of it.
+							this.split(tree, this.keys[node]);
+							this.left[node] = this.splitLeft;
+							this.right[node] = this.splitRight;
+							this.update(node);
+							return node;
+						}
+						if (this.keys[node] < this.keys[tree]) {
+							this.left[tree] = this.attach(this.left[tree], node);
+						} else {
+							this.right[tree] = this.attach(this.right[tree], node);
+						}
+						this.update(tree);
+						return tree;
+				}
+
+				// Splits the tree into the nodes with a key lower than the key received (splitLeft), and the rest (splitRight).
+				private void split(int tree, long key) {
+						if (tree == NONE) {
+							this.splitLeft = NONE;
+							this.splitRight = NONE;
+						} else if (this.keys[tree] < key) {
+							this.split(this.right[tree], key);
+							this.right[tree] = this.splitLeft;
+							this.update(tree);
+							this.splitLeft = tree;
+						} else {
+							this.split(this.left[tree], key);
+							this.left[tree] = this.splitRight;
+							this.update(tree);
+							this.splitRight = tree;
+						}
+				}
+
+				private void update(int node) {
+						this.sizes[node] = 1 + this.sizeOf(this.left[node]) + this.sizeOf(this.right[node]);
+				}
+
+				private int sizeOf(int node) {
+						return (node == NONE) ? 0 : this.sizes[node];
+				}
+
+				// Counts the games with a higher score than the score received.
+				private int countAbove(int score) {
+						long key = key(score, 0);
+						int above = 0;
+						for (int node = this.root; node != NONE;) {
+							if (this.keys[node] < key) {
+								above += this.sizeOf(this.left[node]) + 1;
+								node = this.right[node];
+							} else {
+								node = this.left[node];
+							}
+						}
+						return above;
+				}
+
+				// Gets the record index of the game at the index received, in rank order.
+				private int select(int index) {
+						int node = this.find(index);
+						return (node != NONE) ? (int)this.keys[node] : NONE;
+				}
+
+				// Writes the score and record index of each game in rank order.
+				private void write(ByteBuffer buffer) {
+						this.write(this.root, buffer);
+				}
+
+				private void write(int node, ByteBuffer buffer) {
+						if (node == NONE) return;
+						this.write(this.left[node], buffer);
+						buffer.putInt((int)-(this.keys[node] >> 32)).putInt((int)this.keys[node]);
+						this.write(this.right[node], buffer);
+				}
+
+				// Gets the node at the index received, in rank order.
+				private int find(int index) {
+						int node = this.root;
+						while (node != NONE) {
+							int leftSize = this.sizeOf(this.left[node]);
+							if (index < leftSize) {
+								node = this.left[node];
+							} else if (index == leftSize) {
+								return node;
+							} else {
+								index -= leftSize + 1;
+								node = this.right[node];
+							}
+						}
+						return NONE;
+				}
+		}
+}
@@ -0,0 +1,242 @@
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+*	The LegacySaveReader reads the results from a save file of the older versions of the game, which serialized the whole LinkedList<SnakeGame>.
+*	Those files hold every object which the games referred to (such as the Swing timers, and the images of the items), and the classes of most of them have changed since; therefore the file can't simply be deserialized.
+*	Instead the reader walks through the serialization stream itself, keeping the field values of each object without creating the objects, and picks out the fields of each SnakeGame which the results need.
+**/
+
+public class LegacySaveReader {
+		// The type codes of the serialization stream.
+		private static final int TC_NULL = 0x70, TC_REFERENCE = 0x71, TC_CLASSDESC = 0x72, TC_OBJECT = 0x73, TC_STRING = 0x74, TC_ARRAY = 0x75, TC_CLASS = 0x76,
+								TC_BLOCKDATA = 0x77, TC_ENDBLOCKDATA = 0x78, TC_RESET = 0x79, TC_BLOCKDATALONG = 0x7A, TC_EXCEPTION = 0x7B,
+								TC_LONGSTRING = 0x7C, TC_PROXYCLASSDESC = 0x7D, TC_ENUM = 0x7E;
+		private static final int BASE_HANDLE = 0x7E0000; // The first handle of the stream.
+		private static final int SC_WRITE_METHOD = 0x01, SC_SERIALIZABLE = 0x02, SC_EXTERNALIZABLE = 0x04, SC_BLOCK_DATA = 0x08; // The class description flags.
+		private static final short STREAM_MAGIC = (short)0xACED;
+		private static final Object END_BLOCK = new Object(); // Returned when the end of a block of custom data is reached.
+
+		// The description of a class in the stream.
+		private static class ClassDesc {
+				private String name;
+				private int flags;
+				private char[] types; // The type code of each field.
+				private String[] fields; // The name of each field.
+				private ClassDesc superDesc;
+		}
+
+		// A object in the stream, which keeps the values of its fields (including those of its super classes) and any objects it wrote itself.
+		private static class Instance {
+				private ClassDesc desc;
+				private Map<String, Object> values = new HashMap<String, Object>();
+				private List<Object> written = new ArrayList<Object>();
+		}
+
+		private DataInputStream in;
+		private List<Object> handles = new ArrayList<Object>(); // The objects in the stream, by their handle.
+
+		private LegacySaveReader(DataInputStream in) {
+				this.in = in;
+		}
+
+		// Returns a boolean depicting whether the first bytes of a file received are those of a serialized file.
+		public static boolean isLegacy(byte first, byte second) {
+				return ((short)(((first & 0xFF) << 8) | (second & 0xFF)) == STREAM_MAGIC);
+		}
+
+		// Reads the results of the games in the legacy save file.
+		public static List<GameResult> read(String filename) throws IOException {
+				DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(filename)));
+				try {
+					if (in.readShort() != STREAM_MAGIC) throw new StreamCorruptedException("Not A Saved Game File");
+					in.readShort(); // The stream version.
+					LegacySaveReader reader = new LegacySaveReader(in);
+					List<GameResult> results = new ArrayList<GameResult>();
+					Object root = reader.readContent();
+					if (root instanceof Instance) reader.collect((Instance)root, results);
+					return results;
+				} finally {
+					in.close();
+				}
+		}
+
+		// Adds the result of each SnakeGame which the list wrote.
+		private void collect(Instance list, List<GameResult> results) {
+				for (Object element : list.written) {
+					if (element instanceof Instance && ((Instance)element).desc.name.equals("SnakeGame")) {
+						Instance game = (Instance)element;
+						String player = (String)game.values.get("playerName");
+						int points = this.intValue(game, "totalPoints");
+						int level = this.intValue(game, "gameLevel");
+						int time = this.intValue((Instance)game.values.get("timer"), "seconds"); // The stopwatch counted the seconds itself.
+						int size = this.intValue((Instance)game.values.get("snake"), "size"); // The snake was a ArrayList of its body.
+						SnakeGame.DifficultyLevel difficulty = SnakeGame.DifficultyLevel.valueOf(String.valueOf(game.values.get("difficultyLevel")));
+						boolean completed = SnakeGame.GameMode.GAMEOVER.name().equals(String.valueOf(game.values.get("mode")));
+						// The score formula of the game: ((TotalPoints + (SnakeSize * GameTime)) * GameLevel) * DifficultyLevel
+						int score = ((points + (size * time)) * level) * (difficulty.ordinal() + 1);
+						results.add(new GameResult(player, difficulty, completed, points, level, time, score));
+					}
+				}
+		}
+
+		// Gets the int field of the object received, or zero if it doesn't have one.
+		private int intValue(Instance instance, String field) {
+				Object value = (instance != null) ? instance.values.get(field) : null;
+				return (value instanceof Integer) ? (Integer)value : 0;
+		}
+
+		// Reads the next item in the stream.
+		private Object readContent() throws IOException {
+				int code = this.in.readUnsignedByte();
+				switch (code) {
+					case TC_NULL:
+						return null;
+					case TC_REFERENCE:
+						return this.handles.get(this.in.readInt() - BASE_HANDLE);
+					case TC_CLASSDESC:
+					case TC_PROXYCLASSDESC:
+						return this.readClassDesc(code);
+					case TC_OBJECT:
+						return this.readObject();
+					case TC_STRING:
+						return this.newHandle(this.in.readUTF());
+					case TC_LONGSTRING:
+						byte[] bytes = new byte[(int)this.in.readLong()];
+						this.in.readFully(bytes);
+						return this.newHandle(new String(bytes, "UTF-8"));
+					case TC_ARRAY:
+						return this.readArray();
+					case TC_CLASS:
+						ClassDesc desc = (ClassDesc)this.readContent();
+						return this.newHandle(desc);
+					case TC_ENUM:
+						this.readContent(); // The enum class.
+						int handle = this.handles.size();
+						this.newHandle(null);
+						String constant = (String)this.readContent(); // The enum is kept as the name of the constant.
+						this.handles.set(handle, constant);
+						return constant;
+					case TC_BLOCKDATA:
+						this.skip(this.in.readUnsignedByte());
+						return this.readContent(); // The primitive data written by a object isn't needed.
+					case TC_BLOCKDATALONG:
+						this.skip(this.in.readInt());
+						return this.readContent();
+					case TC_ENDBLOCKDATA:
+						return END_BLOCK;
+					case TC_RESET:
+						this.handles.clear();
+						return this.readContent();
+					case TC_EXCEPTION:
+						throw new StreamCorruptedException("The Game Was Saved With A Error");
+					default:
+						throw new StreamCorruptedException("Invalid Type Code " + code);
+				}
+		}
+
+		// Reads a class description.
+		private ClassDesc readClassDesc(int code) throws IOException {
+				ClassDesc desc = new ClassDesc();
+				if (code == TC_PROXYCLASSDESC) {
+					desc.name = "$Proxy";
+					this.newHandle(desc);
+					for (int i = this.in.readInt(); i > 0; i--) this.in.readUTF(); // The interfaces.
+					desc.flags = SC_SERIALIZABLE;
+					desc.types = new char[0];
+					desc.fields = new String[0];
+				} else {
+					desc.name = this.in.readUTF();
+					this.in.readLong(); // The serialVersionUID.
+					this.newHandle(desc);
+					desc.flags = this.in.readUnsignedByte();
+					int count = this.in.readShort();
+					desc.types = new char[count];
+					desc.fields = new String[count];
+					for (int i = 0; i < count; i++) {
+						desc.types[i] = (char)this.in.readUnsignedByte();
+						desc.fields[i] = this.in.readUTF();
+						if (desc.types[i] == 'L' || desc.types[i] == '[') this.readContent(); // The class name of the field.
+					}
+				}
+				this.readUntilEnd(null); // The class annotation.
+				Object superDesc = this.readContent();
+				desc.superDesc = (superDesc instanceof ClassDesc) ? (ClassDesc)superDesc : null;
+				return desc;
+		}
+
+		// Reads a object, along with the data of each of its classes from the top super class down.
+		private Instance readObject() throws IOException {
+				Instance instance = new Instance();
+				instance.desc = (ClassDesc)this.readContent();
+				this.newHandle(instance);
+				List<ClassDesc> hierarchy = new ArrayList<ClassDesc>();
+				for (ClassDesc desc = instance.desc; desc != null; desc = desc.superDesc) hierarchy.add(0, desc);
+				for (ClassDesc desc : hierarchy) {
+					if ((desc.flags & SC_EXTERNALIZABLE) != 0) {
+						if ((desc.flags & SC_BLOCK_DATA) == 0) throw new StreamCorruptedException("Can't Read " + desc.name);
+						this.readUntilEnd(instance.written);
+					} else if ((desc.flags & SC_SERIALIZABLE) != 0) {
+						for (int i = 0; i < desc.fields.length; i++) {
+							instance.values.put(desc.fields[i], this.readValue(desc.types[i]));
+						}
+						if ((desc.flags & SC_WRITE_METHOD) != 0) this.readUntilEnd(instance.written); // The data the object wrote itself.
+					}
+				}
+				return instance;
+		}
+
+		// Reads a array, keeping the elements only if they are objects.
+		private Object readArray() throws IOException {
+				ClassDesc desc = (ClassDesc)this.readContent();
+				int handle = this.handles.size();
+				this.newHandle(null);
+				int length = this.in.readInt();
+				char type = desc.name.charAt(1);
+				Object[] elements = (type == 'L' || type == '[') ? new Object[length] : null;
+				for (int i = 0; i < length; i++) {
+					Object value = this.readValue(type);
+					if (elements != null) elements[i] = value;
+				}
+				this.handles.set(handle, elements);
+				return elements;
+		}
+
+		// Reads a value of the type code received.
+		private Object readValue(char type) throws IOException {
+				switch (type) {
+					case 'B': return this.in.readByte();
+					case 'C': return this.in.readChar();
+					case 'D': return this.in.readDouble();
+					case 'F': return this.in.readFloat();
+					case 'I': return this.in.readInt();
+					case 'J': return this.in.readLong();
+					case 'S': return this.in.readShort();
+					case 'Z': return this.in.readBoolean();
+					default: return this.readContent();
+				}
+		}
+
+		// Reads the items up until the end of a block of custom data, keeping the objects in the list received.
+		private void readUntilEnd(List<Object> written) throws IOException {
+				for (Object content = this.readContent(); content != END_BLOCK; content = this.readContent()) {
+					if (written != null) written.add(content);
+				}
+		}
+
+		private Object newHandle(Object object) {
+				this.handles.add(object);
+				return object;
+		}
+
+		private void skip(int length) throws IOException {
+				this.in.readFully(new byte[length]);
+		}
+}
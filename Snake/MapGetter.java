@@ -1,32 +1,144 @@
-import java.util.ArrayList;
 import java.io.BufferedReader;
-import java.io.File;
-import java.io.FileReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.io.IOException;
-import java.io.FileNotFoundException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.BitSet;
 
 /**
-*	The MapGetter reads a file in the Game Map format. It adds any walls to itself.
+*	The MapGetter reads a file in the Game Map format, into a GameMap.
+*	Each line of the file is a row of blocks, and each character is a block; any character which is the WALL_CODE is a wall block.
+*	It also reads and writes the chunked map files of the large worlds, which are read into a WorldMap. A chunked map file starts with a header (WORLD_MAGIC, WORLD_VERSION, the columns, the rows and the CHUNK_BLOCKS),
+*	followed by a table with a int for each chunk (the number of the chunk in the file, or zero if it doesn't have any walls), followed by the bits of each chunk which has walls (CHUNK_LONGS longs each).
 *	@author: Lance Baker.
 **/
 
-public class MapGetter extends ArrayList<Wall> implements Constants {
-		private static final long serialVersionUID = 1L;
-		
-		// Recieves a File object.
-		public MapGetter(File file) throws FileNotFoundException, IOException { // Throws File Exceptions
-			if (!file.exists()) throw new FileNotFoundException(file.getName()); // Checks if the file object received exists in the game directory
-			
+public class MapGetter implements Constants {
+		public static final int WORLD_MAGIC = 0x534E4B57; // "SNKW"
+		public static final int WORLD_VERSION = 1;
+		private static final int WORLD_HEADER = 20; // The length of the header, in bytes.
+
+		// Reads the map from the stream received, which is closed once it has been read.
+		public static GameMap read(String name, InputStream stream) throws IOException { // Throws File Exceptions
+			BitSet blocks = new BitSet();
+			int columns = 0; // The number of blocks across the map, which is the length of the longest line.
+			StringBuilder map = new StringBuilder();
 			int y = 0; // counter for the y coordinates.
-			BufferedReader br = new BufferedReader(new FileReader(file));
-			for (String line = br.readLine(); line != null; line = br.readLine(), y++) { // Iterates for each read line. Increments the y coordinate as it moves down.
-				if (line != null) { // Ensures the following isnt done if the line value is null.
-					for (int x = 0; x < line.length(); x++) { // For each character on the line, it is a Grid location. Increments the x coordinate as it moves across.
-						char character = line.charAt(x); // Gets the character at the x coordinate.
-						// Therefore if the character is equal to the WALL_CODE - it adds the wall at the given position to itself.
-						if (character == WALL_CODE) this.add( new Wall((x  * GRID_SIZE) , (y  * GRID_SIZE)) );
+			BufferedReader br = new BufferedReader(new InputStreamReader(stream, "US-ASCII"));
+			try {
+				// The lines are kept first, as the width of the map isn't known until all of the lines are read.
+				for (String line = br.readLine(); line != null; line = br.readLine(), y++) { // Iterates for each read line. Increments the y coordinate as it moves down.
+					columns = Math.max(columns, line.length());
+					map.append(line).append('\n');
+				}
+			} finally {
+				br.close();
+			}
+			int x = 0;
+			y = 0;
+			for (int i = 0; i < map.length(); i++) { // For each character, it is a Grid location. Increments the x coordinate as it moves across.
+				char character = map.charAt(i);
+				if (character == '\n') {
+					x = 0;
+					y++; // Moves down to the next row.
+				} else {
+					// Therefore if the character is equal to the WALL_CODE - it sets the block at the given position.
+					if (character == WALL_CODE) blocks.set((y * columns) + x);
+					x++;
+				}
+			}
+			return new GameMap(name, columns, y, blocks);
+		}
+
+		// Opens the chunked map file received; only the header and the table of the chunks are read, the chunks themselves are read by the WorldMap when they are needed.
+		public static WorldMap readWorld(Path path) throws IOException {
+			FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+			try {
+				ByteBuffer header = ByteBuffer.allocate(WORLD_HEADER);
+				readFully(channel, header, 0);
+				if (header.getInt() != WORLD_MAGIC || header.getInt() != WORLD_VERSION) throw new IOException("Not A World Map File");
+				int columns = header.getInt();
+				int rows = header.getInt();
+				if (columns <= ZERO || rows <= ZERO || header.getInt() != WorldMap.CHUNK_BLOCKS) throw new IOException("World Map File Is Damaged");
+				int count = chunkCount(columns) * chunkCount(rows);
+				ByteBuffer table = ByteBuffer.allocate(count * 4);
+				readFully(channel, table, WORLD_HEADER);
+				int[] chunks = new int[count];
+				table.asIntBuffer().get(chunks);
+				return new WorldMap(channel, columns, rows, chunks, WORLD_HEADER + table.capacity());
+			} catch (IOException ex) {
+				channel.close();
+				throw ex;
+			}
+		}
+
+		// Writes a chunked map file of the size received (in blocks), with the walls of the source; the chunks are written one at a time, so the whole world is never held.
+		public static void writeWorld(Path path, int columns, int rows, WorldMap.Source source) throws IOException {
+			int chunkColumns = chunkCount(columns);
+			int chunkRows = chunkCount(rows);
+			ByteBuffer table = ByteBuffer.allocate(chunkColumns * chunkRows * 4);
+			ByteBuffer chunk = ByteBuffer.allocate(WorldMap.CHUNK_LONGS * 8);
+			long[] bits = new long[WorldMap.CHUNK_LONGS];
+			FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+			try {
+				long position = WORLD_HEADER + table.capacity(); // The chunks follow the table, which is written once all of the chunks are.
+				int written = 0;
+				for (int chunkRow = 0; chunkRow < chunkRows; chunkRow++) {
+					for (int chunkColumn = 0; chunkColumn < chunkColumns; chunkColumn++) {
+						boolean empty = true;
+						Arrays.fill(bits, 0L);
+						for (int row = 0; row < WorldMap.CHUNK_BLOCKS; row++) {
+							for (int column = 0; column < WorldMap.CHUNK_BLOCKS; column++) {
+								int x = (chunkColumn * WorldMap.CHUNK_BLOCKS) + column;
+								int y = (chunkRow * WorldMap.CHUNK_BLOCKS) + row;
+								if (x < columns && y < rows && source.isWall(x, y)) {
+									int bit = (row * WorldMap.CHUNK_BLOCKS) + column;
+									bits[bit >>> 6] |= 1L << bit;
+									empty = false;
+								}
+							}
+						}
+						if (empty) {
+							table.putInt(ZERO);
+						} else {
+							table.putInt(++written);
+							chunk.clear();
+							chunk.asLongBuffer().put(bits);
+							position += writeFully(channel, chunk, position);
+						}
 					}
 				}
+				ByteBuffer header = ByteBuffer.allocate(WORLD_HEADER);
+				header.putInt(WORLD_MAGIC).putInt(WORLD_VERSION).putInt(columns).putInt(rows).putInt(WorldMap.CHUNK_BLOCKS);
+				header.flip();
+				writeFully(channel, header, 0);
+				table.flip();
+				writeFully(channel, table, WORLD_HEADER);
+			} finally {
+				channel.close();
+			}
+		}
+
+		// Gets the amount of chunks needed to cover the blocks received.
+		private static int chunkCount(int blocks) {
+			return (blocks + WorldMap.CHUNK_BLOCKS - ONE) / WorldMap.CHUNK_BLOCKS;
+		}
+
+		private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+			while (buffer.hasRemaining()) {
+				if (channel.read(buffer, position + buffer.position()) < 0) throw new IOException("World Map File Is Cut Short");
 			}
+			buffer.flip();
+		}
+
+		// Writes all of the buffer at the position received, and returns the amount written.
+		private static int writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+			int length = buffer.remaining();
+			while (buffer.hasRemaining()) channel.write(buffer, position + (length - buffer.remaining()));
+			return length;
 		}
 }
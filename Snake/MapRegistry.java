@@ -0,0 +1,102 @@
+import java.io.File;
+import java.io.InputStream;
+import java.io.IOException;
+import java.net.JarURLConnection;
+import java.net.URL;
+import java.util.Enumeration;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+/**
+*	The MapRegistry finds all of the game maps in the maps directory of the classpath, and reads each of them once for the life of the application.
+*	The maps directory is found whether the game is run from a directory or from the jar; the names of the maps are listed from the directory itself, or from the entries of the jar.
+*	The maps are kept in a array sorted by their name, so therefore a random map is selected with a single index, and changing level doesn't read any files.
+**/
+
+public class MapRegistry implements Constants {
+		private static volatile GameMap[] maps; // The game maps, sorted by name. It is volatile as the maps are read without locking, so therefore a thread which finds the array set also sees it filled in.
+
+		// Finds and reads all of the maps, if they haven't been loaded already.
+		public static synchronized void load() {
+				if (maps != null) return;
+				SortedSet<String> names = new TreeSet<String>();
+				try {
+					URL dirURL = MapRegistry.class.getClassLoader().getResource(MAP_PATH); // Gets the maps directory.
+					if (dirURL != null && dirURL.getProtocol().equals("file")) {
+						listDirectory(new File(dirURL.toURI()), names);
+					} else if (dirURL != null && dirURL.getProtocol().equals("jar")) {
+						listJar(((JarURLConnection)dirURL.openConnection()).getJarFile(), names);
+					} else {
+						// A jar doesn't always have a entry for the directory itself, so therefore the maps are looked for where the game's classes were loaded from.
+						URL source = MapRegistry.class.getProtectionDomain().getCodeSource().getLocation();
+						File location = new File(source.toURI());
+						if (location.isDirectory()) {
+							listDirectory(new File(location, MAP_PATH), names);
+						} else if (location.isFile()) {
+							JarFile jar = new JarFile(location);
+							try {
+								listJar(jar, names);
+							} finally {
+								jar.close();
+							}
+						}
+					}
+				} catch (Exception ex) {
+					System.out.println("Can't Load Game Map Files");
+				}
+				GameMap[] loaded = new GameMap[names.size()];
+				int count = 0;
+				for (String name : names) {
+					InputStream stream = MapRegistry.class.getClassLoader().getResourceAsStream(MAP_PATH + name);
+					try {
+						if (stream != null) loaded[count++] = MapGetter.read(name, stream);
+					} catch (IOException ex) {
+						System.out.println("Can't Load Map " + name);
+					}
+				}
+				GameMap[] read = new GameMap[count]; // Leaves out any maps which couldn't be read.
+				System.arraycopy(loaded, ZERO, read, ZERO, count);
+				maps = read; // Only set once the array is filled in.
+		}
+
+		// Adds the name of each file in the directory received.
+		private static void listDirectory(File directory, SortedSet<String> names) {
+				File[] files = directory.listFiles();
+				if (files == null) return;
+				for (File file : files) {
+					if (file.isFile()) names.add(file.getName());
+				}
+		}
+
+		// Adds the name of each file in the maps directory of the jar received.
+		private static void listJar(JarFile jar, SortedSet<String> names) {
+				for (Enumeration<JarEntry> entries = jar.entries(); entries.hasMoreElements();) {
+					JarEntry entry = entries.nextElement();
+					String name = entry.getName();
+					// Only the files directly within the maps directory are maps.
+					if (!entry.isDirectory() && name.startsWith(MAP_PATH) && name.indexOf('/', MAP_PATH.length()) < ZERO) {
+						names.add(name.substring(MAP_PATH.length()));
+					}
+				}
+		}
+
+		// Gets the amount of maps.
+		public static int size() {
+				if (maps == null) load(); // Loads the maps if they haven't been loaded yet.
+				return maps.length;
+		}
+
+		// Gets the map at the index received.
+		public static GameMap get(int index) {
+				if (maps == null) load();
+				return maps[index];
+		}
+
+		// Selects a random map using the random received, or returns null if there aren't any maps.
+		public static GameMap random(GameRandom random) {
+				if (maps == null) load();
+				return (maps.length > ZERO) ? maps[random.nextInt(maps.length)] : null;
+		}
+}
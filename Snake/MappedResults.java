@@ -0,0 +1,66 @@
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+*	The MappedResults is a read only view of the results journal, which maps the file into memory rather than reading it.
+*	Opening the view only reads the header, and a result is only decoded from its record when it is requested; so therefore the time to open the view and the memory it uses don't grow with the amount of results.
+*	The view holds the results which were in the file when it was opened, any results added to the journal afterwards aren't seen by it.
+**/
+
+public class MappedResults {
+		private ByteBuffer records; // The mapped records, starting after the header.
+		private int recordSize; // The size of each record, from the header.
+		private int size; // The amount of records.
+		private int lastIndex = -1; // The index of the last result decoded, which is kept as a table requests each column of a row one after another.
+		private GameResult last;
+
+		private MappedResults(ByteBuffer records, int recordSize) {
+				this.records = records;
+				this.recordSize = recordSize;
+				this.size = records.capacity() / recordSize;
+		}
+
+		// Maps the results journal received. The journal needs to have been flushed beforehand, for the latest results to be seen.
+		public static MappedResults open(String filename) throws IOException {
+				FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ);
+				try {
+					long length = channel.size();
+					if (length < ResultsFile.HEADER_SIZE) throw new StreamCorruptedException("Not A Results File");
+					MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, length); // The mapping stays valid after the channel is closed.
+					if (mapped.getInt(0) != ResultsFile.MAGIC || mapped.getShort(4) != ResultsFile.VERSION) throw new StreamCorruptedException("Not A Results Journal");
+					int recordSize = mapped.getShort(6) & 0xFFFF;
+					if (recordSize < ResultsFile.RECORD_SIZE) throw new StreamCorruptedException("Unsupported Results Record Size");
+					long records = (length - ResultsFile.HEADER_SIZE) / recordSize; // Leaves out a record which is still being written.
+					mapped.position(ResultsFile.HEADER_SIZE).limit((int)(ResultsFile.HEADER_SIZE + (records * recordSize)));
+					return new MappedResults(mapped.slice(), recordSize);
+				} finally {
+					channel.close();
+				}
+		}
+
+		// Gets the amount of results.
+		public int size() {
+				return this.size;
+		}
+
+		// Gets the result at the index received, decoding it from its record.
+		public synchronized GameResult get(int index) {
+				if (index != this.lastIndex) {
+					ByteBuffer record = this.records.duplicate();
+					record.position(index * this.recordSize);
+					this.last = ResultsFile.decode(record);
+					this.lastIndex = index;
+				}
+				return this.last;
+		}
+
+		// Returns a boolean depicting whether the checksum of the result at the index received is correct.
+		public boolean isValid(int index) {
+				return ResultsFile.isValid(this.records, index * this.recordSize, this.recordSize);
+		}
+}
@@ -0,0 +1,347 @@
+import java.io.Serializable;
+
+/**
+*	The OccupancyGrid stores what is occupying each cell of the game board, so therefore any collision can be found with a single cell lookup rather than checking through each body part of the snake.
+*	The snake body is counted in cells of the SNAKE_SIZE, whereas the walls and energy items are stored in blocks of the GRID_SIZE (each block holds four snake cells).
+*	The grid has to be kept up to date as the game changes; the Snake updates its cells as it moves, and the SnakeGame and GameEngine update it as the walls and items get added or removed.
+*	It also keeps a count of the snake cells which lie on a wall block, which allows a collision with any of the walls to be detected without checking through the walls.
+*	The board is the size of the panel, unless a larger size is received (such as for a Arena); the snake cells wrap around its edges.
+*	When more than one snake shares the grid, each body part is counted along with the id of its snake, and the square of its id; the parts in a cell all belong to one snake only if both sums are that many times its id (and its square), so a head which has run into another snake is told apart from one which has run into itself, without checking through the bodies.
+*	The board is stored in chunks of CHUNK_BLOCKS by CHUNK_BLOCKS blocks, each chunk only being created once something is added to it, and released once it is empty again;
+*	so therefore a large world only takes the memory of the chunks around the snakes and items, rather than of the whole world.
+*	Once a free block is asked for, it also keeps a index of the free blocks (without a wall, item or snake body part); a array of the free blocks, along with the position of each block in the array.
+*	A block which stops being free is removed by moving the last free block into its place, so therefore the index is kept up to date in constant time, and a random free block is picked with a single random number whatever the board holds.
+*	A OccupancyGrid.Listener can be registered to be notified of each cell or block which changes, so that only the changed parts of the board need to be redrawn.
+**/
+
+public class OccupancyGrid implements Constants, Serializable {
+		private static final long serialVersionUID = 1L;
+		private static final int CHUNK_SHIFT = 4;
+		public static final int CHUNK_BLOCKS = ONE << CHUNK_SHIFT; // The amount of blocks across and down each chunk.
+		private static final int BLOCK_MASK = CHUNK_BLOCKS - ONE;
+		private static final int CELL_MASK = (CHUNK_BLOCKS * 2) - ONE; // Each block is two snake cells across and down.
+
+		// The Listener gets notified when the contents of the board change.
+		public interface Listener {
+				void snakeChanged(int x, int y); // A snake body part was added to or removed from the snake cell at the coordinates.
+				void blockChanged(int x, int y); // A wall block or energy item was added to or removed from the block at the coordinates.
+		}
+
+		private int columns; // The number of snake cells across the board.
+		private int rows; // The number of snake cells down the board.
+		private int blockColumns; // The number of blocks across the board.
+		private int blockRows; // The number of blocks down the board.
+
+		private int chunkColumns; // The number of chunks across the board.
+		private Chunk[] chunks; // The chunks of the board, which are null whilst they are empty.
+		private int chunkCount; // The amount of chunks which have been created.
+		private int[] freeBlocks; // The index of each free block, which is only created once a free block is asked for.
+		private int[] freePositions; // The position of each block in the freeBlocks, or -1 if the block isn't free.
+		private int freeCount; // The amount of free blocks.
+		private int wallContacts; // The count of snake body parts which lie on a wall block.
+		private transient Listener listener; // The listener notified of the changes, which isn't saved with the game.
+
+		public OccupancyGrid() {
+				this(PANEL_WIDTH, PANEL_HEIGHT);
+		}
+
+		// The OccupancyGrid receives the width and height of the board, which must be multiples of the GRID_SIZE.
+		public OccupancyGrid(int width, int height) {
+				this.columns = width / SNAKE_SIZE;
+				this.rows = height / SNAKE_SIZE;
+				this.blockColumns = width / GRID_SIZE;
+				this.blockRows = height / GRID_SIZE;
+				this.chunkColumns = (this.blockColumns + BLOCK_MASK) >> CHUNK_SHIFT;
+				this.chunks = new Chunk[this.chunkColumns * ((this.blockRows + BLOCK_MASK) >> CHUNK_SHIFT)];
+		}
+
+		/**
+		*	The Chunk holds the contents of CHUNK_BLOCKS by CHUNK_BLOCKS blocks of the board, along with a count of what it holds so that it can be released once it is empty.
+		**/
+		private static class Chunk implements Serializable {
+				private static final long serialVersionUID = 1L;
+				private short[] snakeCells = new short[CHUNK_BLOCKS * CHUNK_BLOCKS * 4]; // The count of snake body parts in each snake cell.
+				private int[] snakeOwners; // The sum of the snake ids of the body parts in each snake cell, which is only created once a snake with a id is added.
+				private int[] snakeOwnerSquares; // The sum of the squares of the snake ids of the body parts in each snake cell.
+				private short[] snakeBlocks = new short[CHUNK_BLOCKS * CHUNK_BLOCKS]; // The count of snake body parts in each block.
+				private Wall[] walls = new Wall[CHUNK_BLOCKS * CHUNK_BLOCKS]; // The wall block at each block, or null.
+				private Energy[] items = new Energy[CHUNK_BLOCKS * CHUNK_BLOCKS]; // The energy item at each block, or null.
+				private int contents; // The amount of snake body parts, walls and items in the chunk.
+		}
+
+		public void setListener(Listener listener) {
+				this.listener = listener;
+		}
+
+		public int getWidth() {
+				return this.columns * SNAKE_SIZE;
+		}
+
+		public int getHeight() {
+				return this.rows * SNAKE_SIZE;
+		}
+
+		// Gets the amount of chunks which hold something, for checking the memory taken by the board.
+		public int getChunkCount() {
+				return this.chunkCount;
+		}
+
+		// Gets the index of the chunk for the coordinates received, or -1 if the coordinates are off the board.
+		private int chunk(int x, int y) {
+				if (x < ZERO || y < ZERO || x >= (this.blockColumns * GRID_SIZE) || y >= (this.blockRows * GRID_SIZE)) return -ONE;
+				return (((y / GRID_SIZE) >> CHUNK_SHIFT) * this.chunkColumns) + ((x / GRID_SIZE) >> CHUNK_SHIFT);
+		}
+
+		// Gets the chunk for the coordinates received, or null if it is empty or off the board.
+		private Chunk chunkAt(int x, int y) {
+				int chunk = this.chunk(x, y);
+				return (chunk >= ZERO) ? this.chunks[chunk] : null;
+		}
+
+		// Gets the chunk for the coordinates received, creating it if it is empty. The coordinates must be on the board.
+		private Chunk addTo(int x, int y) {
+				int index = this.chunk(x, y);
+				Chunk chunk = this.chunks[index];
+				if (chunk == null) {
+					chunk = this.chunks[index] = new Chunk();
+					this.chunkCount++;
+				}
+				chunk.contents++;
+				return chunk;
+		}
+
+		// Counts a removal from the chunk for the coordinates received, releasing the chunk if it is now empty.
+		private void removeFrom(int x, int y, Chunk chunk) {
+				if (--chunk.contents == ZERO) {
+					this.chunks[this.chunk(x, y)] = null;
+					this.chunkCount--;
+				}
+		}
+
+		// Gets the index of the block on the board for the coordinates received, which must be on the board.
+		private int boardBlock(int x, int y) {
+				return ((y / GRID_SIZE) * this.blockColumns) + (x / GRID_SIZE);
+		}
+
+		// Gets the x coordinate of the block on the board with the index received.
+		public int blockX(int block) {
+				return (block % this.blockColumns) * GRID_SIZE;
+		}
+
+		// Gets the y coordinate of the block on the board with the index received.
+		public int blockY(int block) {
+				return (block / this.blockColumns) * GRID_SIZE;
+		}
+
+		// Returns a boolean depicting whether the block at the coordinates received is free; it doesn't have a wall, item or snake body part on it.
+		public boolean isFree(int x, int y) {
+				Chunk chunk = this.chunkAt(x, y);
+				if (chunk == null) return (this.chunk(x, y) >= ZERO);
+				int block = block(x, y);
+				return (chunk.walls[block] == null && chunk.items[block] == null && chunk.snakeBlocks[block] == ZERO);
+		}
+
+		// Picks a random free block, returning its index on the board (see blockX and blockY); or -1 if there aren't any free blocks.
+		public int randomFreeBlock(GameRandom random) {
+				if (this.freeBlocks == null) this.indexFreeBlocks();
+				return (this.freeCount > ZERO) ? this.freeBlocks[random.nextInt(this.freeCount)] : -ONE;
+		}
+
+		// Creates the index of the free blocks, by checking each block of the board once. From then on the index is updated as the blocks change.
+		private void indexFreeBlocks() {
+				int blocks = this.blockColumns * this.blockRows;
+				this.freeBlocks = new int[blocks];
+				this.freePositions = new int[blocks];
+				this.freeCount = ZERO;
+				for (int block = 0; block < blocks; block++) {
+					if (this.isFree(this.blockX(block), this.blockY(block))) {
+						this.freePositions[block] = this.freeCount;
+						this.freeBlocks[this.freeCount++] = block;
+					} else {
+						this.freePositions[block] = -ONE;
+					}
+				}
+		}
+
+		// Adds or removes the block at the coordinates received from the index of the free blocks, after its contents have changed.
+		private void updateFree(int x, int y) {
+				if (this.freeBlocks == null) return;
+				int block = this.boardBlock(x, y);
+				int position = this.freePositions[block];
+				boolean free = this.isFree(x, y);
+				if (free && position < ZERO) {
+					this.freePositions[block] = this.freeCount;
+					this.freeBlocks[this.freeCount++] = block;
+				} else if (!free && position >= ZERO) {
+					int last = this.freeBlocks[--this.freeCount]; // Moves the last free block into its place.
+					this.freeBlocks[position] = last;
+					this.freePositions[last] = position;
+					this.freePositions[block] = -ONE;
+				}
+		}
+
+		// Gets the index within its chunk of the snake cell for the coordinates received.
+		private static int cell(int x, int y) {
+				return (((y / SNAKE_SIZE) & CELL_MASK) << (CHUNK_SHIFT + ONE)) | ((x / SNAKE_SIZE) & CELL_MASK);
+		}
+
+		// Gets the index within its chunk of the block for the coordinates received.
+		private static int block(int x, int y) {
+				return (((y / GRID_SIZE) & BLOCK_MASK) << CHUNK_SHIFT) | ((x / GRID_SIZE) & BLOCK_MASK);
+		}
+
+		// Adds a body part of the snake with the id received at the coordinates received.
+		public void addSnake(int x, int y, int id) {
+				Chunk chunk = this.addTo(x, y);
+				int block = block(x, y);
+				chunk.snakeCells[cell(x, y)]++;
+				if (id != ZERO) {
+					if (chunk.snakeOwners == null) {
+						chunk.snakeOwners = new int[chunk.snakeCells.length];
+						chunk.snakeOwnerSquares = new int[chunk.snakeCells.length];
+					}
+					chunk.snakeOwners[cell(x, y)] += id;
+					chunk.snakeOwnerSquares[cell(x, y)] += id * id;
+				}
+				if (chunk.snakeBlocks[block]++ == ZERO) this.updateFree(x, y);
+				if (chunk.walls[block] != null) this.wallContacts++; // The body part lies on a wall block.
+				if (this.listener != null) this.listener.snakeChanged(x, y);
+		}
+
+		// Removes a body part of the snake with the id received from the coordinates received.
+		public void removeSnake(int x, int y, int id) {
+				Chunk chunk = this.chunkAt(x, y);
+				int block = block(x, y);
+				chunk.snakeCells[cell(x, y)]--;
+				if (id != ZERO) {
+					chunk.snakeOwners[cell(x, y)] -= id;
+					chunk.snakeOwnerSquares[cell(x, y)] -= id * id;
+				}
+				chunk.snakeBlocks[block]--;
+				if (chunk.walls[block] != null) this.wallContacts--;
+				this.removeFrom(x, y, chunk);
+				if (chunk.snakeBlocks[block] == ZERO) this.updateFree(x, y);
+				if (this.listener != null) this.listener.snakeChanged(x, y);
+		}
+
+		// Returns the amount of snake body parts in the snake cell at the coordinates received.
+		public int snakeAt(int x, int y) {
+				Chunk chunk = this.chunkAt(x, y);
+				return (chunk != null) ? chunk.snakeCells[cell(x, y)] : ZERO;
+		}
+
+		// Returns a boolean depicting whether all of the snake body parts in the snake cell at the coordinates received belong to the snake with the id received.
+		public boolean isOwnedBy(int x, int y, int id) {
+				Chunk chunk = this.chunkAt(x, y);
+				if (chunk == null || chunk.snakeOwners == null) return false;
+				int cell = cell(x, y);
+				int count = chunk.snakeCells[cell];
+				// The sums only equal the count times the id and its square when every id is the same.
+				return (chunk.snakeOwners[cell] == id * count && chunk.snakeOwnerSquares[cell] == id * id * count);
+		}
+
+		// Returns a boolean depicting whether any snake body part lies on the block of the obstacle received.
+		public boolean isSnakeAt(Obstacle obstacle) {
+				return this.isSnakeAt(obstacle.x, obstacle.y);
+		}
+
+		// Returns a boolean depicting whether any snake body part lies on the block at the coordinates received.
+		public boolean isSnakeAt(int x, int y) {
+				Chunk chunk = this.chunkAt(x, y);
+				return (chunk != null && chunk.snakeBlocks[block(x, y)] > ZERO);
+		}
+
+		// Returns a boolean depicting whether any snake body part lies on a wall block.
+		public boolean touchesWall() {
+				return (this.wallContacts > ZERO);
+		}
+
+		public void addWall(Wall wall) {
+				if (this.chunk(wall.x, wall.y) >= ZERO && this.wallAt(wall.x, wall.y) == null) { // Walls outside of the board can't be collided with, so they aren't stored.
+					Chunk chunk = this.addTo(wall.x, wall.y);
+					int block = block(wall.x, wall.y);
+					chunk.walls[block] = wall;
+					this.wallContacts += chunk.snakeBlocks[block];
+					this.updateFree(wall.x, wall.y);
+					if (this.listener != null) this.listener.blockChanged(wall.x, wall.y);
+				}
+		}
+
+		public void removeWall(Wall wall) {
+				Chunk chunk = this.chunkAt(wall.x, wall.y);
+				int block = block(wall.x, wall.y);
+				if (chunk != null && chunk.walls[block] == wall) {
+					chunk.walls[block] = null;
+					this.wallContacts -= chunk.snakeBlocks[block];
+					this.removeFrom(wall.x, wall.y, chunk);
+					this.updateFree(wall.x, wall.y);
+					if (this.listener != null) this.listener.blockChanged(wall.x, wall.y);
+				}
+		}
+
+		// Gets the wall block at the coordinates received, or null if there isn't one.
+		public Wall wallAt(int x, int y) {
+				Chunk chunk = this.chunkAt(x, y);
+				return (chunk != null) ? chunk.walls[block(x, y)] : null;
+		}
+
+		// Removes all of the wall blocks.
+		public void clearWalls() {
+				for (int i = 0; i < this.chunks.length; i++) {
+					Chunk chunk = this.chunks[i];
+					if (chunk == null) continue;
+					for (int j = 0; j < chunk.walls.length; j++) {
+						Wall wall = chunk.walls[j];
+						if (wall == null) continue;
+						chunk.walls[j] = null;
+						if (this.listener != null) this.listener.blockChanged(wall.x, wall.y);
+						this.removeFrom(wall.x, wall.y, chunk);
+						this.updateFree(wall.x, wall.y);
+					}
+				}
+				this.wallContacts = ZERO;
+		}
+
+		public void addItem(Energy item) {
+				if (this.chunk(item.x, item.y) >= ZERO) {
+					Chunk chunk = this.chunkAt(item.x, item.y);
+					if (chunk == null || chunk.items[block(item.x, item.y)] == null) chunk = this.addTo(item.x, item.y); // A item replacing another item is already counted.
+					chunk.items[block(item.x, item.y)] = item;
+					this.updateFree(item.x, item.y);
+					if (this.listener != null) this.listener.blockChanged(item.x, item.y);
+				}
+		}
+
+		public void removeItem(Energy item) {
+				Chunk chunk = this.chunkAt(item.x, item.y);
+				int block = block(item.x, item.y);
+				if (chunk != null && chunk.items[block] == item) {
+					chunk.items[block] = null;
+					this.removeFrom(item.x, item.y, chunk);
+					this.updateFree(item.x, item.y);
+					if (this.listener != null) this.listener.blockChanged(item.x, item.y);
+				}
+		}
+
+		// Gets the energy item at the coordinates received, or null if there isn't one.
+		public Energy itemAt(int x, int y) {
+				Chunk chunk = this.chunkAt(x, y);
+				return (chunk != null) ? chunk.items[block(x, y)] : null;
+		}
+
+		// Removes all of the energy items.
+		public void clearItems() {
+				for (int i = 0; i < this.chunks.length; i++) {
+					Chunk chunk = this.chunks[i];
+					if (chunk == null) continue;
+					for (int j = 0; j < chunk.items.length; j++) {
+						Energy item = chunk.items[j];
+						if (item == null) continue;
+						chunk.items[j] = null;
+						if (this.listener != null) this.listener.blockChanged(item.x, item.y);
+						this.removeFrom(item.x, item.y, chunk);
+						this.updateFree(item.x, item.y);
+					}
+				}
+		}
+}
@@ -1,5 +1,3 @@
-import java.util.Random;
-
 /**
 *	PowerUp items are energy items which add additional functionality to the game. 
 *	@author: Lance Baker.
@@ -13,15 +11,14 @@ public class PowerUP extends Energy {
 			
 			private PowerType type; // The powerup type, which gets randomly selected.
 			
-			public PowerUP(int x, int y) {
-					super(x, y); // Passes the coordinates to the super class.
-					this.setType(); // Sets a random powerup type.
-					super.setTime(5, 20); // Sets the minimum delay and maximum duration for the energy item.
-					super.setImage(POWER_UP_IMAGE); // Sets the image to a default power up image.
+			public PowerUP(int x, int y, GameClock clock, GameRandom random) {
+					super(x, y, clock); // Passes the coordinates and the game clock to the super class.
+					this.setType(random); // Sets a random powerup type.
+					super.setTime(5, 20, random); // Sets the minimum delay and maximum duration for the energy item.
+					super.setSprite(SpriteCache.Sprite.POWER_UP); // Sets the sprite to the default power up sprite.
 			}
 			
-			private void setType() {
-					Random random = new Random();
+			private void setType(GameRandom random) {
 					Object[] objs = PowerType.values();
 					this.type = (PowerType)objs[random.nextInt(objs.length)]; // Randomly selects a type.
 			}
@@ -0,0 +1,269 @@
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+/**
+*	The Replay is the recording of a game, which is only the game's seed and difficulty level, and the input the game received; as the same seed and the same input plays the same game.
+*	The input is every call made to the GameEngine (the steps, and the changes to the game mode and difficulty level), which the Recorder encodes as a stream of varints.
+*	Most steps are the game loop's steps, which don't have a direction and advance the clock by the game's speed after the previous one; so therefore they aren't recorded, only the amount of them before each other event.
+*	Each event is a single varint of the amount of those steps since the last event (shifted left by OP_BITS) and the event's op, followed by a varint of any value of the event. A key press is usually one or two bytes.
+*	The replay is played by a new engine, either at the game speed (or a multiple of it) with a listener to present the game, or as fast as possible to check the final score.
+*
+*	File layout: the MAGIC (int), the VERSION (byte), the difficulty level ordinal (byte), the seed (long), the final score (varint),
+*	the player name (a short length and UTF-8), the length of the events (varint) and the events.
+*	The replay only plays back the same with the same rules; version 2 places the items at the free blocks of the OccupancyGrid, and version 3 shows and expires the items by the events of the GameClock; so therefore the replays of the earlier versions aren't played.
+**/
+
+public class Replay implements Constants {
+		public static final int MAGIC = 0x534E4B50; // "SNKP"
+		public static final byte VERSION = 3;
+		public static final String EXTENSION = ".replay";
+		private static final int OP_BITS = 4;
+		private static final int OP_MASK = (1 << OP_BITS) - 1;
+		private static final int DIRECTION = 0; // A step of zero milliseconds with the direction, plus the Compass ordinal position (a key press).
+		private static final int TIMED_DIRECTION = 4; // A step with the direction, plus the Compass ordinal position; followed by the milliseconds.
+		private static final int TIMED = 8; // A step without a direction, followed by the milliseconds.
+		private static final int MODE = 9; // A change of the game mode, plus the GameMode ordinal position.
+		private static final int DIFFICULTY = 14; // A change of the difficulty level, followed by the DifficultyLevel ordinal position.
+		private static final int END = 15; // The end of the game.
+		private static final Charset UTF8 = Charset.forName("UTF-8");
+
+		private String player; // The player name.
+		private SnakeGame.DifficultyLevel difficulty; // The difficulty level at the start of the game.
+		private long seed; // The seed of the game.
+		private int score; // The final score.
+		private byte[] events; // The encoded events.
+
+		public Replay(String player, SnakeGame.DifficultyLevel difficulty, long seed, int score, byte[] events) {
+				this.player = player;
+				this.difficulty = difficulty;
+				this.seed = seed;
+				this.score = score;
+				this.events = events;
+		}
+
+		public String getPlayer() {
+				return this.player;
+		}
+
+		public SnakeGame.DifficultyLevel getDifficulty() {
+				return this.difficulty;
+		}
+
+		public long getSeed() {
+				return this.seed;
+		}
+
+		public int getScore() {
+				return this.score; // Gets the final score which was recorded.
+		}
+
+		// Plays the replay through a new engine, and returns the game once it has ended.
+		// The speed is a multiple of the game speed (1 being the speed it was played at); a speed of zero plays it as fast as possible.
+		public SnakeGame play(GameEngine.Listener listener, double speed) throws InterruptedException, StreamCorruptedException {
+				SnakeGame game = new SnakeGame(this.player, this.difficulty, this.seed);
+				GameEngine engine = new GameEngine(game);
+				engine.setListener(listener);
+				engine.start();
+				ByteBuffer in = ByteBuffer.wrap(this.events);
+				int predicted = 0; // The milliseconds of the next step without a direction, which is the game's speed after the previous one.
+				SnakeGame.Compass[] directions = SnakeGame.Compass.values();
+				try {
+					while (true) {
+						long event = readVarint(in);
+						for (long steps = event >>> OP_BITS; steps > 0; steps--) {
+							pause(predicted, speed);
+							engine.step(null, predicted);
+							predicted = game.getSpeed();
+						}
+						int op = (int)(event & OP_MASK);
+						if (op < TIMED_DIRECTION) {
+							engine.step(directions[op - DIRECTION], ZERO);
+						} else if (op < TIMED) {
+							int millis = (int)readVarint(in);
+							pause(millis, speed);
+							engine.step(directions[op - TIMED_DIRECTION], millis);
+						} else if (op == TIMED) {
+							int millis = (int)readVarint(in);
+							pause(millis, speed);
+							engine.step(null, millis);
+							predicted = game.getSpeed();
+						} else if (op < DIFFICULTY) {
+							engine.setGameMode(SnakeGame.GameMode.values()[op - MODE]);
+						} else if (op == DIFFICULTY) {
+							engine.setDifficultyLevel(SnakeGame.DifficultyLevel.values()[(int)readVarint(in)]);
+						} else {
+							return game; // The END.
+						}
+					}
+				} catch (BufferUnderflowException ex) {
+					throw new StreamCorruptedException("Replay Is Incomplete");
+				} catch (ArrayIndexOutOfBoundsException ex) {
+					throw new StreamCorruptedException("Replay Is Damaged");
+				}
+		}
+
+		// Plays the replay as fast as possible without a listener, and returns a boolean depicting whether it ends with the score which was recorded.
+		public boolean verify() throws InterruptedException, StreamCorruptedException {
+				SnakeGame game = this.play(null, ZERO);
+				return (game.isGameOver() && game.getTotalScore() == this.score);
+		}
+
+		// Sleeps for the milliseconds of a step, at the speed received.
+		private static void pause(int millis, double speed) throws InterruptedException {
+				if (speed > ZERO && millis > ZERO) Thread.sleep((long)(millis / speed));
+		}
+
+		// Writes the replay to the file received.
+		public void write(Path path) throws IOException {
+				byte[] name = this.player.getBytes(UTF8);
+				ByteBuffer buffer = ByteBuffer.allocate(4 + 1 + 1 + 8 + 5 + 2 + name.length + 5 + this.events.length);
+				buffer.putInt(MAGIC).put(VERSION).put((byte)this.difficulty.ordinal()).putLong(this.seed);
+				writeVarint(buffer, this.score);
+				buffer.putShort((short)name.length).put(name);
+				writeVarint(buffer, this.events.length);
+				buffer.put(this.events);
+				Files.write(path, Arrays.copyOf(buffer.array(), buffer.position()));
+		}
+
+		// Reads the replay from the file received.
+		public static Replay read(Path path) throws IOException {
+				ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path));
+				try {
+					if (buffer.getInt() != MAGIC) throw new StreamCorruptedException("Not A Replay");
+					byte version = buffer.get();
+					if (version != VERSION) throw new StreamCorruptedException("Unsupported Replay Version " + version);
+					SnakeGame.DifficultyLevel[] levels = SnakeGame.DifficultyLevel.values();
+					SnakeGame.DifficultyLevel difficulty = levels[Math.min(buffer.get() & 0xFF, levels.length - 1)];
+					long seed = buffer.getLong();
+					int score = (int)readVarint(buffer);
+					byte[] name = new byte[buffer.getShort() & 0xFFFF];
+					buffer.get(name);
+					byte[] events = new byte[(int)readVarint(buffer)];
+					buffer.get(events);
+					return new Replay(new String(name, UTF8), difficulty, seed, score, events);
+				} catch (BufferUnderflowException ex) {
+					throw new StreamCorruptedException("Replay Is Incomplete");
+				}
+		}
+
+		private static void writeVarint(ByteBuffer buffer, long value) {
+				while ((value & ~0x7FL) != 0) {
+					buffer.put((byte)((value & 0x7F) | 0x80)); // The low 7 bits, with the high bit showing that more bytes follow.
+					value >>>= 7;
+				}
+				buffer.put((byte)value);
+		}
+
+		private static long readVarint(ByteBuffer buffer) throws StreamCorruptedException {
+				long value = 0;
+				for (int shift = 0; shift < 64; shift += 7) {
+					byte b = buffer.get();
+					value |= (long)(b & 0x7F) << shift;
+					if (b >= 0) return value;
+				}
+				throw new StreamCorruptedException("Replay Is Damaged");
+		}
+
+		// Checks each of the replay files received, by playing them as fast as possible and comparing the final score.
+		public static void main(String[] args) throws Exception {
+				MapRegistry.load();
+				for (String filename : args) {
+					Replay replay = read(Paths.get(filename));
+					long start = System.nanoTime();
+					SnakeGame game = replay.play(null, ZERO);
+					long millis = (System.nanoTime() - start) / 1000000;
+					boolean matches = (game.isGameOver() && game.getTotalScore() == replay.getScore());
+					System.out.println(filename + ": " + replay.getPlayer() + " " + replay.getDifficulty() + " score " + replay.getScore() +
+									((matches) ? " Verified" : " Doesn't Match (Replayed " + game.getTotalScore() + ")") + " in " + millis + "ms");
+				}
+		}
+
+		/**
+		*	The Recorder is given to a GameEngine, which passes it every call made to the engine; it encodes them into the events of the replay.
+		*	The replay is finished when the game is over, and the Recorder starts a new replay whenever the engine starts the game again.
+		**/
+		public static class Recorder {
+				private SnakeGame game; // The game being recorded.
+				private SnakeGame.DifficultyLevel difficulty; // The difficulty level at the start of the game.
+				private byte[] events = new byte[256];
+				private ByteBuffer buffer = ByteBuffer.wrap(this.events);
+				private long steps; // The amount of predicted steps since the last event.
+				private int predicted; // The milliseconds which the next step without a direction is expected to have.
+				private Replay replay; // The finished replay.
+
+				// Called when the engine starts the game.
+				public void start(SnakeGame game) {
+						this.game = game;
+						this.difficulty = game.getDifficultyLevel();
+						this.buffer.clear();
+						this.steps = 0;
+						this.predicted = ZERO;
+						this.replay = null;
+				}
+
+				// Called after the engine performs a step.
+				public void step(SnakeGame.Compass input, int millis) {
+						if (this.game == null || this.replay != null) return;
+						if (input == null) {
+							if (millis == this.predicted) {
+								this.steps++;
+							} else {
+								this.event(TIMED);
+								this.value(millis);
+							}
+							this.predicted = this.game.getSpeed(); // The game loop waits for the speed after this step.
+						} else if (millis == ZERO) {
+							this.event(DIRECTION + input.ordinal());
+						} else {
+							this.event(TIMED_DIRECTION + input.ordinal());
+							this.value(millis);
+						}
+						if (this.game.isGameOver()) this.finish();
+				}
+
+				// Called after the engine changes the game mode.
+				public void setGameMode(SnakeGame.GameMode mode) {
+						if (this.game == null || this.replay != null) return;
+						this.event(MODE + mode.ordinal());
+				}
+
+				// Called after the engine changes the difficulty level.
+				public void setDifficultyLevel(SnakeGame.DifficultyLevel difficulty) {
+						if (this.game == null || this.replay != null) return;
+						this.event(DIFFICULTY);
+						this.value(difficulty.ordinal());
+				}
+
+				// Gets the replay of the game, or null if the game isn't over.
+				public Replay getReplay() {
+						return this.replay;
+				}
+
+				private void finish() {
+						this.event(END);
+						this.replay = new Replay(this.game.getPlayer(), this.difficulty, this.game.getSeed(), this.game.getTotalScore(), Arrays.copyOf(this.events, this.buffer.position()));
+				}
+
+				private void event(int op) {
+						this.value((this.steps << OP_BITS) | op);
+						this.steps = 0;
+				}
+
+				private void value(long value) {
+						if (this.buffer.remaining() < 10) { // Doubles the events when they are nearly full (a varint is at most 10 bytes).
+							this.events = Arrays.copyOf(this.events, this.events.length * 2);
+							int position = this.buffer.position();
+							this.buffer = ByteBuffer.wrap(this.events);
+							this.buffer.position(position);
+						}
+						writeVarint(this.buffer, value);
+				}
+		}
+}
@@ -0,0 +1,174 @@
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+*	The ResultsFile reads and writes the game results in a binary format, through a NIO FileChannel.
+*	The file starts with a header (the MAGIC number, the format VERSION, the size of each record and the amount of records), followed by a record of a fixed size for each GameResult.
+*	The size of the records is read from the header, so therefore a later version can add to the end of the records and still be read by this version.
+*	Since version 2 the file is a journal which only ever gets records added to its end (see the ResultsJournal); each record ends with a CRC32 checksum of the record, and the amount of records is worked out from the size of the file rather than from the header.
+*	A save file of the older versions of the game (a serialized LinkedList<SnakeGame>) is recognised by its first bytes, and is read by the LegacySaveReader instead; it is replaced by the binary format when the results are next saved.
+*
+*	Record layout: the player name (a short length followed by NAME_BYTES of UTF-8), the difficulty level ordinal (byte), the flags (byte, COMPLETED),
+*	the points (int), the level (int), the time (int), the score (int) and the CRC32 of the record before it (int).
+**/
+
+public class ResultsFile {
+		public static final int MAGIC = 0x534E4B52; // "SNKR"
+		public static final short VERSION = 2;
+		public static final short UNCHECKED_VERSION = 1; // The first version, which didn't have the checksums and kept the amount of records in the header.
+		public static final int HEADER_SIZE = 12; // The magic (int), version (short), record size (short), and record count (int, only used by the first version).
+		public static final int NAME_BYTES = 30; // The maximum bytes of the player name, longer names are shortened.
+		public static final int DATA_SIZE = 2 + NAME_BYTES + 1 + 1 + (4 * 4); // The size of a record before the checksum.
+		public static final int RECORD_SIZE = DATA_SIZE + 4;
+		private static final int COMPLETED = 0x01; // The flag set if the game was over.
+		private static final Charset UTF8 = Charset.forName("UTF-8");
+		private static final String TEMP_SUFFIX = ".tmp";
+		private static final int ZERO = 0;
+
+		// Reads the results from the file received.
+		public static List<GameResult> read(String filename) throws IOException {
+				FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ);
+				try {
+					ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+					readFully(channel, header);
+					header.flip();
+					if (header.remaining() >= 2 && LegacySaveReader.isLegacy(header.get(0), header.get(1))) {
+						channel.close();
+						return LegacySaveReader.read(filename); // The file was saved by a older version of the game.
+					}
+					if (header.remaining() < HEADER_SIZE || header.getInt() != MAGIC) throw new StreamCorruptedException("Not A Results File");
+					short version = header.getShort();
+					int recordSize = header.getShort() & 0xFFFF;
+					int count = header.getInt();
+					boolean checked = (version != UNCHECKED_VERSION);
+					if (version > VERSION || recordSize < ((checked) ? RECORD_SIZE : DATA_SIZE)) throw new StreamCorruptedException("Unsupported Results File Version " + version);
+					long available = (channel.size() - HEADER_SIZE) / recordSize; // Leaves out any record which wasn't fully written.
+					count = (int)((checked) ? available : Math.min(count, available));
+
+					List<GameResult> results = new ArrayList<GameResult>(count);
+					ByteBuffer records = ByteBuffer.allocate(recordSize * Math.min(count, 1024)); // The records are read in batches.
+					for (int read = 0; read < count;) {
+						records.clear();
+						records.limit(recordSize * Math.min(count - read, 1024));
+						readFully(channel, records);
+						records.flip();
+						if (records.remaining() < recordSize) break; // The file was shortened whilst it was being read.
+						while (records.remaining() >= recordSize) {
+							int start = records.position();
+							if (!checked || isValid(records, start, recordSize)) results.add(decode(records)); // A damaged record is left out.
+							records.position(start + recordSize); // Skips anything added to the end of the record by a later version.
+							read++;
+						}
+					}
+					return results;
+				} finally {
+					channel.close();
+				}
+		}
+
+		// Writes the results to the file received. The results are written to a temporary file first, which then replaces the file; so therefore the file is never left half written.
+		public static void write(String filename, List<GameResult> results) throws IOException {
+				Path target = Paths.get(filename);
+				Path temp = Paths.get(filename + TEMP_SUFFIX);
+				FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+				try {
+					ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + (RECORD_SIZE * Math.min(results.size(), 1024)));
+					putHeader(buffer);
+					for (GameResult result : results) {
+						if (buffer.remaining() < RECORD_SIZE) { // The buffer is written out whenever it fills up.
+							buffer.flip();
+							writeFully(channel, buffer);
+							buffer.clear();
+						}
+						encode(result, buffer);
+					}
+					buffer.flip();
+					writeFully(channel, buffer);
+					channel.force(true);
+				} finally {
+					channel.close();
+				}
+				try {
+					Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+				} catch (AtomicMoveNotSupportedException ex) {
+					Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+				}
+		}
+
+		// Writes the header of the current version into the buffer received.
+		public static void putHeader(ByteBuffer buffer) {
+				buffer.putInt(MAGIC).putShort(VERSION).putShort((short)RECORD_SIZE).putInt(ZERO);
+		}
+
+		// Writes the result into the buffer received, as a record.
+		public static void encode(GameResult result, ByteBuffer buffer) {
+				int start = buffer.position();
+				byte[] name = encodeName(result.getPlayer());
+				buffer.putShort((short)name.length);
+				buffer.put(name);
+				for (int i = name.length; i < NAME_BYTES; i++) buffer.put((byte)0); // Pads the name to its fixed size.
+				buffer.put((byte)result.getDifficulty().ordinal());
+				buffer.put((byte)((result.isCompleted()) ? COMPLETED : 0));
+				buffer.putInt(result.getPoints());
+				buffer.putInt(result.getLevel());
+				buffer.putInt(result.getTime());
+				buffer.putInt(result.getScore());
+				buffer.putInt(checksum(buffer, start, DATA_SIZE));
+		}
+
+		// Returns a boolean depicting whether the checksum of the record at the position received is correct.
+		public static boolean isValid(ByteBuffer buffer, int position, int recordSize) {
+				return (buffer.getInt(position + recordSize - 4) == checksum(buffer, position, recordSize - 4)); // The checksum is the last int of the record.
+		}
+
+		// Calculates the CRC32 of the bytes at the position received, without moving the position of the buffer.
+		private static int checksum(ByteBuffer buffer, int position, int length) {
+				ByteBuffer data = buffer.duplicate();
+				data.limit(position + length).position(position);
+				CRC32 crc = new CRC32();
+				crc.update(data);
+				return (int)crc.getValue();
+		}
+
+		// Reads a result from the record at the position of the buffer received.
+		public static GameResult decode(ByteBuffer buffer) {
+				int length = Math.min(buffer.getShort() & 0xFFFF, NAME_BYTES);
+				byte[] name = new byte[NAME_BYTES];
+				buffer.get(name);
+				SnakeGame.DifficultyLevel[] levels = SnakeGame.DifficultyLevel.values();
+				SnakeGame.DifficultyLevel difficulty = levels[Math.min(buffer.get() & 0xFF, levels.length - 1)];
+				boolean completed = (buffer.get() & COMPLETED) != 0;
+				return new GameResult(new String(name, 0, length, UTF8), difficulty, completed, buffer.getInt(), buffer.getInt(), buffer.getInt(), buffer.getInt());
+		}
+
+		// Encodes the player name as UTF-8, shortened to the NAME_BYTES without splitting a character.
+		private static byte[] encodeName(String player) {
+				String name = (player != null) ? player : "";
+				byte[] bytes = name.getBytes(UTF8);
+				while (bytes.length > NAME_BYTES) {
+					name = name.substring(0, name.length() - 1);
+					bytes = name.getBytes(UTF8);
+				}
+				return bytes;
+		}
+
+		private static void readFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+				while (buffer.hasRemaining() && channel.read(buffer) >= 0);
+		}
+
+		private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+				while (buffer.hasRemaining()) channel.write(buffer);
+		}
+}
@@ -0,0 +1,205 @@
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+*	The ResultsJournal keeps the results of every completed game in the results file, by adding a record to the end of the file as each game finishes.
+*	The game only adds the result to a queue, the records are written by the journal's own thread; which writes whatever has been queued in a single batch, and forces it to the disk before writing the next batch.
+*	Each record has a checksum, so therefore if the game is stopped part of the way through a write, the damaged records at the end of the file are found and removed when the journal is next opened.
+*	A results file of a older format is converted to the journal format when it is opened, keeping the completed games.
+*	A Listener is told of each result once its record is on the disk, along with the index of the record; which the Leaderboard uses to index the results as they are written.
+*	If a batch can't be written it stays queued, and is written again after RETRY_DELAY; a flush which is waiting for it returns false, so the caller knows the results haven't been saved.
+**/
+
+public class ResultsJournal implements Runnable {
+		private static final int BATCH_SIZE = 64; // The most records written in one batch.
+		private static final long RETRY_DELAY = 1000; // The milliseconds before a batch which couldn't be written is written again.
+
+		private String filename; // The name of the results file.
+		private FileChannel channel; // The channel which the records are written through.
+		private long position; // The position in the file where the next record is written.
+		private BlockingQueue<GameResult> queue = new LinkedBlockingQueue<GameResult>(); // The results waiting to be written.
+		private long appended; // The amount of results which have been added to the queue.
+		private long written; // The amount of results which have been written.
+		private long failures; // The amount of times a batch couldn't be written.
+		private Thread thread; // The thread which writes the records.
+		private volatile Listener listener; // Told of each record written.
+
+		public interface Listener {
+				// Called on the journal thread once the result has been written, with the index of its record in the journal.
+				void written(long record, GameResult result);
+		}
+
+		public ResultsJournal(String filename) throws IOException {
+				this.filename = filename;
+				this.open();
+				this.thread = new Thread(this, "ResultsJournal");
+				this.thread.setDaemon(true);
+				this.thread.start();
+				// Writes any results which are still queued when the application exits.
+				Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+					public void run() {
+							flush();
+					}
+				}));
+		}
+
+		// Opens the results file, converting it from a older format, and removing any damaged records from its end.
+		private void open() throws IOException {
+				Path path = Paths.get(this.filename);
+				if (Files.exists(path) && Files.size(path) > 0 && !this.isCurrentVersion(path)) {
+					List<GameResult> completed = new ArrayList<GameResult>();
+					for (GameResult result : ResultsFile.read(this.filename)) { // Throws a exception if it isn't a results file at all, so therefore it won't be overwritten.
+						if (result.isCompleted()) completed.add(result);
+					}
+					ResultsFile.write(this.filename, completed);
+				}
+				this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+				if (this.channel.size() < ResultsFile.HEADER_SIZE) { // A new file.
+					ByteBuffer header = ByteBuffer.allocate(ResultsFile.HEADER_SIZE);
+					ResultsFile.putHeader(header);
+					header.flip();
+					this.channel.truncate(0);
+					while (header.hasRemaining()) this.channel.write(header, header.position());
+					this.channel.force(true);
+				}
+				this.recover();
+		}
+
+		// Returns a boolean depicting whether the file received is a results file of the current version.
+		private boolean isCurrentVersion(Path path) throws IOException {
+				FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+				try {
+					ByteBuffer header = ByteBuffer.allocate(ResultsFile.HEADER_SIZE);
+					while (header.hasRemaining() && channel.read(header) >= 0);
+					header.flip();
+					if (header.remaining() < ResultsFile.HEADER_SIZE || header.getInt() != ResultsFile.MAGIC || header.getShort() != ResultsFile.VERSION) return false;
+					if ((header.getShort() & 0xFFFF) != ResultsFile.RECORD_SIZE) throw new StreamCorruptedException("Unsupported Results Record Size");
+					return true;
+				} finally {
+					channel.close();
+				}
+		}
+
+		// Removes any record from the end of the file which was only partly written, or which has a incorrect checksum.
+		private void recover() throws IOException {
+				long size = this.channel.size();
+				long end = ResultsFile.HEADER_SIZE + (((size - ResultsFile.HEADER_SIZE) / ResultsFile.RECORD_SIZE) * ResultsFile.RECORD_SIZE);
+				ByteBuffer record = ByteBuffer.allocate(ResultsFile.RECORD_SIZE);
+				while (end > ResultsFile.HEADER_SIZE) { // Works back from the last record, as only the last batch could have been damaged.
+					record.clear();
+					while (record.hasRemaining() && this.channel.read(record, end - ResultsFile.RECORD_SIZE + record.position()) >= 0);
+					if (ResultsFile.isValid(record, 0, ResultsFile.RECORD_SIZE)) break;
+					end -= ResultsFile.RECORD_SIZE;
+				}
+				if (end < size) {
+					System.out.println("Removed " + (size - end) + " Damaged Bytes From " + this.filename);
+					this.channel.truncate(end);
+					this.channel.force(true);
+				}
+				this.position = end;
+		}
+
+		public void setListener(Listener listener) {
+				this.listener = listener;
+		}
+
+		// Adds the result to the journal. It is only queued, therefore this never waits for the disk.
+		public void append(GameResult result) {
+				synchronized (this) {
+					this.appended++;
+				}
+				this.queue.add(result);
+		}
+
+		// Waits until every result appended so far has been written to the disk. Returns false if a batch couldn't be written whilst waiting (it stays queued), or the journal has been closed.
+		public boolean flush() {
+				synchronized (this) {
+					long target = this.appended;
+					long failures = this.failures;
+					while (this.written < target) {
+						if (this.failures != failures || !this.thread.isAlive()) return false;
+						try {
+							this.wait(100);
+						} catch (InterruptedException ex) {
+							return false;
+						}
+					}
+					return true;
+				}
+		}
+
+		// Reads all of the results in the journal, after the queued results have been written.
+		public List<GameResult> read() throws IOException {
+				this.flush();
+				return ResultsFile.read(this.filename);
+		}
+
+		// Writes the queued results and closes the file.
+		public void close() {
+				if (!this.flush()) System.out.println("Can't Write The Queued Results To " + this.filename);
+				this.thread.interrupt();
+				try {
+					this.thread.join();
+					this.channel.close();
+				} catch (Exception ex) {
+					System.out.println("Can't Close " + this.filename);
+				}
+		}
+
+		// The journal thread writes the queued results in batches.
+		public void run() {
+				List<GameResult> batch = new ArrayList<GameResult>(BATCH_SIZE);
+				ByteBuffer buffer = ByteBuffer.allocate(ResultsFile.RECORD_SIZE * BATCH_SIZE);
+				while (true) {
+					if (batch.isEmpty()) { // Unless a batch which couldn't be written is being written again.
+						try {
+							batch.add(this.queue.take()); // Waits for a result.
+						} catch (InterruptedException ex) {
+							return; // The journal has been closed.
+						}
+					}
+					this.queue.drainTo(batch, BATCH_SIZE - batch.size()); // Along with any others which have been queued since.
+					buffer.clear();
+					for (GameResult result : batch) ResultsFile.encode(result, buffer);
+					buffer.flip();
+					long start = this.position;
+					try {
+						while (buffer.hasRemaining()) this.position += this.channel.write(buffer, this.position);
+						this.channel.force(false); // The batch is on the disk before the next batch is written.
+					} catch (IOException ex) {
+						this.position = start; // The batch is written again over whatever part of it was written.
+						System.out.println("Can't Write Results " + ex.getMessage());
+						synchronized (this) {
+							this.failures++;
+							this.notifyAll();
+						}
+						try {
+							Thread.sleep(RETRY_DELAY);
+						} catch (InterruptedException interrupted) {
+							return; // The journal has been closed, so therefore the batch isn't written.
+						}
+						continue;
+					}
+					Listener listener = this.listener;
+					if (listener != null) {
+						long record = (start - ResultsFile.HEADER_SIZE) / ResultsFile.RECORD_SIZE;
+						for (GameResult result : batch) listener.written(record++, result);
+					}
+					synchronized (this) {
+						this.written += batch.size();
+						this.notifyAll();
+					}
+					batch.clear();
+				}
+		}
+}
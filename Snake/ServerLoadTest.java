@@ -0,0 +1,203 @@
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+*	The ServerLoadTest stands in for a large number of clients of the GameServer, for checking how many games a server can keep up with.
+*	Every client is a connection on a single selector, which joins a game, presses a random direction every so often, and starts the game again once it is over.
+*	The frames received are applied to a BoardDelta.Board, the same as the GameClient does, and the jitter of each tick is measured; which is how far the time between two ticks differs from the game time of the tick.
+*	Unless a host is given, a GameServer is started in the same process on the loopback address.
+*
+*	Usage: java ServerLoadTest [-host host] [-port port] [-clients count] [-seconds seconds] [-threads count]
+**/
+
+public class ServerLoadTest implements Constants {
+		private static final long NANOS_PER_MILLI = 1000000L;
+		private static final int JITTER_BUCKETS = 10000; // The jitter is counted in buckets of a millisecond, the last bucket holding any longer.
+		private static final int KEY_INTERVAL = 1500; // The average milliseconds between the key presses of a client.
+
+		/**
+		*	The Client is one of the connections, along with the board built up from its frames.
+		**/
+		private static class Client {
+				private SocketChannel channel;
+				private ByteBuffer input = ByteBuffer.allocate(8192);
+				private BoardDelta.Board board = new BoardDelta.Board();
+				private long lastTick; // The time the last tick with game time was received, or zero.
+				private boolean restarting; // Whether the game over has been answered with a restart.
+				private long nextKey; // The time of the next key press.
+
+				private Client(SocketChannel channel) {
+						this.channel = channel;
+				}
+		}
+
+		private long frames;
+		private long bytes;
+		private long errors;
+		private long[] jitter = new long[JITTER_BUCKETS];
+		private long jitterCount;
+		private long totalJitter;
+		private GameRandom random = new GameRandom(GameRandom.newSeed());
+
+		// Reads the frames received by the client, returning false if the connection has closed.
+		private boolean read(Client client) throws IOException {
+				int read = client.channel.read(client.input);
+				if (read < 0) return false;
+				this.bytes += read;
+				long now = System.nanoTime();
+				client.input.flip();
+				while (client.input.hasRemaining()) {
+					int start = client.input.position();
+					int length = this.frameLength(client.input);
+					if (length < 0 || client.input.remaining() < length) { // The rest of the frame hasn't arrived.
+						client.input.position(start);
+						break;
+					}
+					ByteBuffer frame = client.input.slice();
+					frame.limit(length);
+					client.input.position(client.input.position() + length);
+					this.frames++;
+					try {
+						int millis = client.board.apply(frame);
+						if (millis > ZERO) {
+							if (client.lastTick != 0) this.addJitter(Math.abs((now - client.lastTick) - (millis * NANOS_PER_MILLI)));
+							client.lastTick = now;
+						}
+					} catch (IOException ex) {
+						this.errors++;
+					}
+				}
+				client.input.compact();
+				if (client.board.getGameMode() == SnakeGame.GameMode.GAMEOVER && !client.restarting) {
+					client.restarting = true;
+					client.lastTick = 0; // The time until the game restarts isn't a tick.
+					this.send(client, GameServer.RESTART);
+				} else if (client.board.getGameMode() == SnakeGame.GameMode.PLAYING) {
+					client.restarting = false;
+				}
+				return true;
+		}
+
+		// Gets the length of the frame at the position of the buffer and moves past it, or returns -1 if the length hasn't all arrived.
+		private int frameLength(ByteBuffer buffer) {
+				int value = 0;
+				for (int shift = 0; shift < 32 && buffer.hasRemaining(); shift += 7) {
+					byte b = buffer.get();
+					value |= (b & 0x7F) << shift;
+					if (b >= 0) return value;
+				}
+				return -ONE;
+		}
+
+		private void addJitter(long nanos) {
+				this.jitter[(int)Math.min(nanos / NANOS_PER_MILLI, JITTER_BUCKETS - ONE)]++;
+				this.jitterCount++;
+				this.totalJitter += nanos;
+		}
+
+		// Gets the jitter in milliseconds which the fraction received of the ticks were within.
+		private long percentile(double fraction) {
+				long target = (long)Math.ceil(this.jitterCount * fraction);
+				long count = 0;
+				for (int i = 0; i < JITTER_BUCKETS; i++) {
+					count += this.jitter[i];
+					if (count >= target && count > 0) return i;
+				}
+				return JITTER_BUCKETS;
+		}
+
+		private void send(Client client, int op) throws IOException {
+				client.channel.write(ByteBuffer.wrap(new byte[] { (byte)op }));
+		}
+
+		// Connects the clients, and runs them for the seconds received.
+		public void run(InetSocketAddress address, int count, int seconds) throws IOException {
+				Selector selector = Selector.open();
+				List<Client> clients = new ArrayList<Client>();
+				for (int i = 0; i < count; i++) {
+					SocketChannel channel = SocketChannel.open(address); // Connects whilst blocking, as the server accepts straight away.
+					channel.configureBlocking(false);
+					channel.socket().setTcpNoDelay(true);
+					Client client = new Client(channel);
+					channel.register(selector, SelectionKey.OP_READ, client);
+					channel.write(GameServer.join("Load " + i, SnakeGame.DifficultyLevel.values()[i % SnakeGame.DifficultyLevel.values().length]));
+					client.nextKey = System.nanoTime() + (this.random.nextInt(KEY_INTERVAL * 2) * NANOS_PER_MILLI);
+					clients.add(client);
+				}
+				System.out.println("Connected " + count + " Clients To " + address);
+				long start = System.nanoTime();
+				long end = start + (seconds * 1000L * NANOS_PER_MILLI);
+				long nextKeys = start;
+				int connected = count;
+				while (System.nanoTime() < end) {
+					selector.select(10);
+					for (Iterator<SelectionKey> it = selector.selectedKeys().iterator(); it.hasNext();) {
+						SelectionKey key = it.next();
+						it.remove();
+						Client client = (Client)key.attachment();
+						if (!this.read(client)) {
+							key.cancel();
+							client.channel.close();
+							connected--;
+						}
+					}
+					long now = System.nanoTime();
+					if (now >= nextKeys) { // Presses the keys which are due, checking ten times a second.
+						nextKeys = now + (100 * NANOS_PER_MILLI);
+						for (Client client : clients) {
+							if (client.channel.isOpen() && now >= client.nextKey) {
+								this.send(client, this.random.nextInt(GameServer.PAUSE)); // A random direction.
+								client.nextKey = now + (this.random.nextInt(KEY_INTERVAL * 2) * NANOS_PER_MILLI);
+							}
+						}
+					}
+				}
+				double elapsed = (System.nanoTime() - start) / 1e9;
+				for (Client client : clients) client.channel.close();
+				selector.close();
+				System.out.println(connected + " Clients Still Connected, " + this.errors + " Damaged Frames");
+				System.out.printf("%d Frames (%.0f Per Second), %.1f Bytes Per Frame%n", this.frames, this.frames / elapsed, (this.frames > 0) ? this.bytes / (double)this.frames : ZERO);
+				System.out.printf("Tick Jitter: Average %.2fms, 50%% Within %dms, 99%% Within %dms, 99.9%% Within %dms%n",
+								(this.jitterCount > 0) ? (this.totalJitter / (double)this.jitterCount) / NANOS_PER_MILLI : ZERO, this.percentile(0.5), this.percentile(0.99), this.percentile(0.999));
+		}
+
+		public static void main(String[] args) throws IOException {
+				String host = null;
+				int port = GameServer.DEFAULT_PORT;
+				int clients = 1000;
+				int seconds = 10;
+				int threads = Runtime.getRuntime().availableProcessors();
+				try {
+					for (int i = 0; i < args.length; i++) {
+						if (args[i].equals("-host")) host = args[++i];
+						else if (args[i].equals("-port")) port = Integer.parseInt(args[++i]);
+						else if (args[i].equals("-clients")) clients = Integer.parseInt(args[++i]);
+						else if (args[i].equals("-seconds")) seconds = Integer.parseInt(args[++i]);
+						else if (args[i].equals("-threads")) threads = Integer.parseInt(args[++i]);
+						else throw new IllegalArgumentException(args[i]);
+					}
+				} catch (RuntimeException ex) {
+					System.out.println("Usage: java ServerLoadTest [-host host] [-port port] [-clients count] [-seconds seconds] [-threads count]");
+					return;
+				}
+				GameServer server = null;
+				if (host == null) { // Starts a server on the loopback address.
+					MapRegistry.load();
+					server = new GameServer(ZERO, new SessionHost(threads));
+					Thread thread = new Thread(server, "Game Server");
+					thread.setDaemon(true);
+					thread.start();
+					host = "localhost";
+					port = server.getPort();
+				}
+				new ServerLoadTest().run(new InetSocketAddress(host, port), clients, seconds);
+				if (server != null) server.close();
+		}
+}
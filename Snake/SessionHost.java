@@ -0,0 +1,242 @@
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+*	The SessionHost runs the game loops of any number of games on a small shared pool of threads, instead of each game having a thread of its own.
+*	Each Session is a task on a scheduled executor, which performs one tick of its game and then schedules its next tick for the game's speed later; so therefore each game keeps its own pace, and a session only uses a thread whilst it is ticking.
+*	The next tick is scheduled from the time the previous tick was due (not when it ran), which keeps the game time consistent with the actual time; unless the session falls further behind than MAX_LAG, in which case it continues from the current time.
+*	A paused session isn't scheduled at all until it is resumed, and a session finishes by itself once its game is no longer running.
+*	The host is used by the SnakePanel for the game being played, and can host many games steered by bots (or remote players) at the same time.
+*
+*	Usage: java SessionHost [-sessions count] [-seconds seconds] [-threads count] [-difficulty SLUG|WORM|SNAKE]
+**/
+
+public class SessionHost implements Constants {
+		private static final long NANOS_PER_MILLI = 1000000L;
+		private static final long MAX_LAG = 1000 * NANOS_PER_MILLI; // If a session falls further behind than this, it stops trying to catch up on the missed time.
+
+		// The Ticker performs a tick of a session's game, for when more needs to be done than stepping the engine (such as keeping the snake's previous body for the rendering).
+		public interface Ticker {
+				void tick(int millis); // Performs one tick, in which the game time advances by the milliseconds received.
+		}
+
+		private ScheduledThreadPoolExecutor executor;
+		private Set<Session> sessions = ConcurrentHashMap.newKeySet(); // The sessions which haven't finished.
+
+		public SessionHost() {
+				this(Runtime.getRuntime().availableProcessors());
+		}
+
+		// The SessionHost receives the amount of threads, which doesn't change however many sessions are hosted.
+		public SessionHost(int threads) {
+				final AtomicInteger count = new AtomicInteger();
+				this.executor = new ScheduledThreadPoolExecutor(threads, new ThreadFactory() {
+						public Thread newThread(Runnable task) {
+								Thread thread = new Thread(task, "Session Host " + count.incrementAndGet());
+								thread.setDaemon(true); // The host doesn't keep the application running.
+								return thread;
+						}
+				});
+				this.executor.setRemoveOnCancelPolicy(true); // The stopped sessions are removed from the queue straight away.
+		}
+
+		// Starts a session for the engine received, whose game must have been started. Each tick steps the engine.
+		public Session start(GameEngine engine) {
+				return this.start(engine, null);
+		}
+
+		// Starts a session for the engine received, whose game must have been started. Each tick is performed by the ticker, or steps the engine if it is null.
+		public Session start(GameEngine engine, Ticker ticker) {
+				Session session = new Session(engine, ticker);
+				this.sessions.add(session);
+				session.wake(ZERO); // The first tick is straight away.
+				return session;
+		}
+
+		// Gets the amount of sessions which haven't finished.
+		public int getSessionCount() {
+				return this.sessions.size();
+		}
+
+		// Stops all of the sessions, and the threads of the host.
+		public void shutdown() {
+				for (Session session : this.sessions) session.stop();
+				this.executor.shutdown();
+		}
+
+		public boolean awaitTermination(long millis) throws InterruptedException {
+				return this.executor.awaitTermination(millis, TimeUnit.MILLISECONDS);
+		}
+
+		/**
+		*	The Session is the game loop of a single game. It is only ever scheduled once at a time, therefore its ticks are never performed at the same time.
+		*	The changes to the game mode are made through the session, so that it is woken when the game is resumed or started again.
+		**/
+		public class Session implements Runnable {
+				private GameEngine engine;
+				private Ticker ticker;
+				private ScheduledFuture<?> next; // The next tick, or null if the session isn't scheduled.
+				private long nextUpdate; // The time the next tick is due in nanoseconds.
+				private int millis; // The game time of the next tick.
+				private boolean finished;
+
+				// The lateness of the ticks, for measuring how well the host keeps up.
+				private long ticks;
+				private long totalLateness;
+				private long maxLateness;
+
+				private Session(GameEngine engine, Ticker ticker) {
+						this.engine = engine;
+						this.ticker = ticker;
+				}
+
+				public SnakeGame getGame() {
+						return this.engine.getGame();
+				}
+
+				public GameEngine getEngine() {
+						return this.engine;
+				}
+
+				public synchronized void run() {
+						this.next = null;
+						if (this.finished) return;
+						long lateness = System.nanoTime() - this.nextUpdate;
+						this.ticks++;
+						this.totalLateness += lateness;
+						this.maxLateness = Math.max(this.maxLateness, lateness);
+						try {
+							if (this.ticker != null) {
+								this.ticker.tick(this.millis);
+							} else {
+								this.engine.step(null, this.millis);
+							}
+						} catch (RuntimeException ex) {
+							System.out.println("Can't Tick Session: " + ex);
+							this.finish();
+							return;
+						}
+						SnakeGame game = this.engine.getGame();
+						if (!game.isRunning()) {
+							this.finish(); // The game is over or has been stopped.
+						} else if (game.getGameMode() != SnakeGame.GameMode.PAUSED) { // A paused session waits to be woken.
+							this.millis = game.getSpeed(); // The time period until the next tick from the getSpeed method.
+							this.nextUpdate += (this.millis * NANOS_PER_MILLI);
+							long remaining = this.nextUpdate - System.nanoTime();
+							if (remaining < -MAX_LAG) this.nextUpdate = System.nanoTime(); // If the session has fallen too far behind, it continues from the current time.
+							this.next = executor.schedule(this, Math.max(remaining, ZERO), TimeUnit.NANOSECONDS);
+						}
+				}
+
+				// Schedules the next tick after the milliseconds received, if the session isn't already scheduled and its game is being played.
+				private synchronized void wake(int millis) {
+						if (this.finished || this.next != null || this.engine.getGame().getGameMode() != SnakeGame.GameMode.PLAYING) return;
+						this.millis = millis;
+						this.nextUpdate = System.nanoTime() + (millis * NANOS_PER_MILLI);
+						this.next = executor.schedule(this, millis, TimeUnit.MILLISECONDS);
+				}
+
+				// Changes the game mode through the engine, and wakes the session if the game is being played again.
+				public void setGameMode(SnakeGame.GameMode mode) {
+						this.engine.setGameMode(mode);
+						this.wake(this.engine.getGame().getSpeed());
+				}
+
+				public void pause() {
+						this.setGameMode(SnakeGame.GameMode.PAUSED);
+				}
+
+				public void resume() {
+						this.setGameMode(SnakeGame.GameMode.PLAYING);
+				}
+
+				// Starts the game again, without starting a new session.
+				public void restart() {
+						this.engine.start();
+						this.wake(this.engine.getGame().getSpeed());
+				}
+
+				// Stops the game, and finishes the session.
+				public synchronized void stop() {
+						this.engine.setGameMode(SnakeGame.GameMode.STOPPED);
+						this.finish();
+				}
+
+				// Returns a boolean depicting whether the session hasn't finished.
+				public synchronized boolean isActive() {
+						return !this.finished;
+				}
+
+				public synchronized long getTicks() {
+						return this.ticks;
+				}
+
+				// Gets the average amount of milliseconds the ticks were performed after they were due.
+				public synchronized double getAverageLateness() {
+						return (this.ticks > 0) ? (this.totalLateness / (double)this.ticks) / NANOS_PER_MILLI : ZERO;
+				}
+
+				public synchronized double getMaxLateness() {
+						return this.maxLateness / (double)NANOS_PER_MILLI;
+				}
+
+				private void finish() {
+						this.finished = true;
+						if (this.next != null) this.next.cancel(false);
+						this.next = null;
+						sessions.remove(this);
+				}
+		}
+
+		// Hosts the amount of autopilot games received for a number of seconds, and prints how late the ticks were; for checking how many games a machine can host.
+		public static void main(String[] args) throws InterruptedException {
+				int count = 1000;
+				int seconds = 10;
+				int threads = Runtime.getRuntime().availableProcessors();
+				SnakeGame.DifficultyLevel difficulty = SnakeGame.DifficultyLevel.SLUG;
+				try {
+					for (int i = 0; i < args.length; i++) {
+						if (args[i].equals("-sessions")) count = Integer.parseInt(args[++i]);
+						else if (args[i].equals("-seconds")) seconds = Integer.parseInt(args[++i]);
+						else if (args[i].equals("-threads")) threads = Integer.parseInt(args[++i]);
+						else if (args[i].equals("-difficulty")) difficulty = SnakeGame.DifficultyLevel.valueOf(args[++i].toUpperCase());
+						else throw new IllegalArgumentException(args[i]);
+					}
+				} catch (RuntimeException ex) {
+					System.out.println("Usage: java SessionHost [-sessions count] [-seconds seconds] [-threads count] [-difficulty SLUG|WORM|SNAKE]");
+					return;
+				}
+				MapRegistry.load();
+				SessionHost host = new SessionHost(threads);
+				List<Session> sessions = new ArrayList<Session>();
+				for (int i = 0; i < count; i++) {
+					GameEngine engine = new GameEngine(new SnakeGame("Bot " + i, difficulty));
+					engine.setPilot(new Autopilot());
+					engine.start();
+					sessions.add(host.start(engine));
+				}
+				System.out.println("Hosting " + count + " " + difficulty + " Games On " + threads + " Threads");
+				Thread.sleep(seconds * 1000L);
+				int running = host.getSessionCount();
+				int liveThreads = ManagementFactory.getThreadMXBean().getThreadCount();
+				host.shutdown();
+				host.awaitTermination(10000);
+				long ticks = 0;
+				double lateness = ZERO, maxLateness = ZERO;
+				for (Session session : sessions) {
+					ticks += session.getTicks();
+					lateness += session.getAverageLateness() * session.getTicks();
+					maxLateness = Math.max(maxLateness, session.getMaxLateness());
+				}
+				System.out.println(running + " Games Still Running, " + liveThreads + " Threads In The Process");
+				System.out.printf("%d Ticks (%.0f Per Second), Average Lateness %.2fms, Max Lateness %.2fms%n", ticks, ticks / (double)seconds, (ticks > 0) ? lateness / ticks : ZERO, maxLateness);
+		}
+}
@@ -1,72 +1,123 @@
-import java.awt.*;
-import java.util.*;
+import java.io.Serializable;
 
 /**
-*	The Snake Class extents a ArrayList<Point> and contains methods for the incrementing of the Point location based on the Compass direction received.
-*	It contains a collision detection method which checks through each body point of the snake.
+*	The Snake Class stores the body of the snake, and contains methods for the incrementing of the head location based on the Compass direction received.
+*	The body is stored as a circular buffer of packed cell coordinates (the column in the upper 16 bits, and the row in the lower 16 bits), which allows the head to be added and the tail to be removed without shifting the body or creating any objects.
+*	The body points are indexed from the head (index zero) to the tail, which is the same order they are rendered in.
+*	Each body point of the snake is registered in the OccupancyGrid as it gets added or removed, which allows the collision detection to be a single cell lookup.
+*	The snake wraps around the edges of its grid. When a number of snakes share the grid, each has its own id to tell them apart.
 *	The class handles the following:
 *		-- Standard Movement: Incrementing the position by one point increment following the compass direction, and removing any trailing points.
-*		-- Incrementing Size: Adding a new Point head to the Snake
-*		-- Collision Detection: Detects whether the opposing coordinates received come into contact with the snake.
+*		-- Incrementing Size: Adding a new head to the Snake
 *	@author: Lance Baker.
 **/
 
-public class Snake extends ArrayList<Point> implements Constants {
+public class Snake implements Constants, Serializable {
 		private static final long serialVersionUID = 1L;
-		private static final Point[] BEARING = {new Point(ZERO, -ONE), new Point(ZERO, ONE), new Point(ONE, ZERO), new Point(-ONE, ZERO)}; // Bearings for the compass enum.
-		
-		// The snake doesnt receive any parametres, and doesn't contain any instance variables. It is itself a ArrayList<Point>.
-		public Snake() {
+		private static final int[] BEARING_X = {ZERO, ZERO, ONE, -ONE}; // Bearings for the compass enum.
+		private static final int[] BEARING_Y = {-ONE, ONE, ZERO, ZERO};
+		private static final int INITIAL_CAPACITY = 64; // The initial size of the buffer, which must be a power of two.
+		private static final int COLUMN_SHIFT = 16; // The column is packed in the upper 16 bits of the cell.
+		private static final int ROW_MASK = 0xFFFF; // The row is packed in the lower 16 bits of the cell.
 
+		private OccupancyGrid grid; // The grid in which the body points are registered.
+		private int id; // The id which the body points are registered with, zero if the snake is alone on the grid.
+		private int[] cells; // The circular buffer of the packed body cells.
+		private int head; // The position of the head in the buffer.
+		private int size; // The amount of body points.
+
+		// The snake receives the OccupancyGrid which it keeps up to date.
+		public Snake(OccupancyGrid grid) {
+				this(grid, ZERO);
+		}
+
+		// The snake receives the OccupancyGrid which it shares with other snakes, and its id.
+		public Snake(OccupancyGrid grid, int id) {
+				this.grid = grid;
+				this.id = id;
+				this.cells = new int[INITIAL_CAPACITY];
+		}
+
+		// The reset method removes all of the body points, and places the snake at the starting coordinates received.
+		public void reset(int x, int y) {
+				this.clear();
+				this.push(x, y);
+		}
+
+		// Removes all of the body points.
+		public void clear() {
+				for (int i = 0; i < this.size; i++) this.grid.removeSnake(this.getX(i), this.getY(i), this.id); // Removes each body point from the grid.
+				this.size = ZERO;
+		}
+
+		public int getId() {
+				return this.id;
+		}
+
+		public int size() {
+				return this.size; // Gets the amount of body points.
+		}
+
+		// Gets the x coordinate of the body point at the index received (the head is at index zero).
+		public int getX(int index) {
+				return (this.cells[(this.head + index) & (this.cells.length - ONE)] >>> COLUMN_SHIFT) * SNAKE_SIZE;
+		}
+
+		// Gets the y coordinate of the body point at the index received (the head is at index zero).
+		public int getY(int index) {
+				return (this.cells[(this.head + index) & (this.cells.length - ONE)] & ROW_MASK) * SNAKE_SIZE;
+		}
+
+		// Adds a new head at the coordinates received, and registers it in the grid. The buffer gets doubled in size when it is full.
+		private void push(int x, int y) {
+				if (this.size == this.cells.length) {
+					int[] cells = new int[this.cells.length * 2];
+					for (int i = 0; i < this.size; i++) cells[i] = this.cells[(this.head + i) & (this.cells.length - ONE)]; // Copies the body in order from the head.
+					this.cells = cells;
+					this.head = ZERO;
+				}
+				this.head = (this.head - ONE) & (this.cells.length - ONE);
+				this.cells[this.head] = ((x / SNAKE_SIZE) << COLUMN_SHIFT) | (y / SNAKE_SIZE);
+				this.size++;
+				this.grid.addSnake(x, y, this.id);
 		}
-		
-		// The nextPoint method is used to calculate a Point position based upon the Compass direction received. 
-		// The nextPoint method receives a Compass Enumerated Type. It then determines the new axis for the X and Y coordinates for which the new point will be created with.
-		private Point nextPoint(SnakeGame.Compass direction) {
-				return new Point(newAxis(this.get(ZERO).x, BEARING[direction.ordinal()].x, PANEL_WIDTH),
-										newAxis(this.get(ZERO).y, BEARING[direction.ordinal()].y, PANEL_HEIGHT));
+
+		// Removes the tail, and removes it from the grid.
+		private void pop() {
+				this.grid.removeSnake(this.getX(this.size - ONE), this.getY(this.size - ONE), this.id);
+				this.size--;
 		}
-		
+
 		// The newAxis method calculates the next coordinate based upon the BEARING constant value (determined by the direction ordinal position),
 		// the position in which the existing coordinate for the snake head lies at, and the boundaries (which is the panel width or height).
 		private int newAxis(int position, int bearing, int boundaries) {
 				int axis = position + (SNAKE_SIZE * bearing); // The incremented axis
 				// Checks whether its within the panel boundaries, if it goes off the edge; the snake appears on the opposite side.
-				return (axis < ZERO) ? (axis + boundaries) : ((axis + SNAKE_SIZE) > boundaries) ? (axis - boundaries): axis; 
-		}
-		
-		// The collision method is used for any collision type with the snake. 
-		//It checks all the body parts (Points) belonging to the snake and uses the Java Rectangle API instersects method to determine whether there was a collision.
-		// The Point point received is the object which gets checked for a collision occurance. It returns a boolean value depicting whether there was a collision or not.
-		public boolean collision(Point point, int length, boolean minusHead) {
-				Rectangle objectAhead = new Rectangle(point.x, point.y, length, length);
-				for (int i = (minusHead) ? ONE : ZERO; i < this.size(); i++) { // Loops through all of the snake body parts.
-						Rectangle snakeElement = new Rectangle(this.get(i).x, this.get(i).y, SNAKE_SIZE, SNAKE_SIZE);
-						if (snakeElement.intersects(objectAhead)) {
-							return true;
-						}
-				}
-				return false;
+				return (axis < ZERO) ? (axis + boundaries) : ((axis + SNAKE_SIZE) > boundaries) ? (axis - boundaries): axis;
 		}
 
-		// The incrementSize method receives a Compass direction, and adds a new body head (Point) to the snake based upon the value received by the nextPoint(Compass direction) method.
+		// The incrementSize method receives a Compass direction, and adds a new body head to the snake based upon the direction.
 		// This method is used for when the snake is ordinally moving and when the snake eats a item for which will increment its size.
 		public void incrementSize(SnakeGame.Compass direction) {
-				this.add(ZERO, this.nextPoint(direction)); // increases size of the snake.
+				this.push(this.newAxis(this.getX(ZERO), BEARING_X[direction.ordinal()], this.grid.getWidth()),
+							this.newAxis(this.getY(ZERO), BEARING_Y[direction.ordinal()], this.grid.getHeight())); // increases size of the snake.
 		}
-		
-		// The reduce size method is a wrapper around the ArrayList removeRange method which has protected access restrictions.
-		// It receives a fromIndex Integer value which removes from that index point to the max length of the snakes size.
+
+		// The reduce size method receives a fromIndex Integer value which removes from that index point up to the tail, the tail itself is kept.
 		public void reduceSize(int fromIndex) {
-				this.removeRange(fromIndex, (this.size()-1));
+				if (fromIndex >= (this.size - ONE)) return; // There isn't anything to remove.
+				int tail = this.cells[(this.head + this.size - ONE) & (this.cells.length - ONE)];
+				for (int i = fromIndex; i < (this.size - ONE); i++) this.grid.removeSnake(this.getX(i), this.getY(i), this.id); // Removes the body points from the grid.
+				this.cells[(this.head + fromIndex) & (this.cells.length - ONE)] = tail; // Moves the tail to follow the remaining body.
+				this.size = fromIndex + ONE;
 		}
-		
+
 		// The move method receives a Compass direction and increments the size based upon that direction.
-		// If the snake is greater than its initial length, it will remove the trailing tail point. Therefore giving the snake a moving sensation without constanting growing with every movement.		
+		// If the snake is greater than its initial length, it will remove the trailing tail point. Therefore giving the snake a moving sensation without constanting growing with every movement.
 		public void move(SnakeGame.Compass direction) {
 				this.incrementSize(direction); // Increments the snake by one body part.
-				if (this.size() > INITAL_LENGTH) {
-					this.remove((this.size()-ONE)); // Removes the tail.
+				if (this.size > INITAL_LENGTH) {
+					this.pop(); // Removes the tail.
 				}
 		}
-}
\ No newline at end of file
+}
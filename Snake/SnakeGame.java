@@ -1,18 +1,13 @@
 import java.util.List;
 import java.util.ArrayList;
-import java.util.Random;
-import java.awt.Point;
-import java.io.IOException;
-import java.io.FileNotFoundException;
-import java.io.File;
 import java.io.Serializable;
-import java.net.URL;
 
 /**
 *	The Snake Game class acts as a controller to the Snake Game. It handles all the direct operations for the game, and stores all the current game information. The player information, with relating statistics to the game are calculated and stored within this class. 
 *	The class handles the incrementing of the game levels, the selection of a random game map, and the storing of the game elements  such as energy items, power ups, and wall blocks.
 *	The snake itself is stored within this class, and is the only class with knowledge of the snake. The game movement directions are handled within this class and are based on the Compass directions enumerated type. 
-*	The game time uses the GameTimer class, which has a mode of stopwatch; which increments the game time in a separate thread to the main application.
+*	Every random decision of the game is made by the game's GameRandom, which is created from the game's seed when the game is started; therefore starting a game with the same seed and giving it the same input plays the same game.
+*	The game time uses the GameTimer class, which has a mode of stopwatch; which increments the game time as the game's GameClock is advanced. The clock is paused whenever the game isn't being played, so therefore all of the game's timers stop together.
 *	The Snake Game class has a game mode enumerated type, which allows for the game to enter different states; such as Playing, Paused, Stopped, or Game Over. The other methods check if the game is in its correct state before proceeding to perform the action. 
 *	@author: Lance Baker
 **/
@@ -27,6 +22,7 @@ public class SnakeGame implements Constants, Serializable {
 		private Compass direction; // Storing the current direction
 		private DifficultyLevel difficultyLevel; // The current difficulty level
 		private GameMode mode; // Storing the current mode
+		private GameClock clock; // The clock which all of the game's timers read their time from.
 		private GameTimer timer; // The GameTimer used to count the playing seconds 
 		
 		private String playerName; // The Player's name.
@@ -35,25 +31,100 @@ public class SnakeGame implements Constants, Serializable {
 		private int energy; // Percent representing the amount of caffeine in the snakes body. 0 % will cause the snake to stop, and 100% will cause the speed of the snake to increase to a max. Caffeine can only be collected from energy drinks.
 		
 		private List<Energy> items; // List containing the energy items
+		private List<Energy> visibleItems; // The items which have been shown and haven't expired or been collected, which are the only items rendered.
+		private List<Energy> shownItems; // The items shown since the GameEngine last checked them for a collision.
+		private transient Energy.Listener itemListener; // Keeps the lists up to date as the items are shown and expire.
 		private List<Wall> walls; // List containing the Wall Blocks
-		private File[] gameMaps;  // Loaded Dynamically and Filled with the Level Files. This array is used to setRandomMap.
-		private Snake snake; // The snake which extends ArrayList<Point>
-		
-		// The SnakeGame receives the playerName (String) and the DifficultyLevel.
+		private int wallVersion; // Incremented whenever the wall blocks change, which allows the rendered walls to be kept until they change.
+		private Wall.Status wallStatus = Wall.Status.WALL_ACTIVE; // The status of all of the wall blocks.
+		private GameTimer wallDelay; // The delay until the walls become active again.
+		private String message = EMPTY_STRING; // The message shown to the player, such as the power up collected or the cause of the game over.
+		private GameTimer messageDelay; // The game time left to show the message.
+		private Snake snake; // The snake, which stores its body in a circular buffer.
+		private OccupancyGrid grid; // The grid storing the occupants of each cell, used for the collision detection.
+		private long seed; // The seed which the random is created from when the game starts.
+		private GameRandom random; // The source of the random decisions.
+		
+		// The SnakeGame receives the playerName (String) and the DifficultyLevel, the game is given a new seed.
 		public SnakeGame(String playerName, DifficultyLevel difficultyLevel) {
+				this(playerName, difficultyLevel, GameRandom.newSeed());
+		}
+		
+		// The SnakeGame receives the playerName (String), the DifficultyLevel, and the seed for the random decisions.
+		public SnakeGame(String playerName, DifficultyLevel difficultyLevel, long seed) {
 				this.playerName = playerName; // Sets the Player name.
 				this.difficultyLevel = difficultyLevel; // Sets the DifficultyLevel
-				this.timer = new GameTimer(GameTimer.Type.STOPWATCH); // Creats a new GameTimer with the STOPWATCH Type (in which increments seconds). The GameTimer has two states, it can either be a StopWatch or a CountDown.	
+				this.clock = new GameClock(); // Creates the clock for the game, which the GameEngine advances on each tick.
+				this.timer = new GameTimer(this.clock, GameTimer.Type.STOPWATCH); // Creats a new GameTimer with the STOPWATCH Type (in which increments seconds). The GameTimer has two states, it can either be a StopWatch or a CountDown.	
 								
 				this.items = new ArrayList<Energy>(); // Instantiates the Energy items ArrayList.
+				this.visibleItems = new ArrayList<Energy>();
+				this.shownItems = new ArrayList<Energy>();
+				this.itemListener = new Energy.Listener() {
+						public void shown(Energy item) {
+								synchronized (visibleItems) {
+									visibleItems.add(item);
+								}
+								shownItems.add(item);
+						}
+						public void expired(Energy item) {
+								removeItem(item);
+						}
+				};
 				this.walls = new ArrayList<Wall>(); // Instantiates the Wall Blocks ArrayList.
-				this.snake = new Snake(); // Instantiates a new Snake (which extends ArrayList<Point>)
+				this.grid = new OccupancyGrid(); // Instantiates the grid, which the snake, walls and items get registered in.
+				this.snake = new Snake(this.grid); // Instantiates a new Snake, which registers its body in the grid.
+				this.seed = seed;
+				this.random = new GameRandom(seed);
+				this.wallDelay = new GameTimer(this.clock, GameTimer.Type.COUNTDOWN); // The delay reads the game clock, so it is paused along with the game.
+				this.wallDelay.setListener(new GameTimer.Listener() {
+						public void expired(GameTimer timer) {
+								wallStatus = Wall.Status.WALL_ACTIVE; // Sets the walls back to Active when the delay has expired.
+						}
+				});
+				this.messageDelay = new GameTimer(this.clock, GameTimer.Type.COUNTDOWN); // The message is also shown for game time, so it stays while the game is paused.
+				this.messageDelay.set(ZERO);
+		}
+
+		// Adds the item to the game. It is registered in the grid straight away, so nothing else is placed on its block; and is shown once its delay is up.
+		public void addItem(Energy item) {
+				synchronized (this.items) {
+					this.items.add(item);
+				}
+				this.grid.addItem(item);
+				item.schedule(this.itemListener);
+		}
+
+		// Removes the item from the game, such as once it has been collected or has expired.
+		public void removeItem(Energy item) {
+				item.cancel();
+				synchronized (this.items) {
+					this.items.remove(item);
+				}
+				synchronized (this.visibleItems) {
+					this.visibleItems.remove(item);
+				}
+				this.shownItems.remove(item);
+				this.grid.removeItem(item);
+		}
+
+		// Removes all of the items, ending their lifecycles.
+		private void clearItems() {
+				synchronized (this.items) {
+					for (Energy item : this.items) item.cancel();
+					this.items.clear();
+				}
+				synchronized (this.visibleItems) {
+					this.visibleItems.clear();
+				}
+				this.shownItems.clear();
+				this.grid.clearItems();
 		}
 		
 		// This method is used to start the game timer.
 		private void startTimer() {
 				this.timer.set(0); // Since the initial game timer is incrementing time, the default seconds will be set to Zero.
-				this.timer.start(); // This will start the game timer, in which uses a Thread type wrapping on the javax.swing.Timer class.
+				this.timer.start(); // This will start the game timer, in which counts the seconds from the game clock.
 		}
 		
 		public void incrementLevel() {
@@ -62,38 +133,20 @@ public class SnakeGame implements Constants, Serializable {
 		
 		public void nextLevel() {
 				this.incrementLevel(); // Increments the next level and then displays a random map
-				this.setRandomMap(); // A random map is displayed based on a randomly generated index value from the File[] gameMaps Array.
-		}
-		
-		// This method is used to peak inside of the maps directory, and load all of the files inside of this directory dynamically into a File[] array.
-		private void loadGameMaps() {
-				try {
-					URL dirURL = getClass().getClassLoader().getResource(MAP_PATH); // Gets the directory
-					if (dirURL != null && dirURL.getProtocol().equals("file")) {
-						// Gets all of the files within the resource folder and loads it into a URL. 
-						//For which is then passed to a File Object, and then the files inside of this object is then accessed by the .listFiles() method.
-						// The gameMaps instance variable is now set to the File[] object array returned.
-						this.gameMaps = new File(dirURL.toURI()).listFiles(); // Sets the gameMaps to the file objects in the directory.
-					}
-				} catch (Exception ex) {
-					System.out.println("Can't Load Game Map Files");
-				}
+				this.setRandomMap(); // A random map is displayed based on a randomly generated index into the maps of the MapRegistry.
 		}
 		
-		// This method sets a random map based upon the file[] objects inside the gameMaps array.
+		// This method sets a random map from the maps which were loaded by the MapRegistry, therefore it doesn't read any files.
 		public void setRandomMap() {
-				try {
-					Random random = new Random();
-					if (this.gameMaps != null && this.gameMaps.length > 0) {
-						this.walls = new MapGetter(this.gameMaps[random.nextInt(this.gameMaps.length)]); // Selects a random map
-						if (Wall.isActive()) { // If the walls are active it delays the walls.
-							Wall.delayWalls(WALL_MIN_DELAY, WALL_MAX_DELAY); // Delays the walls from being active for a random duration
-						}
-					}
-				} catch (FileNotFoundException ex) {
+				GameMap map = MapRegistry.random(this.random); // Selects a random map
+				if (map != null) {
+					this.walls = map.createWalls();
+					this.grid.clearWalls(); // Replaces the walls in the grid with the walls of the new map.
+					for (Wall wall : this.walls) this.grid.addWall(wall);
+					this.wallVersion++; // The walls have changed.
+					this.delayWalls(WALL_MIN_DELAY, WALL_MAX_DELAY); // Delays the walls of the new map from being active for a random duration
+				} else {
 					System.out.println("Can't Find Map");
-				} catch (IOException ex) {
-					System.out.println("IO Exception");
 				}
 		}
 		
@@ -109,7 +162,29 @@ public class SnakeGame implements Constants, Serializable {
 		
 		// Checks whether the snake collides with the Obstacle received.
 		public boolean collision(Obstacle obstacle) {
-				return this.snake.collision(obstacle, GRID_SIZE, false);
+				return this.grid.isSnakeAt(obstacle);
+		}
+		
+		// Checks whether the snake collides with any of the Wall Blocks.
+		public boolean wallCollision() {
+				return this.grid.touchesWall();
+		}
+		
+		// Removes the Wall Blocks which the snake is lying on, and returns the amount of walls removed.
+		public int eatWalls() {
+				int eaten = 0;
+				if (this.grid.touchesWall()) { // Only checks the body parts if the snake is touching a wall.
+					for (int i = 0; i < this.snake.size(); i++) {
+						Wall wall = this.grid.wallAt(this.snake.getX(i), this.snake.getY(i));
+						if (wall != null) {
+							this.grid.removeWall(wall);
+							this.walls.remove(wall);
+							this.wallVersion++; // The walls have changed.
+							eaten++;
+						}
+					}
+				}
+				return eaten;
 		}
 		
 		// This method is used to move the snake. It decrements the energy level for each movement the snake makes.
@@ -126,7 +201,7 @@ public class SnakeGame implements Constants, Serializable {
 		
 		// This method is used to detect whether the snake collided with itself. It has to be checked seperatly due to the exception that will be thrown.
 		public void detectSnakeCollision() throws CollisionException {
-				if (this.snake.collision(this.snake.get(ZERO), SNAKE_SIZE, true)) { // If the snake collided with its own body, then it throws a Collision Exception.
+				if (this.grid.snakeAt(this.snake.getX(ZERO), this.snake.getY(ZERO)) > ONE) { // If the snake head shares its cell with its own body, then it throws a Collision Exception.
 					throw new CollisionException(CollisionException.CollideType.SNAKE_BODY);
 				}
 		}
@@ -136,40 +211,50 @@ public class SnakeGame implements Constants, Serializable {
 				this.snake.incrementSize(this.getDirection());
 		}
 		
-		// Returns the snake as a ArrayList of Point.
-		public ArrayList<Point> getSnakeBody() {
+		// Returns the grid which stores the occupants of each cell.
+		public OccupancyGrid getGrid() {
+				return this.grid;
+		}
+		
+		// Returns the snake, in which the body points are indexed from the head.
+		public Snake getSnakeBody() {
 				return this.snake;
 		}
 		
 		public void setGameMode(GameMode mode) {
 				switch(mode) {
 					case STARTED:
-							this.snake.clear(); // Clears the snake.
 							this.walls.clear(); // Removes all existing walls.
-							this.items.clear(); // Removes any energy items laying around.
+							this.wallVersion++;
+							this.clearItems(); // Removes any energy items laying around.
+							this.grid.clearWalls();
 							
-							this.setDirection(SnakeGame.Compass.NORTH); // Sets the default starting direction to north.
-							this.snake.add(new Point((PANEL_WIDTH / 2), (PANEL_HEIGHT / 2))); // Adds a starting point which is the screen's center location.
+							this.direction = SnakeGame.Compass.NORTH; // Sets the default starting direction to north, even if the game was restarted whilst heading south.
+							this.snake.reset((PANEL_WIDTH / 2), (PANEL_HEIGHT / 2)); // Clears the snake, and adds a starting point which is the screen's center location.
 							
 							this.setEnergy(MAX_ENERGY); // Sets the energy level to the Max amount.
 							this.totalPoints = 0; // Sets the total points to its initial value.
 							this.gameLevel = 1; // Sets the game level to one.
 							
-							this.loadGameMaps(); // Loads the maps in the map directory into a Array of File Objects
-							this.setRandomMap(); // Randomly loads a map.
+							this.random = new GameRandom(this.seed); // Starts the random decisions from the seed.
+							this.messageDelay.set(ZERO); // Clears the message of any earlier game.
+							this.setRandomMap(); // Randomly selects a map.
 							
+							this.clock.resume(); // Allows the clock to be advanced.
 							this.startTimer(); // Starts the game timer.
 							this.mode = GameMode.PLAYING; // Sets the mode to Playing.
 						break;
 					case PLAYING:
 						if (this.mode == GameMode.PAUSED) { // If the game is paused, the state can be changed back to playing.
 							this.timer.setStatus(GameTimer.Status.TICKING); // Changes the Game Timer back to its Ticking state.
+							this.clock.resume(); // Resumes the clock, which the items and walls also use.
 							this.mode = GameMode.PLAYING; // Sets the GameMode to playing.
 						}
 						break;
 					case PAUSED:
 						if (this.mode == GameMode.PLAYING) { // The game can only be paused if its currently playing.
 							this.timer.setStatus(GameTimer.Status.PAUSED); // Changes the GameTimer state to Paused.
+							this.clock.pause(); // Pauses the clock, so the items and walls don't expire whilst the game is paused.
 							this.mode = GameMode.PAUSED; // Sets the GameMode to paused.
 						}
 						break;
@@ -181,6 +266,7 @@ public class SnakeGame implements Constants, Serializable {
 					case GAMEOVER:
 						if (this.mode == GameMode.PLAYING) { // If the game is playing, the state can be set to GameOver.
 							this.timer.setStatus(GameTimer.Status.STOPPED); // Sets the GameTimer to stopped.
+							this.clock.pause(); // Stops the clock.
 							this.mode = GameMode.GAMEOVER; // Sets the GameMode to GameOver.
 						}
 						break;
@@ -218,8 +304,7 @@ public class SnakeGame implements Constants, Serializable {
 		
 		public void shrinkSnakeSize() {
 				// Reduces the size of the snake based on a random number.
-				Random random = new Random();
-				this.snake.reduceSize(random.nextInt(this.snake.size()-1));
+				this.snake.reduceSize(this.random.nextInt(this.snake.size()-1));
 		}
 		
 		public int getEnergy() {
@@ -239,14 +324,78 @@ public class SnakeGame implements Constants, Serializable {
 				return this.totalPoints; // Gets the current total points.
 		}
 		
+		// Delays the walls from becoming active, for a random amount of seconds between the minimum and maximum received.
+		public void delayWalls(int min, int max) {
+				this.wallStatus = Wall.Status.WALL_NOTACTIVE; // Sets the Walls to not active.
+				this.wallDelay.set(this.random.nextInt(min, max)); // Replaces any existing delay, so therefore the earlier delay doesn't set the walls back to active.
+				this.wallDelay.start(); // Starts the delay.
+		}
+		
+		public Wall.Status getWallStatus() {
+				return this.wallStatus; // Gets the status of the walls.
+		}
+		
+		public boolean isWallActive() { // Returns a boolean depicting whether the walls are in a active state.
+				return (this.wallStatus == Wall.Status.WALL_ACTIVE);
+		}
+		
+		// Shows the message received to the player, for the seconds of game time received.
+		public void setMessage(int seconds, String message) {
+				this.message = message;
+				this.messageDelay.set(seconds); // Replaces the time left of any earlier message.
+				this.messageDelay.start();
+		}
+		
+		// Gets the message shown to the player, or a empty string once its time has run out.
+		public String getMessage() {
+				return (this.messageDelay.getTime() > ZERO) ? this.message : EMPTY_STRING;
+		}
+		
+		// Returns a boolean depicting whether the message is shown, which it is if there is time left or if the game is over.
+		public boolean isMessageShown() {
+				return (this.messageDelay.getTime() > ZERO || this.isGameOver());
+		}
+		
+		// Gets the random, which all of the random decisions of the game are made with.
+		public GameRandom getRandom() {
+				return this.random;
+		}
+		
+		public long getSeed() {
+				return this.seed; // Gets the seed of the game.
+		}
+		
+		// Sets the seed, which is used from when the game is next started.
+		public void setSeed(long seed) {
+				this.seed = seed;
+		}
+		
 		public List<Energy> getItems() {
-				return this.items; // Gets the Energy Items.
+				return this.items; // Gets the Energy Items, including the items which are still pending.
+		}
+
+		// Gets the items which can be seen, which the list is locked on whilst it is iterated.
+		public List<Energy> getVisibleItems() {
+				return this.visibleItems;
+		}
+
+		// Gets the items shown since the list was last cleared, which are checked for a collision with the snake once it has moved.
+		List<Energy> getShownItems() {
+				return this.shownItems;
 		}
 		
 		public List<Wall> getWall() {
 				return this.walls; // Gets the Wall Blocks.
 		}
 		
+		public int getWallVersion() {
+				return this.wallVersion; // Gets the version of the Wall Blocks, which changes whenever a wall is added or removed.
+		}
+		
+		public GameClock getClock() {
+				return this.clock; // Gets the game clock.
+		}
+		
 		public int getTime() {
 				return this.timer.getTime(); // Gets the Current Game Time.
 		}
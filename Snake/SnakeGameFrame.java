@@ -1,4 +1,5 @@
 import java.util.*;
+import java.io.IOException;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
@@ -10,7 +11,7 @@ import javax.swing.table.AbstractTableModel;
 /**
 *	The Snake game frame is the starting point for the application. 
 *	The class contains a MenuAction enumerated type, which completes actions based on the Menu item selected. 
-*	The class stores the games in a structure of LinkedList<SnakeGame> and can be serialized and reloaded back into the system. 
+*	The result of each completed game is kept in the results journal; which is indexed by score in the Leaderboard, and read back when the results are viewed. 
 *	The snake game frame creates the initial layout, and firstly instantiates a Snake Panel with no game loaded. 
 *	The SnakeGame is later created, when the user selects the New Game option; then the Snake Panel receives the SnakeGame created and begins the game play.
 *	@author: Lance Baker.
@@ -20,12 +21,12 @@ public class SnakeGameFrame extends JFrame implements Constants {
 		private static final long serialVersionUID = 1L;
 		
 		// Actions for the Menu
-		public enum MenuAction { 	NEW_GAME, RESTART_GAME, SAVE_RESULTS, RESTORE_GAME, EXIT_GAME,
+		public enum MenuAction { 	NEW_GAME, RESTART_GAME, SAVE_RESULTS, RELOAD_RESULTS, EXIT_GAME,
 									SET_LEVEL, SET_PLAYER, VIEW_RESULTS, ABOUT_BOX	};
 
 		private SnakePanel snakePanel; // The snake panel
-		private LinkedList<SnakeGame> games; // The snake games.
-		private Serialize<LinkedList<SnakeGame>> serialize; // The serialize object for the SnakeGame LinkedList.
+		private ResultsJournal journal; // The journal of the completed game results.
+		private Leaderboard leaderboard; // The index of the journal, which orders the results by score.
 		
 		private String defaultPlayer; // The default player name
 		private SnakeGame.DifficultyLevel defaultDifficulty; // The default difficulty level
@@ -36,9 +37,7 @@ public class SnakeGameFrame extends JFrame implements Constants {
 				this.setResizable(false);
 				this.setTitle(MAIN_HEADING);
 				this.setVisible(true);
-				// Instantiates the games LinkedList and serialize object
-				this.games = new LinkedList<SnakeGame>();
-				this.serialize = new Serialize<LinkedList<SnakeGame>>();
+				this.openJournal(); // Opens the results journal.
 				
 				this.defaultPlayer = DEFAULT_PLAYER; // Sets the player and difficulty level to the default values
 				this.defaultDifficulty = SnakeGame.DifficultyLevel.SLUG;
@@ -78,14 +77,13 @@ public class SnakeGameFrame extends JFrame implements Constants {
 				// Adds a FocusAdaper for the FocusGained and FocusLost on the snakePanel.
 				this.snakePanel.addFocusListener(new FocusAdapter() {
 					public void focusGained(FocusEvent e) {
-							snakePanel.paintScreen(); // When the focus is gained, paint the screen of the snake panel. 
 							if ((snakePanel.getCurrentGame() != null) && (!snakePanel.getCurrentGame().isGameOver())) {
-								snakePanel.getCurrentGame().setGameMode(SnakeGame.GameMode.PLAYING); // If the game is paused, it changes the state back to playing.
+								snakePanel.setGameMode(SnakeGame.GameMode.PLAYING); // If the game is paused, it changes the state back to playing.
 							}
 					}
 					public void focusLost(FocusEvent e) {
 							if ((snakePanel.getCurrentGame() != null) && (!snakePanel.getCurrentGame().isGameOver())) {
-								snakePanel.getCurrentGame().setGameMode(SnakeGame.GameMode.PAUSED); // Pauses the game when the focus is lost.
+								snakePanel.setGameMode(SnakeGame.GameMode.PAUSED); // Pauses the game when the focus is lost.
 							}
 					}
 				});
@@ -96,9 +94,8 @@ public class SnakeGameFrame extends JFrame implements Constants {
 		}
 		
 		public void createGame(String playerName, SnakeGame.DifficultyLevel difficulty) {
-				if (this.games == null) this.games = new LinkedList<SnakeGame>(); // If the games list is null - it instantiates the list.
-				this.games.add(new SnakeGame(playerName, difficulty)); // Adds a new SnakeGame containing the player name and difficulty level to the list.
-				this.snakePanel.newGame(this.games.getLast()); // Adds the SnakeGame to the SnakePanel.
+				// Passes a new SnakeGame containing the player name and difficulty level to the SnakePanel; the game is only kept until the next game, as its result goes to the journal.
+				this.snakePanel.newGame(new SnakeGame(playerName, difficulty));
 				this.toggleMenuItems(true); // Enables the game menu items.
 		}
 		
@@ -109,12 +106,43 @@ public class SnakeGameFrame extends JFrame implements Constants {
 				((JMenuItem)fileMenu.getMenuComponent(2)).setEnabled(state);
 		}
 		
-		// This method iterates through each SnakeGame stored in the games list
-		// increments the counter for the games which have a GameOver state.
-		private int getCompletedCount() {
-				int length = 0;
-				for (SnakeGame game : this.games) length += (game.isGameOver()) ? 1 : 0;
-				return length;
+		// Opens the results journal, which recovers the file if the application was stopped part of the way through saving.
+		private void openJournal() {
+				try {
+					this.journal = new ResultsJournal(SAVE_FILE_NAME);
+				} catch (IOException ex) {
+					this.journal = null;
+					System.out.println("Can't Open Results " + ex.getMessage());
+				}
+				this.snakePanel.setJournal(this.journal);
+				this.leaderboard = null;
+				if (this.journal != null) {
+					try {
+						// Opens the index, which adds any results written since it was last saved; it is then added to as each result is written.
+						this.leaderboard = Leaderboard.open(SAVE_FILE_NAME, LEADERBOARD_FILE_NAME);
+						this.journal.setListener(this.leaderboard);
+					} catch (IOException ex) {
+						System.out.println("Can't Open Leaderboard " + ex.getMessage());
+					}
+				}
+		}
+		
+		// Writes the queued results, and saves the leaderboard index so that it doesn't need to be rebuilt when the game is next started.
+		// Returns false if the results couldn't be written, in which case they stay queued and are written again.
+		private boolean saveResults() {
+				if (this.journal == null) return true;
+				if (!this.journal.flush()) {
+					System.out.println("Can't Save Results, They Will Be Written Again");
+					return false;
+				}
+				if (this.leaderboard != null) {
+					try {
+						this.leaderboard.save();
+					} catch (IOException ex) {
+						System.out.println("Can't Save Leaderboard " + ex.getMessage());
+					}
+				}
+				return true;
 		}
 		
 		public void LaunchAction(MenuAction actions) {
@@ -126,15 +154,21 @@ public class SnakeGameFrame extends JFrame implements Constants {
 							this.snakePanel.restartGame(); // Restarts the snake game
 							break;
 						case SAVE_RESULTS:						
-							if (this.games.size() > 0) { // If the games list is greater than zero, it serializes the games list.
-								this.serialize.saveObject(this.games, SAVE_FILE_NAME);
+							// The results are added to the journal as each game finishes, so therefore this only waits for them to be written.
+							if (!this.saveResults()) {
+								JOptionPane.showMessageDialog(this, "The results couldn't be saved, they will be written again.", "Save Results", JOptionPane.ERROR_MESSAGE);
 							}
 							break;
-						case RESTORE_GAME:
-							// Restores the serialized games list.
-							this.games = this.serialize.loadObject(SAVE_FILE_NAME); 
+						case RELOAD_RESULTS:
+							// Reopens the results journal from the disk, which recovers the file if it has been damaged.
+							this.saveResults();
+							if (this.journal != null) this.journal.close();
+							this.openJournal();
 							break;
 						case EXIT_GAME:
+							// Writes any results which haven't been written yet; if they can't be written, it asks whether to exit anyway.
+							if (!this.saveResults() && JOptionPane.showConfirmDialog(this, "The results couldn't be saved. Exit anyway?", "Exit", 
+													JOptionPane.YES_NO_OPTION, JOptionPane.WARNING_MESSAGE) != JOptionPane.YES_OPTION) break;
 							System.exit(0); // Exits the application
 							break;
 						case SET_LEVEL:
@@ -145,7 +179,7 @@ public class SnakeGameFrame extends JFrame implements Constants {
 								if (difficulty != null) {
 									this.defaultDifficulty = (SnakeGame.DifficultyLevel)difficulty; // Sets the default difficulty level
 									if ((this.snakePanel.getCurrentGame() != null) && (this.snakePanel.getCurrentGame().getGameMode() == SnakeGame.GameMode.PLAYING)) {
-										this.snakePanel.getCurrentGame().setDifficultyLevel((SnakeGame.DifficultyLevel)difficulty); // Changes the difficulty level in the current game.
+										this.snakePanel.setDifficultyLevel((SnakeGame.DifficultyLevel)difficulty); // Changes the difficulty level in the current game.
 									}
 								}
 							break;
@@ -169,16 +203,23 @@ public class SnakeGameFrame extends JFrame implements Constants {
 				}
 		}
 		
-		// This method is used to get the completed game results (the games with a game over state) from the games list.
-		// It converts it to a 2 dimensional object array, which will then be placed inside of a JTable.
-		public Object[][] getGameResults() {
-				Object[][] results = new Object[this.getCompletedCount()][4];
-				for (int index = 0; index < this.games.size(); index++) {
-					if (this.games.get(index).isGameOver()) {
-						results[index] = this.games.get(index).getStatistics(); // Gets the statistics array from each game which is in a game over state.
-					}
+		// This method is used to get the completed game results (the games with a game over state) from the results journal.
+		// The journal is mapped rather than read, so therefore the results are only decoded as the JTable displays them. It returns null if the results can't be read.
+		public MappedResults getGameResults() {
+				if (this.journal == null) return null;
+				try {
+					this.journal.flush(); // Writes any results which are still queued.
+					return MappedResults.open(SAVE_FILE_NAME);
+				} catch (IOException ex) {
+					System.out.println("Can't Read Results " + ex.getMessage());
+					return null;
 				}
-				return results;
+		}
+		
+		// Gets the leaderboard, once the results which are still queued have been written and indexed. It returns null if the results can't be read.
+		public Leaderboard getLeaderboard() {
+				if (this.journal != null) this.journal.flush();
+				return this.leaderboard;
 		}
 		
 		public String getDefaultPlayer() {
@@ -305,7 +346,7 @@ class AboutBox extends JDialog implements Constants {
 				};
 						
 				this.setBackground(new Color(255, 255, 255)); // Sets the background colour to white.
-				BackGroundPanel panel = new BackGroundPanel(IMAGES_PATH + ABOUT_BOX_IMAGE); // Creates the background image.
+				BackGroundPanel panel = new BackGroundPanel(SpriteCache.Sprite.ABOUT); // Creates the background image.
 				panel.setLayout(new BorderLayout()); // Sets the layout of the panel
 				
 				JPanel infoBox = new JPanel(new BorderLayout()); // Creates a info box, which contains the application information.
@@ -350,11 +391,8 @@ class AboutBox extends JDialog implements Constants {
 		private class BackGroundPanel extends JPanel {
 				private static final long serialVersionUID = 1L;
 				private Image image;
-				public BackGroundPanel(String location) { // Receives the location of the image in its contructor.
-						try {
-							// Creates a ImageIcon from the Resource location, and Gets and Sets the Image.
-							this.image = new ImageIcon(this.getClass().getClassLoader().getResource(location)).getImage();
-						} catch (Exception ex) { }
+				public BackGroundPanel(SpriteCache.Sprite sprite) { // Receives the sprite of the image in its contructor.
+						this.image = SpriteCache.get(sprite); // Gets and Sets the Image from the SpriteCache.
 						this.setPreferredSize(new Dimension(350, 300)); // Sets the preferred size of the background panel.
 				}
 				protected void paintComponent(Graphics g) {
@@ -367,13 +405,13 @@ class AboutBox extends JDialog implements Constants {
 }
 
 /**
-*	This is a JDialog which displays the scores collected from the Snake game.
-*	It contains a scrollable JTable with a TableModel.
+*	This is a JDialog which displays the scores collected from the Snake game, ranked by the total score for a difficulty level.
+*	It contains a JComboBox of the difficulty levels, and a scrollable JTable with a TableModel; the rows are read from the Leaderboard in rank order, so therefore the results are never sorted.
 *	@author: Lance Baker.
 **/
 class ViewResults extends JDialog {
 		private static final long serialVersionUID = 1L;
-		private static final String[] RESULT_HEADINGS = { "Player Name", "Total Points", "Game Level", "Time ", "Total Score" }; // The titles for the data in the JTable.
+		private static final String[] RESULT_HEADINGS = { "Rank", "Player Name", "Total Points", "Game Level", "Time ", "Total Score" }; // The titles for the data in the JTable.
 		private static final String[] BUTTON_NAMES = { "Close" }; // For the ButtonBox.
 		
 		private static final String GAME_RESULTS = "Game Results"; // Title for the JDialog
@@ -387,39 +425,63 @@ class ViewResults extends JDialog {
 								}
 						}
 				};
+				// Creates the TableModel for the default difficulty level, which changes to the difficulty level selected in the JComboBox.
+				final ResultsTableModel model = new ResultsTableModel(parent.getLeaderboard(), parent.getGameResults(), RESULT_HEADINGS);
+				model.setDifficulty(parent.getDefaultDifficulty());
+				final JComboBox<SnakeGame.DifficultyLevel> levels = new JComboBox<SnakeGame.DifficultyLevel>(SnakeGame.DifficultyLevel.values());
+				levels.setSelectedItem(parent.getDefaultDifficulty());
+				levels.addActionListener(new ActionListener() {
+						public void actionPerformed(ActionEvent e) {
+								model.setDifficulty((SnakeGame.DifficultyLevel)levels.getSelectedItem());
+						}
+				});
+				this.getContentPane().add(levels, BorderLayout.NORTH);
 				// Creates and Adds the Scrollable JTable with the TableModel to the Center location of the default container.
-				this.getContentPane().add(new JScrollPane(new JTable(new ResultsTableModel(parent.getGameResults(), RESULT_HEADINGS))), BorderLayout.CENTER);
+				this.getContentPane().add(new JScrollPane(new JTable(model)), BorderLayout.CENTER);
 				// Creates and Adds the ButtonBox to the South location of the default container.
 				this.getContentPane().add(new ButtonBox(BUTTON_NAMES, action), BorderLayout.SOUTH);
 				
-				this.setSize(new Dimension(400, 200)); // Sets a fixed size to the JDialog
+				this.setSize(new Dimension(450, 240)); // Sets a fixed size to the JDialog
 				this.setResizable(false); // Ensures it cannot be resized.
 				this.setLocationRelativeTo(parent); // Sets the location to the center of the parent.
 				this.setTitle(GAME_RESULTS); // Sets the title.
 				this.setVisible(true); // Makes the JDialog visible.
 		}
 		
-		// TableModel used to handle the Array of data, and Column names. It disallows the user from editing the cells.
+		// TableModel used to handle the leaderboard, the mapped results, and Column names. Each row is found in the leaderboard by its rank, and decoded from the results when it is displayed. It disallows the user from editing the cells.
 		private class ResultsTableModel extends AbstractTableModel {
 				private static final long serialVersionUID = 1L;
-				private Object[][] data;
+				private Leaderboard leaderboard;
+				private MappedResults data;
 				private String[] columns;
+				private SnakeGame.DifficultyLevel difficulty; // The difficulty level of the results displayed.
+				private int rows; // The amount of results of the difficulty level, when it was selected.
 						
-				public ResultsTableModel(Object[][] data,  String[] columns) {
+				public ResultsTableModel(Leaderboard leaderboard, MappedResults data,  String[] columns) {
+					this.leaderboard = leaderboard;
 					this.data = data;
 					this.columns = columns;
 				}
 				
+				public void setDifficulty(SnakeGame.DifficultyLevel difficulty) {
+					this.difficulty = difficulty;
+					this.rows = (this.leaderboard != null && this.data != null) ? this.leaderboard.size(difficulty) : 0;
+					this.fireTableDataChanged();
+				}
+				
 				public int getColumnCount() {			
 					return this.columns.length;
 				}
 				
 				public int getRowCount() {
-					return this.data.length;
+					return this.rows;
 				}
 				
 				public Object getValueAt(int row, int col){
-					return this.data[row][col];
+					if (col == 0) return row + 1; // The rank.
+					int record = this.leaderboard.getRecord(this.difficulty, row + 1);
+					// A result written after the results were mapped isn't displayed, until the results are viewed again.
+					return (record >= 0 && record < this.data.size()) ? this.data.get(record).getStatistics()[col - 1] : null;
 				}
 				
 				public String getColumnName(int col) {
@@ -1,36 +1,73 @@
 import javax.swing.*;
 import java.awt.Graphics;
 import java.awt.Image;
+import java.awt.Rectangle;
 import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.FlowLayout;
-import java.awt.Toolkit;
 import java.awt.Font;
-import java.awt.Point;
 import java.awt.event.*;
 import java.util.*;
-import javax.imageio.ImageIO;
-import java.net.URL;
-import javax.sound.sampled.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.io.IOException;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Paths;
 
 /**
 *	The Snake Panel class handles the rendering and processing of game elements. 
 *	It contains a reference to the SnakeGame, and does not contain any direct data relating to the game play; therefore allowing the game to create a different game without having to recreate the Snake Panel itself.
-*	The Snake Panel class processes the game items, (it doesnt detect collisions directly) and determines whether the item has been picked up and performs an associated action associated with the item type.
+*	The Snake Panel class renders the game items, and passes each tick to the GameEngine (which determines whether a item has been picked up, and performs the action associated with the item type).
+*	It receives the events from the GameEngine, in order to play the sounds and display the game text.
+*	The game is updated by a session of the shared SessionHost (which the panel performs the ticks for), whereas the frames are drawn by the render thread of the GameCanvas; the snake is drawn moving smoothly between the updates.
+*	If the game is rendered incrementally (the INCREMENTAL_RENDERING system property), the snake is drawn cell by cell instead, and each frame only redraws the regions which were marked as changed.
+*	If the REPLAY_DIRECTORY system property is set, each game is recorded; and the Replay is saved to that directory when the game is over, by the replay writer thread rather than the game loop.
+*	If the AUTOPILOT system property is set, the snake is steered by the Autopilot instead of the keyboard.
 *	@author: Lance Baker
 **/
 
-public class SnakePanel extends JPanel implements Runnable, Constants {
+public class SnakePanel extends JPanel implements SessionHost.Ticker, GameEngine.Listener, GameCanvas.Renderer, Constants {
 		private static final long serialVersionUID = 1L;
-		private static Image gameImage;
-		private static GameTimer textDisplay;
-		private static String gameText;
-		
-		// This lastSecond static variable is used to work out when a new second has occurred. 
-		// This is due because the main thread sleep time can vary, and the game timer operates under a different thread; therefore it allows time based actions to occur under the main thread.
-		private static int lastSecond;
+		private static final long NANOS_PER_MILLI = 1000000L;
+		private static final SessionHost HOST = new SessionHost(1); // Runs the game loops of all of the panels, on a single thread.
+		private static final ExecutorService REPLAY_WRITER = Executors.newSingleThreadExecutor(new ThreadFactory() { // Saves the replays, so therefore the game loop doesn't wait for the disk.
+				public Thread newThread(Runnable task) {
+						Thread thread = new Thread(task, "ReplayWriter");
+						thread.setDaemon(true);
+						return thread;
+				}
+		});
+		private static final Rectangle HUD_AREA = new Rectangle(ZERO, PANEL_HEIGHT, PANEL_WIDTH, HUD_HEIGHT); // The region of the HUD statistics.
+		private static final Rectangle TEXT_AREA = new Rectangle(ZERO, (PANEL_HEIGHT / 4) - 24, PANEL_WIDTH, (PANEL_HEIGHT / 3) - (PANEL_HEIGHT / 4) + 32); // The region of the game text.
 		
 		private SnakeGame game; // Stores the current game, which gets loaded from the load game method.
+		private GameEngine engine; // The engine which performs the rules on the current game.
+		private SessionHost.Session session; // The session which runs the game loop of the current game.
+		private GameCanvas canvas; // The canvas which the game gets rendered onto, it replaces the default image once the first game begins.
+		private WallLayer wallLayer = new WallLayer(); // The background with the walls drawn on, which is only rendered when the walls change.
+		private ResultsJournal journal; // The journal which the result of each completed game is added to.
+		private String replays = System.getProperty(REPLAY_DIRECTORY); // The directory which the replays are saved to, or null if the games aren't recorded.
+		private Replay.Recorder recorder; // Records the current game.
+		
+		// The snake body from before the last update, which allows the snake to be drawn moving smoothly between the updates.
+		private int[] previousX = new int[INITAL_LENGTH];
+		private int[] previousY = new int[INITAL_LENGTH];
+		private int previousSize;
+		private long lastUpdate; // The time of the last update in nanoseconds.
+		private int updateLength; // The time until the next update in milliseconds.
+		
+		// The state of the game when it was last rendered incrementally, which is compared each frame to find the regions which have changed.
+		private boolean incremental = Boolean.getBoolean(INCREMENTAL_RENDERING); // Whether the game is rendered incrementally.
+		private DirtyRegions regions = new DirtyRegions(); // The regions which have changed since the last frame.
+		private Image renderedLayer; // The wall layer which was drawn.
+		private SnakeGame.GameMode renderedMode; // The game mode.
+		private int renderedHeadX, renderedHeadY; // The cell which was drawn as the snake head.
+		private int[] renderedHud = new int[4]; // The HUD statistics.
+		private String renderedText; // The game text, or null if there wasn't any.
+		private Set<Energy> visibleItems = Collections.newSetFromMap(new IdentityHashMap<Energy, Boolean>()); // The items which were drawn.
+		private Set<Energy> availableItems = Collections.newSetFromMap(new IdentityHashMap<Energy, Boolean>()); // The items which are available this frame.
+		private List<Energy> drawnItems = new ArrayList<Energy>(); // The items which were drawn, in the order they are drawn by a full frame; as the sprites of items next to each other overlap.
 		
 		public SnakePanel() {
 				this.setBackground(Color.white); // Sets the initial background to white.
@@ -38,14 +75,15 @@ public class SnakePanel extends JPanel implements Runnable, Constants {
 				this.setFocusable(true); // Makes it so the game's panel can be focused on.
 				this.setControls(); // This calls a method which registers the keyboard actions to the panel.
 				this.setLayout(new FlowLayout(FlowLayout.CENTER, 0, 0)); // Sets the initial layout.
-				// Loads the default background image, which gets shown when the game application is first loaded.
-				this.add(new JLabel(new ImageIcon(this.getClass().getClassLoader().getResource(IMAGES_PATH + DEFAULT_IMAGE))));
+				SpriteCache.load(); // Loads all of the game images at the start, so therefore they don't get loaded whilst the game is running.
+				SoundEngine.load(); // Loads the sounds at the start as well.
+				MapRegistry.load(); // Reads all of the game maps, so therefore changing level doesn't read any files.
+				// Adds the default background image, which gets shown when the game application is first loaded.
+				this.add(new JLabel(new ImageIcon(SpriteCache.get(SpriteCache.Sprite.MAIN))));
 		}
 				
 		private void startGame() {
-				this.game.setGameMode(SnakeGame.GameMode.STARTED); // Changes the game mode to started.
-				lastSecond = 0; // Sets the static lastSecond variable back to its initial value.
-				this.addEnergy(); // Adds the initial amount of energy to the game.
+				this.engine.start(); // Starts the game, which adds the initial amount of energy to the game.
 		}
 		
 		private void setControls() {
@@ -55,8 +93,7 @@ public class SnakePanel extends JPanel implements Runnable, Constants {
 						public void actionPerformed(ActionEvent e) { // The actionPerformed method gets triggered when the action has occured.
 								SnakeGame.Compass currentDirection = SnakeGame.Compass.valueOf(e.getActionCommand()); // Matches the action command to a compass enum.
 								if (currentDirection != game.getDirection()) { // Checks whether its a different direction before proceeding, to avoid holding down the KeyBoard button.
-									game.setDirection(currentDirection); // Sets the new direction based off the converted ActionCommand
-									updateGame(); // Updates the Game
+									updateGame(currentDirection, ZERO); // Updates the Game with the new direction based off the converted ActionCommand, without any game time passing.
 								}
 						}
 				};
@@ -64,7 +101,7 @@ public class SnakePanel extends JPanel implements Runnable, Constants {
 				final Action options = new AbstractAction() {
 						public static final long serialVersionUID = 1L;
 						public void actionPerformed(ActionEvent e) {
-								game.setGameMode(SnakeGame.GameMode.valueOf(e.getActionCommand())); // Sets the current game mode based off the action command received.
+								setGameMode(SnakeGame.GameMode.valueOf(e.getActionCommand())); // Sets the current game mode based off the action command received.
 						}
 				};
 				
@@ -81,173 +118,192 @@ public class SnakePanel extends JPanel implements Runnable, Constants {
 		}
 		
 		
-		private boolean isNewSecond() {
-				// This method is used to determine whether the GameTimer object (which the SnakeGame uses for the incrementing of the game time) has gone to a new second.
-				// This is because the snake game could be running in a thread which could only sleeps for 200ms, therefore inorder to do time based actions - the game must check whether a new second has ticked over to avoid doing the same action numerous times.
-				if (this.game.getTime() > lastSecond) { // Checks whether the game time is greater than the last second recorded.
-						lastSecond = this.game.getTime(); // If it is a new second it sets the last known time to the current time.
-						return true; // returns true if its a new second.
+		// This method gets called when the user presses a keyboard directional button (with the new direction), and when the thread updates the game (with a null direction).
+		// The millis received is the game time which has passed since the last update. Therefore it will need to be synchronized to only allow one execution of the method to occur at the same time.
+		// The game is rendered separately by the GameCanvas, therefore this only keeps the snake's previous body for the rendering to move between.
+		private synchronized void updateGame(SnakeGame.Compass direction, int millis) {
+				if (this.game.getGameMode() != SnakeGame.GameMode.GAMEOVER) { // Only does the following if the game is in a state other than gameover
+					this.keepPreviousBody(); // Keeps the body of the snake before it moves.
+					this.engine.step(direction, millis); // Performs one tick of the game rules.
+					this.lastUpdate = System.nanoTime();
+					this.updateLength = this.game.getSpeed(); // The time until the next update.
 				}
-				return false;
 		}
 		
-		// This method gets called when the user presses a keyboard directional button, and when the thread updates the game.
-		// Therefore it will need to be synchronized to only allow one execution of the method to occur at the same time.
-		private synchronized void updateGame() {
-				try {
-					// Creates the game image to the height and width of the required amounts. 
-					if (gameImage == null) gameImage = this.createImage(PANEL_WIDTH, (PANEL_HEIGHT + HUD_HEIGHT));
-					if (gameImage != null) { // If the game image is not null it will render the screen and perform actions to the snake game.
-						if (this.game.getGameMode() != SnakeGame.GameMode.GAMEOVER) { // Only does the following if the game is in a state other than gameover
-							Graphics g = this.gameRender(); // Renders the game, and adds a background image, returns the Graphics from the gameImage.
-							this.performTimeBasedActions(); // This method does actions which are based on the game time. Such as, adding the energy or incrementing to a new level.
-							this.game.moveSnake(); // Moves the snake by one point which is based on the current direction.
-							this.processItems(g); // Processes and renders the Energy items. It detects whether there was a collision with the item, and does corresponding actions.
-							this.drawSnake(g); // Draws the snake to the screen.
-							this.drawHud(g); // Draws the game statistics HUD to the game.
-							this.processWalls(g); // Processes and renders the Walls. It detects whether there was a collision, and throws a Collision Exception if the snake dies.
-							this.game.detectSnakeCollision(); // Detects whether there was a snake collision with itself, if there is - it throws a CollisionException.
-						}
-						this.paintScreen(); // Paints the screen
-					}
-				} catch (CollisionException ex) {
-					SnakePanel.setGameText(10, ex.getMessage()); // Sets the exception message to the GameText message.
-					this.game.setGameMode(SnakeGame.GameMode.GAMEOVER); // Changes the game state to GAME OVER.
-					SoundFX("attention.wav"); // Plays the WAV file.
+		// Copies the coordinates of the snake body, to the previous body arrays.
+		private void keepPreviousBody() {
+				Snake snake = this.game.getSnakeBody();
+				if (this.previousX.length < snake.size()) { // Increases the size of the arrays when the snake outgrows them.
+					this.previousX = new int[snake.size() * 2];
+					this.previousY = new int[snake.size() * 2];
 				}
+				for (int i = 0; i < snake.size(); i++) {
+					this.previousX[i] = snake.getX(i);
+					this.previousY[i] = snake.getY(i);
+				}
+				this.previousSize = snake.size();
 		}
 		
-		private void performTimeBasedActions() {
-					// Since the game is running in a main thread clocking in on a average 200ms,
-					// and the game timer is in its own incrementing every second - the game would loop through the update game code serveral times.
-					if (this.isNewSecond()) { // Therefore the isNewSecond() method ensures the following is only executed when a new second occurs.
-						if (gameReady(this.game.getLevelTime())) {
-							this.game.nextLevel(); // Increments the game level, and displays a random map.
-							this.addEnergy(); // Adds energy to the game.
-						} else if (gameReady(5)) { // Every 5 seconds it adds more energy to the game.
-							this.addEnergy();
-						}
-					}
+		// Renders a frame of the game onto the graphics received, this is called by the GameCanvas render thread.
+		public synchronized void render(Graphics g) {
+				if (this.game == null) return;
+				g.drawImage(this.wallLayer.get(this.game), ZERO, ZERO, null); // Draws the background and the Walls to the graphics.
+				this.drawItems(g); // Renders the Energy items.
+				this.drawSnake(g); // Draws the snake to the screen.
+				this.drawHud(g); // Draws the game statistics HUD to the game.
+				this.displayGameText(g); // Displays the game text.
+				if (this.incremental) {
+					this.markChanges(); // Keeps the state which was drawn, so that the next frame can be compared against it.
+					this.regions.take();
+				}
 		}
 		
-		private boolean gameReady(int seconds) { // Returns true if the current game time MOD the seconds received is equal to zero.
-				return ((this.game.getTime() % seconds) == 0);
+		// Draws only the regions which have changed since the last frame, onto the graphics holding the last frame.
+		public synchronized List<Rectangle> renderChanges(Graphics g) {
+				if (this.game == null) return Collections.emptyList();
+				this.markChanges(); // Marks the changes which aren't made to the OccupancyGrid.
+				if (this.regions.isEverything()) { // Too much has changed, so the whole frame is drawn.
+					this.render(g);
+					return null;
+				}
+				List<Rectangle> changed = this.regions.take();
+				for (Rectangle region : changed) {
+					this.renderRegion(g, region);
+				}
+				g.setClip(null);
+				return changed;
 		}
 		
-		private void addEnergy() {
-				Random random = new Random();
-				// It iterates multiple times depending on the gameLevel.
-				for (int i = ZERO, x = ZERO, y = ZERO; i < (ONE + this.game.getGameLevel()); ) { 
-					x = random.nextInt((PANEL_WIDTH / GRID_SIZE)) * GRID_SIZE; // Gets a random Coordinate based on the Grid Size.
-					y = random.nextInt((PANEL_HEIGHT / GRID_SIZE)) * GRID_SIZE;
-					if (!this.obstacleAt(x, y)) { // Checks whether there is a obstacle already at this position.
-						// Adds the item to the items list in the SnakeGame object.
-						this.game.getItems().add(((random.nextInt(5) == random.nextInt(5)) ? // There is a 1 in 5 chance the item is a power up, otherwise it adds a energy drink.
-												new PowerUP(x, y) : new EnergyDrink(x, y))); 
-					i++; // If a item added successfully it increments the counter.
+		// Compares the game against the state which was last rendered, marking the regions which have changed.
+		private void markChanges() {
+				Image layer = this.wallLayer.get(this.game);
+				if (layer != this.renderedLayer || this.game.getGameMode() != this.renderedMode) { // The walls or the mode changed, which changes the whole screen.
+					this.regions.invalidate();
+					this.renderedLayer = layer;
+					this.renderedMode = this.game.getGameMode();
+				}
+				Snake snake = this.game.getSnakeBody();
+				if (snake.size() > ZERO && (snake.getX(ZERO) != this.renderedHeadX || snake.getY(ZERO) != this.renderedHeadY)) {
+					this.regions.snakeChanged(this.renderedHeadX, this.renderedHeadY); // The previous head is now drawn as a body part.
+					this.renderedHeadX = snake.getX(ZERO);
+					this.renderedHeadY = snake.getY(ZERO);
+					this.regions.snakeChanged(this.renderedHeadX, this.renderedHeadY); // The head is usually a new cell, but it is a existing body part when the snake is shrunk from the head.
+				}
+				// The items which have appeared or expired since the last frame.
+				this.availableItems.clear();
+				if (this.game.getGameMode() != SnakeGame.GameMode.PAUSED) {
+					synchronized (this.game.getVisibleItems()) {
+						this.availableItems.addAll(this.game.getVisibleItems());
+						this.drawnItems.clear();
+						this.drawnItems.addAll(this.game.getVisibleItems());
 					}
+				} else {
+					this.drawnItems.clear();
+				}
+				for (Energy item : this.availableItems) {
+					if (!this.visibleItems.contains(item)) this.regions.blockChanged(item.x, item.y);
+				}
+				for (Energy item : this.visibleItems) {
+					if (!this.availableItems.contains(item)) this.regions.blockChanged(item.x, item.y);
+				}
+				Set<Energy> visible = this.visibleItems;
+				this.visibleItems = this.availableItems;
+				this.availableItems = visible;
+				
+				int[] hud = { this.game.getEnergy(), this.game.getTotalPoints(), this.game.getTime(), this.game.getGameLevel() };
+				if (!Arrays.equals(hud, this.renderedHud)) {
+					this.regions.add(HUD_AREA.x, HUD_AREA.y, HUD_AREA.width, HUD_AREA.height);
+					this.renderedHud = hud;
+				}
+				String text = (this.isGameTextShown()) ? (((this.game.isGameOver()) ? (SCORE + this.game.getTotalScore()) : EMPTY_STRING) + this.game.getMessage()) : null;
+				if ((text == null) ? (this.renderedText != null) : !text.equals(this.renderedText)) {
+					this.regions.add(TEXT_AREA.x, TEXT_AREA.y, TEXT_AREA.width, TEXT_AREA.height);
+					this.renderedText = text;
 				}
 		}
 		
-		private boolean obstacleAt(int x, int y) { // Checks the Grid Location for a Item or Wall.
-				return (Obstacle.checkExists(x, y, this.game.getItems()) ? true : Obstacle.checkExists(x, y, this.game.getWall()));
-		}
-		
-		// Processes and Renders the Items in the game. It checks whether the snake has collected a item, and does the corresponding actions associated with that item.
-		private void processItems(Graphics g) {
-				// Only completes the following if there are items stored in the list, and that the current game mode is playing.
-				if (this.game.getItems().size() > 0 && this.game.getGameMode() == SnakeGame.GameMode.PLAYING) {
-					synchronized (this.game.getItems()) { // Synchronizes the list to allow the list to be modified concurrently.
-						// Iterates through each Energy Item.
-						for (Iterator<Energy> it = this.game.getItems().iterator(); it.hasNext();) {
-							Energy item = it.next();
-							if (item.isAvailable()) { // If the item is available - meaning that the delay period is up and the item isn't expired.
-								if (this.game.collision(item)) { // If the snake collides with the item it does the following.
-									this.game.setPoints(item.getPoints()); // Sets the items Points.
-									if (item instanceof EnergyDrink) { // If its a energy drink, it adds the caffeine amount to the snakes energy level.
-										this.game.addEnergy(((EnergyDrink)item).getCaffeine());
-										this.game.growSnake(); // Grows the snake by one increment.
-									}
-									if (item instanceof PowerUP) { // Power ups don't increase the size of the snake.
-										this.grabPowerUp((PowerUP)item); // Grabs the PowerUP.
-									}
-									SoundFX("burp.wav"); // Plays a sound.
-									it.remove(); // Removes the item.
-								} else {
-									item.getIcon().paintIcon(this, g, item.x, item.y); // If there was no collision, it paints the item to the screen.
-								}
-							} else {
-								if (item.hasExpired()) it.remove(); // If the item display time duration has expired, it will get removed.
-							}
-						}
+		// Redraws the region received, drawing only the items and snake cells which overlap it.
+		private void renderRegion(Graphics g, Rectangle region) {
+				OccupancyGrid grid = this.game.getGrid();
+				g.setClip(region.x, region.y, region.width, region.height);
+				g.drawImage(this.renderedLayer, ZERO, ZERO, null); // Restores the background and walls.
+				// The items whose sprite overlaps the region, in the same order as a full frame.
+				for (int i = 0; i < this.drawnItems.size(); i++) {
+					Energy item = this.drawnItems.get(i);
+					if (region.intersects(item.x, item.y, DirtyRegions.BLOCK_EXTENT, DirtyRegions.BLOCK_EXTENT)) g.drawImage(SpriteCache.get(item.getSprite()), item.x, item.y, null);
+				}
+				// The snake cells which overlap the region, the head being drawn last.
+				Image body = SpriteCache.get(SpriteCache.Sprite.BODY);
+				boolean head = false;
+				for (int y = region.y / SNAKE_SIZE * SNAKE_SIZE; y < Math.min(region.y + region.height, PANEL_HEIGHT); y += SNAKE_SIZE) {
+					for (int x = region.x / SNAKE_SIZE * SNAKE_SIZE; x < Math.min(region.x + region.width, PANEL_WIDTH); x += SNAKE_SIZE) {
+						boolean isHead = (x == this.renderedHeadX && y == this.renderedHeadY && this.game.getSnakeBody().size() > ZERO);
+						if (grid.snakeAt(x, y) > ((isHead) ? ONE : ZERO)) g.drawImage(body, x, y, null);
+						head |= isHead;
 					}
 				}
+				if (head) g.drawImage(SpriteCache.get(SpriteCache.Sprite.HEAD), this.renderedHeadX, this.renderedHeadY, null);
+				if (region.intersects(HUD_AREA)) this.drawHud(g);
+				if (region.intersects(TEXT_AREA)) this.displayGameText(g);
 		}
 		
-		// This method is used to perform a action based upon the power up received.
-		private void grabPowerUp(PowerUP item) {
-				Random random = new Random();
-				switch(item.getPowerType()) {
-						case ENERGY_BOOST:
-							this.game.setEnergy(FULLY_MAXED_ENERGY); // Sets the Energy Level to the Highest Amount.
-							break;
-						case WALLS_DEACTIVATED:
-							Wall.delayWalls(10, 30); // Delays the Walls for a random amount of time - between 10 to 30 seconds.
-							break;
-						case LEVELED_UP:
-							this.game.incrementLevel(); // Increments the Game Level without changing the map.
-							break;
-						case CHANGED_MAP:
-							this.game.setRandomMap(); // Changes the game map.
-							break;
-						case BONUS_POINTS_GIVEN:
-							this.game.setPoints(POWER_UP_POINTS * (1 + random.nextInt(5))); // Gives Bonus points, which are up to 5 times the standard power up amount.
-							break;
-						case SHRINKED_SNAKE_SIZE:
-							this.game.shrinkSnakeSize(); // Shrinks the snakes size to a random size.
-							break;
-				}
-				this.game.addEnergy(random.nextInt((FULLY_MAXED_ENERGY / 2))); // Adds a random amount of Energy - up to half of the Fully Maxed Amount.
-				// Displays the information to the screen if the game is still running.
-				if (!this.game.isGameOver()) SnakePanel.setGameText(5, item.getPowerType().toString().replace('_', ' '));
+		// The frames are only changing whilst the game is being played.
+		public boolean isAnimating() {
+				return (this.game != null && this.game.getGameMode() == SnakeGame.GameMode.PLAYING);
+		}
+		
+		// Called by the engine when the snake collects a energy item.
+		public void itemCollected(Energy item) {
+				// Displays the power up information to the screen if the game is still running.
+				if (item instanceof PowerUP && !this.game.isGameOver()) this.setGameText(5, ((PowerUP)item).getPowerType().toString().replace('_', ' '));
+				SoundEngine.play(SoundEngine.Sound.BURP); // Plays a sound.
+		}
+		
+		// Called by the engine when the snake dies from a collision.
+		public void collided(CollisionException ex) {
+				this.setGameText(10, ex.getMessage()); // Sets the exception message to the GameText message.
+				SoundEngine.play(SoundEngine.Sound.ATTENTION); // Plays the sound.
 		}
 		
-		// This method processes and renders the Wall Blocks in the game. It throws a CollisionException if the snake dies by running into a wall.
-		private void processWalls(Graphics g) throws CollisionException {
-				boolean collision = false; // A boolean Flag for the collision.
-				if (this.game.getWall().size() > 0) { // Only does it if there are walls.
-					synchronized (this.game.getWall()) { // Synchronizes the Wall List.
-						ImageIcon icon = Wall.getIcon(); // There is only one Wall Icon for all the walls, so it gets the icon before entering the iteration.
-						for (Iterator<Wall> it = this.game.getWall().iterator(); it.hasNext();) {
-							Wall wall = it.next(); // Gets the next wall block.
-							icon.paintIcon(this, g, wall.x, wall.y); // Paints the wall block to the screen.
-							// If the energy level is fully max'd out, the walls are not active, and the snake collides with a Wall - it then adds bonus points and removes the wall from the list.
-							if (this.game.getEnergy() > MAX_ENERGY && (!Wall.isActive()) && this.game.collision(wall)) {
-								this.game.setPoints(POWER_UP_POINTS);
-								it.remove();
-							} else {
-								// If the Wall isActive and the snake collides with a wall block.
-								if (Wall.isActive() && this.game.collision(wall)) {
-									collision = true; // It flags the collision to true.
+		// Called by the engine when the game is over, which adds the result of the game to the journal and saves the replay.
+		public void gameOver() {
+				if (this.journal != null) this.journal.append(new GameResult(this.game));
+				if (this.recorder != null && this.recorder.getReplay() != null) {
+					final Replay replay = this.recorder.getReplay();
+					final String directory = this.replays;
+					REPLAY_WRITER.execute(new Runnable() {
+						public void run() {
+								try {
+									replay.write(Paths.get(directory, replayName(replay)));
+								} catch (IOException ex) {
+									System.out.println("Can't Save Replay " + ex.getMessage());
+								} catch (InvalidPathException ex) {
+									System.out.println("Can't Save Replay " + ex.getMessage());
 								}
-							}
 						}
-					}
+					});
 				}
-				// If the collision gets flagged to true, it then throws a CollisionException.
-				if (collision) throw new CollisionException(CollisionException.CollideType.WALL);
 		}
 		
-		// This method is used to get the game graphics from the gameImage. It also adds the game background image to the graphics returned.
-		private Graphics gameRender() {
-				Graphics g = gameImage.getGraphics(); // Gets the Graphics from the gameImage.				
-				try {
-					// Draws the background image to the graphics.
-					g.drawImage(ImageIO.read(new URL(getClass().getResource(IMAGES_PATH + BACKGROUND_IMG), BACKGROUND_IMG)), 
-											ZERO, ZERO, PANEL_WIDTH, (PANEL_HEIGHT + HUD_HEIGHT), this);
-				} catch (Exception e) { }
+		// Gets the file name of the replay received. Only the letters, digits, underscores and dashes of the player name are kept, so therefore the replay is always saved within the replay directory.
+		private static String replayName(Replay replay) {
+				return replay.getPlayer().replaceAll("[^A-Za-z0-9_-]", "_") + "-" + Long.toHexString(replay.getSeed()) + Replay.EXTENSION;
+		}
+		
+		public void setJournal(ResultsJournal journal) {
+				this.journal = journal;
+		}
 		
-				return g;
+		// Renders the Items in the game which are visible (meaning that the delay period is up and the item isn't expired).
+		private void drawItems(Graphics g) {
+				// Only completes the following if the game isn't paused.
+				if (this.game.getGameMode() != SnakeGame.GameMode.PAUSED) {
+					synchronized (this.game.getVisibleItems()) { // Synchronizes the list, as the list can be modified concurrently.
+						for (Energy item : this.game.getVisibleItems()) {
+							g.drawImage(SpriteCache.get(item.getSprite()), item.x, item.y, null); // Paints the item to the screen.
+						}
+					}
+				}
 		}
 		
 		// This method draws the Heads Up Display unit, which contains the statistics of the current game.
@@ -281,91 +337,110 @@ public class SnakePanel extends JPanel implements Runnable, Constants {
 				g.drawString(String.valueOf(this.game.getGameLevel()), (HUD_SPACE * 4), (PANEL_HEIGHT + (HUD_GAP * 3)));
 		}
 		
+		// Draws the snake, each body part is drawn part of the way between its previous and current position; based on how much of the time until the next update has passed.
 		public void drawSnake(Graphics g) {
-				ArrayList<Point> points = this.game.getSnakeBody(); // Gets the Points ArrayList from the SnakeGame.
-				if (points.size() > ZERO) { // If the size is above zero.
-					ImageIcon body = new ImageIcon(getClass().getClassLoader().getResource(IMAGES_PATH + BODY_CELL + PNG)); // Sets the imageicon for the body cells.
-					ImageIcon head = new ImageIcon(getClass().getClassLoader().getResource(IMAGES_PATH + SNAKE_HEAD + PNG)); // Sets the imageicon used for the snake head.
-					for (int i = 1; i < points.size(); i++) { // Iterates for each point in the Snake.
-						body.paintIcon(this, g, points.get(i).x, points.get(i).y); // Paints the snake body cell.
+				Snake snake = this.game.getSnakeBody(); // Gets the Snake from the SnakeGame.
+				if (snake.size() > ZERO) { // If the size is above zero.
+					float fraction = (!this.incremental && this.isAnimating() && this.updateLength > ZERO) ? 
+									Math.min((System.nanoTime() - this.lastUpdate) / (this.updateLength * (float)NANOS_PER_MILLI), ONE) : ONE;
+					Image body = SpriteCache.get(SpriteCache.Sprite.BODY); // Gets the image for the body cells.
+					for (int i = 1; i < snake.size(); i++) { // Iterates for each point in the Snake.
+						this.drawPart(g, body, snake, i, fraction); // Paints the snake body cell.
 					}
-					head.paintIcon(this, g, points.get(ZERO).x, points.get(ZERO).y); // Adds the snake head.
+					this.drawPart(g, SpriteCache.get(SpriteCache.Sprite.HEAD), snake, ZERO, fraction); // Adds the snake head.
 				}
 		}
+		
+		// Draws the body part at the index received, between its previous and current position.
+		private void drawPart(Graphics g, Image image, Snake snake, int index, float fraction) {
+				int x = snake.getX(index);
+				int y = snake.getY(index);
+				if (index < this.previousSize) {
+					int dx = x - this.previousX[index];
+					int dy = y - this.previousY[index];
+					// The part is only moved smoothly if it moved by one cell, otherwise (such as when it goes off the edge to the opposite side) it is drawn at its current position.
+					if (Math.abs(dx) <= SNAKE_SIZE && Math.abs(dy) <= SNAKE_SIZE) {
+						x = this.previousX[index] + Math.round(dx * fraction);
+						y = this.previousY[index] + Math.round(dy * fraction);
+					}
+				}
+				g.drawImage(image, x, y, null);
+		}
 				
+		// Returns a boolean depicting whether the game text is being displayed.
+		private boolean isGameTextShown() {
+				return this.game.isMessageShown(); // The game message is displayed if there is time left in the counter, or if the game is over.
+		}
+		
 		private void displayGameText(Graphics g) {
-				if ((textDisplay != null && textDisplay.getTime() > 0) || (this.game.isGameOver())) { // Displays the game message if there is time left in the counter, or if the game is over.
+				if (this.isGameTextShown()) { // Displays the game message if there is time left in the counter, or if the game is over.
 					g.setColor(new Color(255, 255, 255)); // Sets the colour to white.
 					g.setFont(new Font(HUD_FONT, Font.BOLD, 20)); // Sets the font to 20point in size.
 					// Draws the score onto the screen if the game is over.
 					g.drawString(((this.game.isGameOver())? (SCORE + this.game.getTotalScore()) : ""), (PANEL_WIDTH / 4), (PANEL_HEIGHT / 4));
 					// Draws the game message onto the screen.
-					g.drawString((gameText), (PANEL_WIDTH / 3), (PANEL_HEIGHT / 3));
-				} else {
-					gameText = EMPTY_STRING; // Sets the game message to a empty string.
+					g.drawString(this.game.getMessage(), (PANEL_WIDTH / 3), (PANEL_HEIGHT / 3));
 				}
 		}
 		
-		// This method receives a string for the location of the sound file and creates a new thread.
-		private synchronized void SoundFX(final String soundFile) {
-			// Creates a new thread with a anonymous inner runnable class.
-			new Thread(new Runnable() {
-				public void run() {
-					try {
-						Clip clip = AudioSystem.getClip(); // Gets the Clip object from the AudioSystem 
-						// Creates a new AudioInputStream based on the resource location of the Sound File.
-						AudioInputStream inputStream = AudioSystem.getAudioInputStream(getClass().getClassLoader().getResourceAsStream(SOUND_PATH + soundFile));
-						clip.open(inputStream); // Opens the input steam into the clip.
-						clip.start(); // Plays the file.
-					} catch (Exception e) {
-						System.err.println(e.getMessage());
-					}
-				}
-			}).start(); // Starts the thread.
-		}
-		
 		public void newGame(SnakeGame game) {
+				if (this.session != null) this.session.stop(); // Stops the game loop of any game which is still running.
 				this.game = game; // Sets the current game to the one received.
+				this.engine = new GameEngine(game); // Creates the engine for performing the rules on the game.
+				this.engine.setListener(this); // Registers the panel for the game events, to play the sounds and display the game text.
+				if (Boolean.getBoolean(AUTOPILOT)) this.engine.setPilot(new Autopilot()); // The snake steers itself.
+				if (this.replays != null) {
+					this.recorder = new Replay.Recorder();
+					this.engine.setRecorder(this.recorder); // Records the game, for the replay to be saved when the game is over.
+				}
+				if (this.incremental) {
+					game.getGrid().setListener(this.regions); // The changes to the board mark the regions to be redrawn.
+					this.regions.invalidate();
+				}
 				this.startGame(); // Starts the new game.
-				new Thread(this).start(); // Launches a new thread.
+				this.previousSize = ZERO; // The new game doesn't have a previous body.
+				if (this.canvas == null) { // Replaces the default image with the canvas when the first game begins.
+					this.canvas = new GameCanvas(this, this.incremental);
+					// Allows the user to click on the canvas to give the panel focus.
+					this.canvas.addMouseListener(new MouseAdapter() {
+						public void mouseClicked(MouseEvent e) {
+								requestFocus();
+						}
+					});
+					this.removeAll();
+					this.add(this.canvas);
+					this.revalidate();
+					this.canvas.start(); // Starts the render thread.
+				}
+				this.session = HOST.start(this.engine, this); // Starts the game loop, which updates the game.
 		}
 		
 		public void restartGame() {
 				if (this.game != null) { // Only performs the following if the current game is loaded.
-					if (!this.game.isGameOver()) { // If the game is loaded and it isnt gameover, the existing thread can be reused.
-						this.startGame(); // Starts the new game.
+					this.game.setSeed(GameRandom.newSeed()); // The restarted game is given a new seed, so it isn't the same game again.
+					if (this.session.isActive()) { // If the game loop is still running, the existing session can be reused.
+						this.session.restart(); // Starts the new game.
 					} else {
-						// If its game over, it will need to create a new thread. 
-						// Therefore this just feeds it back into the newGame method, which receives the same SnakeGame object and creates a new thread.
+						// If the session has finished, it will need to start a new session. 
+						// Therefore this just feeds it back into the newGame method, which receives the same SnakeGame object and starts a new session.
 						this.newGame(this.game); 
 					}
 				}
 		}
 		
-		public void run() { 
-				while (this.game.isRunning()) { // Loops whilst the game is running.
-					try {
-						this.updateGame(); // Updates the game and renders the graphics.
-						Thread.sleep(this.game.getSpeed());	// sleeps for the time period from the getSpeed method.
-						if (this.game.isGameOver()) { // If the game is over, it updates the game once more in order to display the message.
-							this.updateGame();
-						}
-					} catch(InterruptedException ex) {
-						
-					}
-				}
+		// Performs a tick of the game loop, the game doesn't do any rendering therefore the updates are independent to the frame rate.
+		public void tick(int millis) {
+				this.updateGame(null, millis); // Updates the game.
 		}
 		
-		// This method paints the graphics to the JPanel.
-		public void paintScreen() { 
-				Graphics g;
-				g = this.getGraphics(); // Gets the graphics from the JPanel
-				if ((g != null) && (gameImage != null)) {
-					g.drawImage(gameImage, ZERO, ZERO, null); // Draws the image to the graphics.
-					this.displayGameText(g); // Displays the game text.
-				}
-				Toolkit.getDefaultToolkit().sync();
-				g.dispose();
+		// Changes the game mode of the current game through the engine, so therefore the change is recorded.
+		public void setGameMode(SnakeGame.GameMode mode) {
+				if (this.session != null) this.session.setGameMode(mode); // The session is woken if the game is resumed.
+		}
+		
+		// Changes the difficulty level of the current game through the engine.
+		public void setDifficultyLevel(SnakeGame.DifficultyLevel difficulty) {
+				if (this.engine != null) this.engine.setDifficultyLevel(difficulty);
 		}
 		
 		// Returns the current game.
@@ -374,10 +449,7 @@ public class SnakePanel extends JPanel implements Runnable, Constants {
 		}
 		
 		// Sets the game text to be rendered to the screen.
-		private static void setGameText(int seconds, String text) {
-				textDisplay = new GameTimer(GameTimer.Type.COUNTDOWN);
-				textDisplay.set(seconds);
-				textDisplay.start();
-				gameText = text;
+		private void setGameText(int seconds, String text) {
+				this.game.setMessage(seconds, text); // The message belongs to the game, and is displayed for the seconds of game time received.
 		}
 }
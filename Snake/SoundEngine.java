@@ -0,0 +1,159 @@
+import java.awt.GraphicsEnvironment;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.Clip;
+
+/**
+*	The SoundEngine plays the sound effects of the game, using a single audio thread for the life of the application.
+*	Each sound is decoded once when it is loaded, and kept in a small pool of Clips which are already opened; therefore playing a sound only rewinds and starts a Clip.
+*	The game requests a sound to be played by adding it to a bounded queue, which never blocks; if the queue is full (the sounds are coming faster than they can be played) the sound is dropped.
+*	If the audio can't be opened (such as when there isn't a sound device), or the game is running headless, the silent Backend is used instead; any Clips which were opened before the failure are closed, so their audio lines aren't held.
+*	The Clips are closed when the application exits, or when the backend is replaced.
+**/
+
+public class SoundEngine implements Constants {
+		private static final int POOL_SIZE = 3; // The amount of Clips for each sound, which allows the same sound to overlap itself.
+		private static final int QUEUE_SIZE = 8; // The amount of sounds which can be waiting to be played.
+
+		// The sounds of the game, along with the name of the file in the sounds directory.
+		public enum Sound {
+				BURP("burp.wav"), ATTENTION("attention.wav");
+
+				private String fileName; // The name of the sound file.
+
+				private Sound(String fileName) {
+						this.fileName = fileName;
+				}
+		};
+
+		// The Backend is what actually plays the sounds.
+		public interface Backend {
+				void play(Sound sound);
+				void close(); // Releases the audio lines held by the backend.
+		}
+
+		// The silent Backend doesn't play anything, which is used when there isn't any audio.
+		public static final Backend SILENT = new Backend() {
+				public void play(Sound sound) { }
+				public void close() { }
+		};
+
+		private static BlockingQueue<Sound> queue = new ArrayBlockingQueue<Sound>(QUEUE_SIZE); // The sounds waiting to be played.
+		private static volatile Backend backend; // The backend which plays the sounds.
+		private static Thread thread; // The audio thread.
+
+		// Loads all of the sounds and starts the audio thread, if they haven't been loaded already. This is called when the application starts.
+		public static synchronized void load() {
+				if (backend == null) backend = (GraphicsEnvironment.isHeadless()) ? SILENT : ClipBackend.create();
+				if (thread == null) {
+					// Closes the Clips when the application exits.
+					Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+						public void run() {
+								close();
+						}
+					}));
+					// The audio thread plays each sound as it is taken from the queue.
+					thread = new Thread(new Runnable() {
+						public void run() {
+								while (true) {
+									try {
+										backend.play(queue.take());
+									} catch (InterruptedException ex) {
+
+									} catch (Exception ex) {
+										System.out.println("Can't Play Sound " + ex.getMessage());
+									}
+								}
+						}
+					}, "SoundEngine");
+					thread.setDaemon(true);
+					thread.start();
+				}
+		}
+
+		// Replaces the backend which plays the sounds, such as with the SILENT backend; the backend which is replaced is closed.
+		public static synchronized void setBackend(Backend replacement) {
+				if (backend != null && backend != replacement) backend.close();
+				backend = replacement;
+		}
+
+		// Closes the backend, releasing its audio lines; any sounds played afterwards are silent.
+		public static synchronized void close() {
+				if (backend != null) backend.close();
+				backend = SILENT;
+		}
+
+		// Requests the sound to be played, without waiting for it. Returns false if the sound was dropped because the queue is full.
+		public static boolean play(Sound sound) {
+				if (thread == null) load(); // Loads the sounds if they haven't been loaded yet.
+				return queue.offer(sound);
+		}
+
+		// The ClipBackend plays the sounds through a pool of Clips for each sound, which are opened when the backend is created.
+		private static class ClipBackend implements Backend {
+				private Clip[][] clips = new Clip[Sound.values().length][POOL_SIZE]; // The Clips for each sound, indexed by the Sound ordinal position.
+				private int[] next = new int[Sound.values().length]; // The next Clip to be used for each sound.
+
+				// Creates the backend with all of the sounds loaded, or returns the SILENT backend if the audio can't be opened.
+				private static Backend create() {
+						ClipBackend created = new ClipBackend();
+						Clip clip = null; // The Clip being opened, until it is added to the pool.
+						try {
+							for (Sound sound : Sound.values()) {
+								InputStream stream = SoundEngine.class.getClassLoader().getResourceAsStream(SOUND_PATH + sound.fileName);
+								if (stream == null) {
+									System.out.println("Can't Find Sound " + sound.fileName);
+									continue;
+								}
+								// Decodes the sound once, the same data is opened by each of the Clips in the pool.
+								AudioInputStream input = AudioSystem.getAudioInputStream(new BufferedInputStream(stream));
+								AudioFormat format = input.getFormat();
+								ByteArrayOutputStream data = new ByteArrayOutputStream();
+								byte[] buffer = new byte[4096];
+								for (int read = input.read(buffer); read != -1; read = input.read(buffer)) {
+									data.write(buffer, 0, read);
+								}
+								input.close();
+								for (int i = 0; i < POOL_SIZE; i++) {
+									clip = AudioSystem.getClip();
+									clip.open(format, data.toByteArray(), 0, data.size());
+									created.clips[sound.ordinal()][i] = clip;
+									clip = null;
+								}
+							}
+							return created;
+						} catch (Exception ex) {
+							if (clip != null) clip.close(); // The Clip which failed to open.
+							created.close(); // Along with the Clips which were already opened.
+							System.out.println("Can't Open Audio, The Game Will Be Silent");
+							return SILENT;
+						}
+				}
+
+				// Closes all of the Clips in the pools.
+				public void close() {
+						for (Clip[] pool : this.clips) {
+							for (int i = 0; i < pool.length; i++) {
+								if (pool[i] != null) pool[i].close();
+								pool[i] = null;
+							}
+						}
+				}
+
+				public void play(Sound sound) {
+						Clip[] pool = this.clips[sound.ordinal()];
+						Clip clip = pool[this.next[sound.ordinal()]];
+						if (clip == null) return; // The sound wasn't found.
+						this.next[sound.ordinal()] = (this.next[sound.ordinal()] + 1) % pool.length;
+						clip.stop(); // Rewinds the Clip, which stops it if it is still playing from before.
+						clip.setFramePosition(ZERO);
+						clip.start();
+				}
+		}
+}
@@ -0,0 +1,79 @@
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.GraphicsEnvironment;
+import java.awt.Image;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.net.URL;
+import javax.imageio.ImageIO;
+
+/**
+*	The SpriteCache loads every image used by the game once, and keeps them for the life of the application.
+*	Each image is converted to the format of the display (a compatible image), which allows Java2D to keep a accelerated copy of it; the background is also scaled to the size of the game when it is loaded.
+*	The images are requested using the Sprite enumerated type, which is a direct index into the cache. The energy items and walls store their Sprite rather than a image of their own.
+**/
+
+public class SpriteCache implements Constants {
+		// The sprites of the game, along with the name of the image file in the images directory.
+		public enum Sprite {
+				BACKGROUND(BACKGROUND_IMG), MAIN(DEFAULT_IMAGE), ABOUT(ABOUT_BOX_IMAGE), BODY(BODY_CELL + PNG), HEAD(SNAKE_HEAD + PNG),
+				WALL_ACTIVE("WALL_ACTIVE" + PNG), WALL_NOTACTIVE("WALL_NOTACTIVE" + PNG), POWER_UP(POWER_UP_IMAGE + PNG),
+				V_DRINK("V_DRINK" + PNG), RED_BULL("RED_BULL" + PNG), MOTHER("MOTHER" + PNG);
+
+				private String fileName; // The name of the image file.
+
+				private Sprite(String fileName) {
+						this.fileName = fileName;
+				}
+		};
+
+		private static Image[] images; // The loaded images, indexed by the Sprite ordinal position.
+
+		// Loads all of the images, if they haven't been loaded already. This is called when the application starts.
+		public static synchronized void load() {
+				if (images != null) return;
+				Image[] loaded = new Image[Sprite.values().length];
+				GraphicsConfiguration config = (GraphicsEnvironment.isHeadless()) ? null :
+								GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice().getDefaultConfiguration();
+				for (Sprite sprite : Sprite.values()) {
+					try {
+						URL url = SpriteCache.class.getClassLoader().getResource(IMAGES_PATH + sprite.fileName);
+						BufferedImage image = (url != null) ? ImageIO.read(url) : null;
+						if (image != null) {
+							// The background is scaled to the size of the game, so therefore it doesn't need to be scaled on each frame.
+							int width = (sprite == Sprite.BACKGROUND) ? PANEL_WIDTH : image.getWidth();
+							int height = (sprite == Sprite.BACKGROUND) ? (PANEL_HEIGHT + HUD_HEIGHT) : image.getHeight();
+							loaded[sprite.ordinal()] = (config != null) ? convert(image, config, width, height) : image;
+						} else {
+							System.out.println("Can't Find Image " + sprite.fileName);
+						}
+					} catch (IOException ex) {
+						System.out.println("Can't Load Image " + sprite.fileName);
+					}
+				}
+				images = loaded;
+		}
+
+		// Draws the image received into a image of the display's format, at the size received.
+		private static Image convert(BufferedImage image, GraphicsConfiguration config, int width, int height) {
+				BufferedImage compatible = config.createCompatibleImage(width, height, image.getColorModel().getTransparency());
+				Graphics2D g = compatible.createGraphics();
+				g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+				g.drawImage(image, 0, 0, width, height, null);
+				g.dispose();
+				return compatible;
+		}
+
+		// Creates a opaque image of the size received, in the format of the display. This is used for the layers which get rendered once and then drawn on each frame.
+		public static BufferedImage createImage(int width, int height) {
+				if (GraphicsEnvironment.isHeadless()) return new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+				return GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice().getDefaultConfiguration().createCompatibleImage(width, height);
+		}
+		
+		// Gets the image of the sprite received.
+		public static Image get(Sprite sprite) {
+				if (images == null) load(); // Loads the images if they haven't been loaded yet.
+				return images[sprite.ordinal()];
+		}
+}
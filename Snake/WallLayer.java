@@ -0,0 +1,41 @@
+import java.awt.Graphics;
+import java.awt.Image;
+
+/**
+*	The WallLayer is the background image with all of the wall blocks already drawn onto it, so therefore a frame only needs to draw the one image before drawing the snake and items.
+*	There is a layer for each of the Wall states, which are only rendered when they are first needed.
+*	The layers are thrown away when the game's wall version changes (a new map being loaded, or a wall being eaten), whereas a change in the wall state just selects the other layer.
+**/
+
+public class WallLayer implements Constants {
+		private Image[] layers = new Image[Wall.Status.values().length]; // The rendered layer for each of the Wall states.
+		private SnakeGame game; // The game which the layers were rendered for.
+		private int version; // The wall version which the layers were rendered for.
+
+		// Gets the layer for the game received, in the current Wall state. It is rendered if the walls have changed since it was last rendered.
+		public Image get(SnakeGame game) {
+				if (game != this.game || game.getWallVersion() != this.version) {
+					for (int i = 0; i < this.layers.length; i++) this.layers[i] = null; // The walls have changed, so all of the layers are thrown away.
+					this.game = game;
+					this.version = game.getWallVersion();
+				}
+				int status = game.getWallStatus().ordinal();
+				if (this.layers[status] == null) this.layers[status] = this.render(game);
+				return this.layers[status];
+		}
+
+		// Renders the background and wall blocks onto a new image.
+		private Image render(SnakeGame game) {
+				Image layer = SpriteCache.createImage(PANEL_WIDTH, (PANEL_HEIGHT + HUD_HEIGHT));
+				Graphics g = layer.getGraphics();
+				g.drawImage(SpriteCache.get(SpriteCache.Sprite.BACKGROUND), ZERO, ZERO, null); // Draws the background image.
+				synchronized (game.getWall()) { // Synchronizes the Wall List.
+					Image image = SpriteCache.get(Wall.getSprite(game.getWallStatus())); // There is only one Wall Sprite for all the walls, so it gets the image before entering the iteration.
+					for (Wall wall : game.getWall()) {
+						g.drawImage(image, wall.x, wall.y, null); // Paints the wall block onto the layer.
+					}
+				}
+				g.dispose();
+				return layer;
+		}
+}
@@ -0,0 +1,279 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+*	The WorldGame is a game mode where the snake roams a world which is far larger than the panel, with the walls of a WorldMap; a Camera follows the head of the snake.
+*	The snake and the items are registered in a OccupancyGrid the size of the world, which only holds chunks where they are; whereas the walls are looked up in the WorldMap, which only holds the chunks around the snake.
+*	So therefore a tick only looks up the cell of the head, and the memory and time taken depend on the size of the viewport, rather than the size of the world.
+*	The rules are the same as the Arena; there isn't any energy or power ups, and the snake grows by one cell for each item it collects.
+*	There are always ITEMS items around the snake; they are added at random blocks within a viewport of the head, and a item which the snake has left a viewport behind, or hasn't reached within ITEM_TICKS ticks (such as a item behind a wall), is moved near the snake again.
+*
+*	Usage: java WorldGame [-world file] [-create tileColumns tileRows] [-seed seed] [-ticks count]
+**/
+
+public class WorldGame implements Constants {
+		public static final int ITEMS = 8; // The amount of items around the snake.
+		public static final int ITEM_TICKS = 200; // The amount of ticks a item stays where it is, unless it is collected or left behind.
+		private static final int PLACE_ATTEMPTS = 1000; // The most random cells tried when placing the snake or a item.
+		private static final int[] BEARING_X = {ZERO, ZERO, ONE, -ONE}; // The same bearings as the snake, for each Compass direction.
+		private static final int[] BEARING_Y = {-ONE, ONE, ZERO, ZERO};
+
+		private WorldMap world;
+		private OccupancyGrid grid; // The grid which the snake and the items are registered in.
+		private Camera camera;
+		private Snake snake;
+		private GameRandom random;
+		private GameClock clock; // The clock the items are created with, it isn't advanced as the items don't expire.
+		private List<Energy> items = new ArrayList<Energy>();
+		private long[] placed = new long[ITEMS]; // The tick each item was placed at, in the same order as the items.
+		private SnakeGame.Compass direction;
+		private int growth; // The amount of cells the snake still has to grow.
+		private int points;
+		private CollisionException collision; // The collision which ended the game, or null whilst it is being played.
+		private long ticks;
+
+		// The WorldGame receives the world, the size of the viewport, and the seed of the random decisions.
+		public WorldGame(WorldMap world, int viewWidth, int viewHeight, long seed) {
+				this.world = world;
+				this.grid = new OccupancyGrid(world.getWidth(), world.getHeight());
+				this.camera = new Camera(viewWidth, viewHeight, world.getWidth(), world.getHeight());
+				this.world.setCapacity(this.camera.maxChunks(WorldMap.CHUNK_BLOCKS * GRID_SIZE) * 2); // The chunks in the viewport, and as many again which the snake has just left.
+				this.random = new GameRandom(seed);
+				this.clock = new GameClock();
+				this.snake = new Snake(this.grid);
+		}
+
+		// Starts the game again, placing the snake at a random free cell. Returns false if a free cell wasn't found.
+		public boolean start() {
+				for (Energy item : this.items) this.grid.removeItem(item);
+				this.items.clear();
+				this.snake.clear();
+				this.points = ZERO;
+				this.collision = null;
+				this.ticks = 0;
+				int columns = this.world.getWidth() / SNAKE_SIZE;
+				int rows = this.world.getHeight() / SNAKE_SIZE;
+				for (int i = 0; i < PLACE_ATTEMPTS; i++) {
+					int x = this.random.nextInt(columns) * SNAKE_SIZE;
+					int y = this.random.nextInt(rows) * SNAKE_SIZE;
+					if (this.world.isWall(x, y)) continue;
+					this.snake.reset(x, y);
+					this.direction = SnakeGame.Compass.values()[this.random.nextInt(SnakeGame.Compass.values().length)];
+					this.growth = INITAL_LENGTH - ONE;
+					this.camera.follow(x, y);
+					for (int j = 0; j < ITEMS; j++) this.addItem();
+					return true;
+				}
+				return false;
+		}
+
+		// Performs one tick; turns the snake to the direction received (or keeps its direction if it is null), moves it, and detects its collisions.
+		public void step(SnakeGame.Compass input) {
+				if (this.collision != null) return;
+				this.ticks++;
+				this.setDirection(input);
+				if (this.growth > ZERO) {
+					this.snake.incrementSize(this.direction);
+					this.growth--;
+				} else {
+					this.snake.move(this.direction);
+				}
+				int x = this.snake.getX(ZERO);
+				int y = this.snake.getY(ZERO);
+				this.camera.follow(x + (SNAKE_SIZE / 2), y + (SNAKE_SIZE / 2));
+				if (this.world.isWall(x, y)) {
+					this.collision = new CollisionException(CollisionException.CollideType.WALL);
+				} else if (this.grid.snakeAt(x, y) > ONE) {
+					this.collision = new CollisionException(CollisionException.CollideType.SNAKE_BODY);
+				} else {
+					Energy item = this.grid.itemAt(x, y);
+					if (item != null) {
+						this.points += item.getPoints();
+						this.growth++;
+						this.replaceItem(this.items.indexOf(item));
+					}
+				}
+				for (int i = 0; i < this.items.size(); i++) { // The items left a viewport behind, or which haven't been reached in time, are moved near the snake again.
+					Energy item = this.items.get(i);
+					if (distance(item.x, x, this.world.getWidth()) > this.camera.getWidth() || distance(item.y, y, this.world.getHeight()) > this.camera.getHeight() || this.ticks - this.placed[i] > ITEM_TICKS) this.replaceItem(i);
+				}
+		}
+
+		// Sets the direction for the next move, following the same rule as the SnakeGame (the snake can't turn back on itself).
+		private void setDirection(SnakeGame.Compass direction) {
+				if (direction != null && direction.ordinal() / 2 != this.direction.ordinal() / 2) this.direction = direction;
+		}
+
+		// Removes the item at the index received, and adds a new item near the snake.
+		private void replaceItem(int index) {
+				int last = this.items.size() - ONE;
+				this.grid.removeItem(this.items.get(index));
+				this.items.set(index, this.items.get(last));
+				this.placed[index] = this.placed[last];
+				this.items.remove(last);
+				this.addItem();
+		}
+
+		// Adds a item at a random free block within half a viewport of the head.
+		private void addItem() {
+				int columns = this.camera.getWidth() / GRID_SIZE;
+				int rows = this.camera.getHeight() / GRID_SIZE;
+				int headX = this.snake.getX(ZERO), headY = this.snake.getY(ZERO);
+				for (int i = 0; i < PLACE_ATTEMPTS; i++) {
+					int x = Math.floorMod((headX / GRID_SIZE) + this.random.nextInt(columns) - (columns / 2), this.world.getColumns()) * GRID_SIZE;
+					int y = Math.floorMod((headY / GRID_SIZE) + this.random.nextInt(rows) - (rows / 2), this.world.getRows()) * GRID_SIZE;
+					if (this.world.isWall(x, y) || this.grid.itemAt(x, y) != null || this.grid.isSnakeAt(x, y)) continue;
+					Energy item = new EnergyDrink(x, y, this.clock, this.random);
+					this.placed[this.items.size()] = this.ticks;
+					this.items.add(item);
+					this.grid.addItem(item);
+					return;
+				}
+		}
+
+		// Returns a boolean depicting whether the cell at the coordinates received has a wall or a snake body part on it.
+		public boolean isBlocked(int x, int y) {
+				return (this.world.isWall(x, y) || this.grid.snakeAt(Math.floorMod(x, this.world.getWidth()), Math.floorMod(y, this.world.getHeight())) > ZERO);
+		}
+
+		// Gets the direction which gets the head closest to the nearest item without running into a wall or the snake, for the demo; or null to keep the direction.
+		public SnakeGame.Compass steer() {
+				int headX = this.snake.getX(ZERO), headY = this.snake.getY(ZERO);
+				Energy target = null;
+				int targetDistance = Integer.MAX_VALUE;
+				for (Energy item : this.items) {
+					int distance = distance(headX, item.x, this.world.getWidth()) + distance(headY, item.y, this.world.getHeight());
+					if (distance < targetDistance) {
+						target = item;
+						targetDistance = distance;
+					}
+				}
+				SnakeGame.Compass best = null;
+				int bestDistance = Integer.MAX_VALUE;
+				for (SnakeGame.Compass direction : SnakeGame.Compass.values()) {
+					if (direction.ordinal() / 2 == this.direction.ordinal() / 2 && direction != this.direction) continue; // Can't turn back.
+					int x = headX + (BEARING_X[direction.ordinal()] * SNAKE_SIZE);
+					int y = headY + (BEARING_Y[direction.ordinal()] * SNAKE_SIZE);
+					if (this.isBlocked(x, y)) continue;
+					int distance = (target != null) ? distance(x, target.x, this.world.getWidth()) + distance(y, target.y, this.world.getHeight()) : ZERO;
+					if (distance < bestDistance || (distance == bestDistance && direction == this.direction)) {
+						best = direction;
+						bestDistance = distance;
+					}
+				}
+				return best;
+		}
+
+		// Gets the distance between the coordinates received, the shorter way around the wrapping world.
+		private static int distance(int from, int to, int size) {
+				int distance = Math.abs(Math.floorMod(from, size) - to);
+				return Math.min(distance, size - distance);
+		}
+
+		public WorldMap getWorld() {
+				return this.world;
+		}
+
+		public OccupancyGrid getGrid() {
+				return this.grid;
+		}
+
+		public Camera getCamera() {
+				return this.camera;
+		}
+
+		public Snake getSnake() {
+				return this.snake;
+		}
+
+		public List<Energy> getItems() {
+				return Collections.unmodifiableList(this.items);
+		}
+
+		public int getPoints() {
+				return this.points;
+		}
+
+		public long getTicks() {
+				return this.ticks;
+		}
+
+		public boolean isOver() {
+				return (this.collision != null);
+		}
+
+		// Gets the collision which ended the game, or null whilst it is being played.
+		public CollisionException getCollision() {
+				return this.collision;
+		}
+
+		// Opens the world file received, first creating it with random maps if the tiles are received; used by the WorldPanel as well.
+		static WorldMap open(Path path, int tileColumns, int tileRows, long seed) throws IOException {
+				if (tileColumns > ZERO || !Files.exists(path)) {
+					MapRegistry.load();
+					WorldMap.create(path, Math.max(tileColumns, ONE), Math.max(tileRows, ONE), seed);
+				}
+				return MapGetter.readWorld(path);
+		}
+
+		// Plays the world with the demo steering for a number of ticks, and prints how long the ticks took, how far the snake roamed, and how much of the world was held.
+		public static void main(String[] args) throws IOException {
+				Path path = Paths.get("world.map");
+				int tileColumns = ZERO, tileRows = ZERO;
+				long seed = GameRandom.newSeed();
+				int ticks = 100000;
+				try {
+					for (int i = 0; i < args.length; i++) {
+						if (args[i].equals("-world")) path = Paths.get(args[++i]);
+						else if (args[i].equals("-create")) {
+							tileColumns = Integer.parseInt(args[++i]);
+							tileRows = Integer.parseInt(args[++i]);
+						} else if (args[i].equals("-seed")) seed = Long.parseLong(args[++i]);
+						else if (args[i].equals("-ticks")) ticks = Integer.parseInt(args[++i]);
+						else throw new IllegalArgumentException(args[i]);
+					}
+				} catch (RuntimeException ex) {
+					System.out.println("Usage: java WorldGame [-world file] [-create tileColumns tileRows] [-seed seed] [-ticks count]");
+					return;
+				}
+				WorldMap world = open(path, tileColumns, tileRows, seed);
+				System.out.println("Playing A " + (world.getWidth() / SNAKE_SIZE) + "x" + (world.getHeight() / SNAKE_SIZE) + " Cell World, Seed " + seed);
+				WorldGame game = new WorldGame(world, PANEL_WIDTH, PANEL_HEIGHT, seed);
+				if (!game.start()) {
+					System.out.println("Can't Find Room For The Snake");
+					return;
+				}
+				int games = ONE, mostChunks = ZERO, mostCached = ZERO, entered = ZERO;
+				int chunkSize = WorldMap.CHUNK_BLOCKS * GRID_SIZE;
+				int lastChunk = -ONE;
+				long slowest = 0;
+				long start = System.nanoTime();
+				for (int i = 0; i < ticks; i++) {
+					long tick = System.nanoTime();
+					if (game.isOver()) {
+						game.start();
+						games++;
+					}
+					game.step(game.steer());
+					slowest = Math.max(slowest, System.nanoTime() - tick);
+					mostChunks = Math.max(mostChunks, game.getGrid().getChunkCount());
+					mostCached = Math.max(mostCached, world.getCachedChunks());
+					Snake snake = game.getSnake();
+					int chunk = ((snake.getY(ZERO) / chunkSize) * ((world.getWidth() + chunkSize - ONE) / chunkSize)) + (snake.getX(ZERO) / chunkSize);
+					if (chunk != lastChunk) { // Counts each time the head crosses into another world chunk, so therefore a snake which hasn't roamed is shown.
+						entered++;
+						lastChunk = chunk;
+					}
+				}
+				double average = (System.nanoTime() - start) / (double)ticks / 1000;
+				System.out.printf("%d Ticks Over %d Games, Average %.1fus, Slowest %.1fus%n", ticks, games, average, slowest / 1000.0);
+				System.out.println("World Chunks Entered " + entered + ", Most Grid Chunks " + mostChunks + ", Most Cached World Chunks " + mostCached);
+				System.out.println("World Chunks Read " + world.getReads() + ", World Chunks Evicted " + world.getEvictions());
+				world.close();
+		}
+}
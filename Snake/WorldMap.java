@@ -0,0 +1,162 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+*	The WorldMap is the walls of a world which is far larger than the panel, read from a chunked map file by the MapGetter.
+*	The world is split into chunks of CHUNK_BLOCKS by CHUNK_BLOCKS blocks, each chunk being the packed wall bits of its blocks (a bit for each block, 64 blocks to a long).
+*	The chunks are only read from the file when a block in them is looked up, and are kept in a cache which holds the chunks used most recently; once the cache is full, the chunk which hasn't been used for the longest is released.
+*	As the blocks looked up are the ones around the snake and in the viewport, the chunks around the snake are kept, and the memory taken depends on the size of the cache rather than the size of the world.
+*	The chunks without any walls aren't stored in the file at all, they all share the EMPTY chunk.
+*	The world wraps around its edges, the same as the board.
+**/
+
+public class WorldMap implements Constants, Closeable {
+		public static final int CHUNK_BLOCKS = 32; // The amount of blocks across and down each chunk.
+		public static final int CHUNK_LONGS = (CHUNK_BLOCKS * CHUNK_BLOCKS) / 64; // The amount of longs holding the bits of each chunk.
+		public static final int DEFAULT_CAPACITY = 16; // The amount of chunks cached, unless it is set.
+		private static final long[] EMPTY = new long[CHUNK_LONGS];
+
+		// The Source gives the walls of a world which is being written to a file.
+		public interface Source {
+				boolean isWall(int column, int row); // Returns whether there is a wall on the block at the column and row received.
+		}
+
+		private FileChannel channel; // The channel of the map file, which the chunks are read from.
+		private int columns; // The number of blocks across the world.
+		private int rows; // The number of blocks down the world.
+		private int chunkColumns; // The number of chunks across the world.
+		private int[] chunks; // The number of each chunk in the file (starting at one), or zero if the chunk doesn't have any walls.
+		private long dataStart; // The position in the file of the first chunk.
+		private Map<Integer, long[]> cache; // The chunks read, in the order they were last used.
+		private int capacity = DEFAULT_CAPACITY;
+		private ByteBuffer buffer = ByteBuffer.allocate(CHUNK_LONGS * 8);
+		private int lastChunk = -ONE; // The index of the chunk last looked up, which is checked before the cache.
+		private long[] lastBits;
+		private long reads; // The amount of chunks read from the file.
+		private long evictions; // The amount of chunks released from the cache.
+
+		// The WorldMap is created by the MapGetter, once it has read the table of the chunks.
+		WorldMap(FileChannel channel, int columns, int rows, int[] chunks, long dataStart) {
+				this.channel = channel;
+				this.columns = columns;
+				this.rows = rows;
+				this.chunkColumns = (columns + CHUNK_BLOCKS - ONE) / CHUNK_BLOCKS;
+				this.chunks = chunks;
+				this.dataStart = dataStart;
+				this.cache = new LinkedHashMap<Integer, long[]>(32, 0.75f, true) { // Ordered by access, so the eldest is the one used least recently.
+						private static final long serialVersionUID = 1L;
+						protected boolean removeEldestEntry(Map.Entry<Integer, long[]> eldest) {
+								if (this.size() <= capacity) return false;
+								evictions++;
+								return true;
+						}
+				};
+		}
+
+		// Sets the amount of chunks which are kept, which should hold at least the chunks the viewport spans.
+		public synchronized void setCapacity(int capacity) {
+				this.capacity = Math.max(capacity, ONE);
+		}
+
+		// Returns a boolean depicting whether there is a wall on the block at the coordinates received, which wrap around the world.
+		public boolean isWall(int x, int y) {
+				int column = Math.floorMod(Math.floorDiv(x, GRID_SIZE), this.columns);
+				int row = Math.floorMod(Math.floorDiv(y, GRID_SIZE), this.rows);
+				int bit = ((row % CHUNK_BLOCKS) * CHUNK_BLOCKS) + (column % CHUNK_BLOCKS);
+				return (this.chunk(((row / CHUNK_BLOCKS) * this.chunkColumns) + (column / CHUNK_BLOCKS))[bit >>> 6] & (1L << bit)) != 0;
+		}
+
+		// Gets the bits of the chunk at the index received, reading it from the file if it isn't cached.
+		private synchronized long[] chunk(int index) {
+				if (index == this.lastChunk) return this.lastBits;
+				long[] bits;
+				if (this.chunks[index] == ZERO) {
+					bits = EMPTY;
+				} else {
+					bits = this.cache.get(index);
+					if (bits == null) {
+						bits = this.read(this.chunks[index]);
+						this.cache.put(index, bits);
+					}
+				}
+				this.lastChunk = index;
+				this.lastBits = bits;
+				return bits;
+		}
+
+		// Reads the chunk with the number received from the file. A chunk which can't be read is treated as empty, so the game carries on.
+		private long[] read(int number) {
+				long[] bits = new long[CHUNK_LONGS];
+				this.buffer.clear();
+				try {
+					long position = this.dataStart + ((number - ONE) * (long)this.buffer.capacity());
+					while (this.buffer.hasRemaining()) {
+						if (this.channel.read(this.buffer, position + this.buffer.position()) < 0) throw new IOException("Map File Is Cut Short");
+					}
+					this.buffer.flip();
+					this.buffer.asLongBuffer().get(bits);
+					this.reads++;
+				} catch (IOException ex) {
+					System.out.println("Can't Read World Chunk " + ex.getMessage());
+				}
+				return bits;
+		}
+
+		public void close() throws IOException {
+				this.channel.close();
+		}
+
+		// Gets the number of blocks across the world.
+		public int getColumns() {
+				return this.columns;
+		}
+
+		// Gets the number of blocks down the world.
+		public int getRows() {
+				return this.rows;
+		}
+
+		public int getWidth() {
+				return this.columns * GRID_SIZE;
+		}
+
+		public int getHeight() {
+				return this.rows * GRID_SIZE;
+		}
+
+		// Gets the amount of chunks held in the cache.
+		public synchronized int getCachedChunks() {
+				return this.cache.size();
+		}
+
+		// Gets the amount of chunks which have been read from the file.
+		public synchronized long getReads() {
+				return this.reads;
+		}
+
+		// Gets the amount of chunks which have been released from the cache.
+		public synchronized long getEvictions() {
+				return this.evictions;
+		}
+
+		// Writes a world of random maps to the file received; the world is made up of a number of tiles, each tile having the walls of a random map (or none, if there aren't any maps).
+		public static void create(Path path, int tileColumns, int tileRows, long seed) throws IOException {
+				GameRandom random = new GameRandom(seed);
+				final int columns = PANEL_WIDTH / GRID_SIZE;
+				final int rows = PANEL_HEIGHT / GRID_SIZE;
+				final int across = tileColumns;
+				final GameMap[] tiles = new GameMap[tileColumns * tileRows];
+				for (int i = 0; i < tiles.length; i++) tiles[i] = MapRegistry.random(random);
+				MapGetter.writeWorld(path, tileColumns * columns, tileRows * rows, new Source() {
+						public boolean isWall(int column, int row) {
+								GameMap map = tiles[((row / rows) * across) + (column / columns)];
+								return (map != null && map.isWall((column % columns) * GRID_SIZE, (row % rows) * GRID_SIZE));
+						}
+				});
+		}
+}
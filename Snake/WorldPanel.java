@@ -0,0 +1,170 @@
+import javax.swing.*;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Font;
+import java.awt.Graphics;
+import java.awt.Image;
+import java.awt.event.*;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+*	The WorldPanel plays a WorldGame, drawing the part of the world within the viewport of its Camera.
+*	Only the blocks and cells within the viewport are looked up and drawn; the walls from the WorldMap, the items and the snake body from the OccupancyGrid.
+*	So therefore each frame draws the same amount whatever the size of the world or the length of the snake.
+*	The controls are the arrow keys, and N to start the game again once it is over. The snake is steered by the demo steering if the AUTOPILOT system property is set.
+*
+*	Usage: java WorldPanel [-world file] [-create tileColumns tileRows] [-seed seed]
+**/
+
+public class WorldPanel extends JPanel implements Runnable, Constants {
+		private static final long serialVersionUID = 1L;
+
+		private WorldGame game;
+		private volatile SnakeGame.Compass input; // The direction pressed since the last tick, or null.
+		private volatile boolean restart; // Whether the game is to be started again.
+		private boolean autopilot = Boolean.getBoolean(AUTOPILOT);
+
+		public WorldPanel(WorldGame game) {
+				this.game = game;
+				this.setPreferredSize(new Dimension(game.getCamera().getWidth(), game.getCamera().getHeight() + HUD_HEIGHT));
+				this.setFocusable(true);
+				this.setControls();
+				SpriteCache.load();
+		}
+
+		private void setControls() {
+				final Action action = new AbstractAction() {
+						public static final long serialVersionUID = 1L;
+						public void actionPerformed(ActionEvent e) {
+								if (e.getActionCommand().equals("N")) {
+									restart = true;
+								} else {
+									input = SnakeGame.Compass.valueOf(e.getActionCommand());
+								}
+						}
+				};
+				int[] keys = { KeyEvent.VK_UP, KeyEvent.VK_DOWN, KeyEvent.VK_RIGHT, KeyEvent.VK_LEFT };
+				for (int i = 0; i < keys.length; i++) {
+					this.registerKeyboardAction(action, SnakeGame.Compass.values()[i].name(), KeyStroke.getKeyStroke(keys[i], 0), JComponent.WHEN_IN_FOCUSED_WINDOW);
+				}
+				this.registerKeyboardAction(action, "N", KeyStroke.getKeyStroke(KeyEvent.VK_N, 0), JComponent.WHEN_IN_FOCUSED_WINDOW);
+		}
+
+		// Ticks the game at the slowest snake speed, and repaints the panel after each tick.
+		public void run() {
+				while (true) {
+					synchronized (this.game) {
+						if (this.restart) {
+							this.restart = false;
+							this.game.start();
+						}
+						SnakeGame.Compass direction = this.input;
+						this.input = null;
+						if (this.autopilot && !this.game.isOver()) direction = this.game.steer();
+						this.game.step(direction);
+						if (this.autopilot && this.game.isOver()) this.restart = true;
+					}
+					this.repaint();
+					try {
+						Thread.sleep(SNAKE_SPEED[ZERO]);
+					} catch (InterruptedException ex) {
+						return;
+					}
+				}
+		}
+
+		public void paintComponent(Graphics g) {
+				synchronized (this.game) {
+					Camera camera = this.game.getCamera();
+					WorldMap world = this.game.getWorld();
+					OccupancyGrid grid = this.game.getGrid();
+					g.setColor(Color.BLACK);
+					g.fillRect(ZERO, ZERO, this.getWidth(), this.getHeight());
+					g.setClip(ZERO, ZERO, camera.getWidth(), camera.getHeight());
+					g.drawImage(SpriteCache.get(SpriteCache.Sprite.BACKGROUND), ZERO, ZERO, null);
+					// The walls and items of the blocks within the viewport.
+					Image wall = SpriteCache.get(Wall.getSprite(Wall.Status.WALL_ACTIVE));
+					int firstX = camera.firstX(GRID_SIZE), firstY = camera.firstY(GRID_SIZE);
+					int offsetX = camera.getX() - firstX, offsetY = camera.getY() - firstY;
+					for (int row = 0; row < camera.spanY(GRID_SIZE); row++) {
+						int y = Math.floorMod(firstY + (row * GRID_SIZE), world.getHeight());
+						for (int column = 0; column < camera.spanX(GRID_SIZE); column++) {
+							int x = Math.floorMod(firstX + (column * GRID_SIZE), world.getWidth());
+							int screenX = (column * GRID_SIZE) - offsetX, screenY = (row * GRID_SIZE) - offsetY;
+							if (world.isWall(x, y)) g.drawImage(wall, screenX, screenY, null);
+							Energy item = grid.itemAt(x, y);
+							if (item != null) g.drawImage(SpriteCache.get(item.getSprite()), screenX, screenY, null);
+						}
+					}
+					// The snake body parts of the cells within the viewport, and then the head on top of them.
+					Image body = SpriteCache.get(SpriteCache.Sprite.BODY);
+					firstX = camera.firstX(SNAKE_SIZE);
+					firstY = camera.firstY(SNAKE_SIZE);
+					offsetX = camera.getX() - firstX;
+					offsetY = camera.getY() - firstY;
+					for (int row = 0; row < camera.spanY(SNAKE_SIZE); row++) {
+						int y = Math.floorMod(firstY + (row * SNAKE_SIZE), world.getHeight());
+						for (int column = 0; column < camera.spanX(SNAKE_SIZE); column++) {
+							int x = Math.floorMod(firstX + (column * SNAKE_SIZE), world.getWidth());
+							if (grid.snakeAt(x, y) > ZERO) g.drawImage(body, (column * SNAKE_SIZE) - offsetX, (row * SNAKE_SIZE) - offsetY, null);
+						}
+					}
+					Snake snake = this.game.getSnake();
+					if (snake.size() > ZERO) g.drawImage(SpriteCache.get(SpriteCache.Sprite.HEAD), camera.toScreenX(snake.getX(ZERO)), camera.toScreenY(snake.getY(ZERO)), null);
+					g.setClip(null);
+					// The HUD, drawn in the same places as the SnakePanel.
+					g.setFont(new Font(HUD_FONT, Font.PLAIN, 10));
+					g.setColor(new Color(150, 150, 150));
+					g.drawString(POINTS, HUD_GAP, camera.getHeight() + HUD_GAP);
+					g.drawString("POSITION", HUD_SPACE * 2, camera.getHeight() + HUD_GAP);
+					g.setFont(new Font(HUD_FONT, Font.BOLD, 18));
+					g.setColor(new Color(255, 255, 255));
+					g.drawString(String.valueOf(this.game.getPoints()), HUD_GAP, camera.getHeight() + (HUD_GAP * 3));
+					if (snake.size() > ZERO) g.drawString((snake.getX(ZERO) / SNAKE_SIZE) + ", " + (snake.getY(ZERO) / SNAKE_SIZE), HUD_SPACE * 2, camera.getHeight() + (HUD_GAP * 3));
+					if (this.game.isOver()) {
+						g.setFont(new Font(HUD_FONT, Font.BOLD, 20));
+						g.drawString(SCORE + this.game.getPoints(), (camera.getWidth() / 4), (camera.getHeight() / 4));
+					}
+				}
+		}
+
+		public static void main(String[] args) {
+				Path path = Paths.get("world.map");
+				int tileColumns = ZERO, tileRows = ZERO;
+				long seed = GameRandom.newSeed();
+				try {
+					for (int i = 0; i < args.length; i++) {
+						if (args[i].equals("-world")) path = Paths.get(args[++i]);
+						else if (args[i].equals("-create")) {
+							tileColumns = Integer.parseInt(args[++i]);
+							tileRows = Integer.parseInt(args[++i]);
+						} else if (args[i].equals("-seed")) seed = Long.parseLong(args[++i]);
+						else throw new IllegalArgumentException(args[i]);
+					}
+				} catch (RuntimeException ex) {
+					System.out.println("Usage: java WorldPanel [-world file] [-create tileColumns tileRows] [-seed seed]");
+					return;
+				}
+				try {
+					WorldGame game = new WorldGame(WorldGame.open(path, tileColumns, tileRows, seed), PANEL_WIDTH, PANEL_HEIGHT, seed);
+					if (!game.start()) {
+						System.out.println("Can't Find Room For The Snake");
+						return;
+					}
+					WorldPanel panel = new WorldPanel(game);
+					JFrame frame = new JFrame(MAIN_HEADING);
+					frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+					frame.add(panel);
+					frame.pack();
+					frame.setResizable(false);
+					frame.setVisible(true);
+					Thread thread = new Thread(panel, "World Game");
+					thread.setDaemon(true);
+					thread.start();
+				} catch (IOException ex) {
+					System.out.println("Can't Open World " + ex.getMessage());
+				}
+		}
+}